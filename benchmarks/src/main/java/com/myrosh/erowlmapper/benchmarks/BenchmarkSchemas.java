@@ -0,0 +1,42 @@
+package com.myrosh.erowlmapper.benchmarks;
+
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.generator.ERSchemaGenerator;
+import com.myrosh.erowlmapper.er.writer.YAMLERWriter;
+
+import java.io.StringWriter;
+
+/**
+ * @author igorm
+ *
+ * Builds benchmark ER schemas of a given size
+ *
+ */
+public class BenchmarkSchemas {
+
+    /**
+     * Generates a valid schema with the given number of entities using the default
+     * ERSchemaGenerator shape and a fixed seed.
+     *
+     * @param entityCount
+     * @return
+     */
+    public static ERSchema build(int entityCount) {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(entityCount);
+
+        return generator.generate();
+    }
+
+    /**
+     * @param schema
+     * @return
+     * @throws Exception
+     */
+    public static String toYAML(ERSchema schema) throws Exception {
+        StringWriter writer = new StringWriter();
+        new YAMLERWriter().write(schema, writer);
+
+        return writer.toString();
+    }
+}
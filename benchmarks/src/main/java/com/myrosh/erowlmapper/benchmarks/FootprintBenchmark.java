@@ -0,0 +1,134 @@
+package com.myrosh.erowlmapper.benchmarks;
+
+import com.myrosh.erowlmapper.er.ERAttribute;
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERParticipatingEntity;
+import com.myrosh.erowlmapper.er.ERRelationship;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.compact.CompactERSchema;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author igorm
+ *
+ * Compares a schema held as one object per element with a CompactERSchema of the same
+ * schema: the time and allocation of copying the schema into either and, printed once per
+ * trial, the heap each copy retains. Both copies share the name strings of the original, so
+ * the names are not counted.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FootprintBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int entityCount;
+
+    private ERSchema schema;
+
+    /**
+     * Copy being measured
+     */
+    private Object retained;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        schema = BenchmarkSchemas.build(entityCount);
+
+        System.out.println(String.format("%n%d entities: %d bytes as objects, %d bytes compact",
+            entityCount, getRetainedBytes(new Callable<Object>() {
+                public Object call() {
+                    return copy();
+                }
+            }), getRetainedBytes(new Callable<Object>() {
+                public Object call() {
+                    return compactCopy();
+                }
+            })));
+    }
+
+    @Benchmark
+    public ERSchema copy() {
+        ERSchema copy = new ERSchema();
+
+        for (EREntity entity : schema.getEntities()) {
+            EREntity entityCopy = new EREntity();
+            entityCopy.setName(entity.getName());
+            entityCopy.setWeak(entity.isWeak());
+            copyAttributes(entity.getAttributes(), entityCopy.getAttributes());
+            copy.addEntity(entityCopy);
+        }
+
+        for (ERRelationship relationship : schema.getRelationships()) {
+            ERRelationship relationshipCopy = new ERRelationship();
+            relationshipCopy.setName(relationship.getName());
+            relationshipCopy.setIdentifying(relationship.isIdentifying());
+            copyAttributes(relationship.getAttributes(), relationshipCopy.getAttributes());
+
+            for (ERParticipatingEntity participatingEntity
+                : relationship.getParticipatingEntities()
+            ) {
+                ERParticipatingEntity participatingEntityCopy = new ERParticipatingEntity();
+                participatingEntityCopy.setName(participatingEntity.getName());
+                participatingEntityCopy.setRole(participatingEntity.getRole());
+                participatingEntityCopy.setMin(participatingEntity.getMin());
+                participatingEntityCopy.setMax(participatingEntity.getMax());
+                relationshipCopy.addParticipatingEntity(participatingEntityCopy);
+            }
+
+            copy.addRelationship(relationshipCopy);
+        }
+
+        return copy;
+    }
+
+    @Benchmark
+    public CompactERSchema compactCopy() {
+        return new CompactERSchema(schema);
+    }
+
+    /**
+     * @param factory
+     * @return the growth of the used heap, after a full collection, while holding the object
+     * the factory returns
+     * @throws Exception
+     */
+    private long getRetainedBytes(Callable<Object> factory) throws Exception {
+        long before = getUsedHeap();
+        retained = factory.call();
+        long after = getUsedHeap();
+        retained = null;
+
+        return after - before;
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void copyAttributes(List<ERAttribute> attributes, List<ERAttribute> copies) {
+        for (ERAttribute attribute : attributes) {
+            ERAttribute copy = new ERAttribute();
+            copy.setName(attribute.getName());
+            copy.setKey(attribute.isKey());
+            copy.setComposite(attribute.isComposite());
+            copy.setMultivalued(attribute.isMultivalued());
+            copyAttributes(attribute.getAttributes(), copy.getAttributes());
+            copies.add(copy);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.myrosh.erowlmapper.benchmarks;
+
+import com.myrosh.erowlmapper.EROWLMapper;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+import com.myrosh.erowlmapper.owl.backend.GraphOWLBackend;
+import com.myrosh.erowlmapper.owl.backend.OntModelOWLBackend;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author igorm
+ *
+ * Benchmarks EROWLMapper.map and EROWLMapper.mapParallel
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int entityCount;
+
+    @Param({"ontmodel", "graph"})
+    public String backend;
+
+    private ERSchema schema;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        schema = BenchmarkSchemas.build(entityCount);
+        schema.validate();
+    }
+
+    @Benchmark
+    public OWLLiteOntology map() throws Exception {
+        // A mapper accumulates into its own ontology, so every invocation needs a fresh one
+        return newMapper().map(schema);
+    }
+
+    @Benchmark
+    public OWLLiteOntology mapParallel() throws Exception {
+        return newMapper().mapParallel(schema);
+    }
+
+    private EROWLMapper newMapper() {
+        return new EROWLMapper(new OWLLiteOntology(
+            backend.equals("graph") ? new GraphOWLBackend() : new OntModelOWLBackend()));
+    }
+}
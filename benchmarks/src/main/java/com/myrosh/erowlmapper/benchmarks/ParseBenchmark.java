@@ -0,0 +1,49 @@
+package com.myrosh.erowlmapper.benchmarks;
+
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.parser.StreamingYAMLERParser;
+import com.myrosh.erowlmapper.er.parser.YAMLERParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author igorm
+ *
+ * Benchmarks YAMLERParser.parse and StreamingYAMLERParser.parse
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int entityCount;
+
+    private String yaml;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        yaml = BenchmarkSchemas.toYAML(BenchmarkSchemas.build(entityCount));
+    }
+
+    @Benchmark
+    public ERSchema parse() throws Exception {
+        return new YAMLERParser().parse(new StringReader(yaml));
+    }
+
+    @Benchmark
+    public ERSchema parseBytecodeGeneration() throws Exception {
+        return new YAMLERParser(true).parse(new StringReader(yaml));
+    }
+
+    @Benchmark
+    public ERSchema parseStreaming() throws Exception {
+        return new StreamingYAMLERParser().parse(new StringReader(yaml));
+    }
+}
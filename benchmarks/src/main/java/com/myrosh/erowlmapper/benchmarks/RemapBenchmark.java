@@ -0,0 +1,60 @@
+package com.myrosh.erowlmapper.benchmarks;
+
+import com.myrosh.erowlmapper.EROWLMapper;
+import com.myrosh.erowlmapper.er.ERAttribute;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author igorm
+ *
+ * Benchmarks EROWLMapper.remap for a one-attribute edit. Every invocation alternately adds
+ * and removes the attribute, so the ontology stays in step with the schema.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RemapBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int entityCount;
+
+    private ERSchema schema;
+
+    private ERSchema editedSchema;
+
+    private OWLLiteOntology ontology;
+
+    private boolean edited = false;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        schema = BenchmarkSchemas.build(entityCount);
+        editedSchema = BenchmarkSchemas.build(entityCount);
+
+        ERAttribute attribute = new ERAttribute();
+        attribute.setName("remapped");
+        editedSchema.getEntities().get(0).addAttribute(attribute);
+
+        schema.validate();
+        editedSchema.validate();
+
+        ontology = new EROWLMapper().map(schema);
+    }
+
+    @Benchmark
+    public OWLLiteOntology remap() throws Exception {
+        edited = !edited;
+
+        return edited
+            ? new EROWLMapper(ontology).remap(schema, editedSchema)
+            : new EROWLMapper(ontology).remap(editedSchema, schema);
+    }
+}
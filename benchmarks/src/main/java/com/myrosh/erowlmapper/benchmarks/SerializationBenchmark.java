@@ -0,0 +1,66 @@
+package com.myrosh.erowlmapper.benchmarks;
+
+import com.myrosh.erowlmapper.EROWLMapper;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author igorm
+ *
+ * Compares RDF Thrift with the text formats: serializing a mapped ontology, parsing it back
+ * and, printed once per trial, the size of the output
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int entityCount;
+
+    @Param({"rdfxml-abbrev", "ntriples", "thrift"})
+    public String format;
+
+    private OWLFormat owlFormat;
+
+    private OWLLiteOntology ontology;
+
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ERSchema schema = BenchmarkSchemas.build(entityCount);
+        schema.validate();
+
+        owlFormat = OWLFormat.fromName(format);
+        ontology = new EROWLMapper().map(schema);
+        content = serialize().toByteArray();
+
+        System.out.println(String.format("%n%s, %d entities: %d triples in %d bytes",
+            format, entityCount, ontology.size(), content.length));
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream serialize() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(
+            content == null ? 8192 : content.length);
+        ontology.write(output, owlFormat);
+
+        return output;
+    }
+
+    @Benchmark
+    public OWLLiteOntology parse() {
+        return OWLLiteOntology.read(new ByteArrayInputStream(content), owlFormat);
+    }
+}
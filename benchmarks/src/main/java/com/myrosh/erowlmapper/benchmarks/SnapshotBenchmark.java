@@ -0,0 +1,61 @@
+package com.myrosh.erowlmapper.benchmarks;
+
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.compact.CompactERSchema;
+import com.myrosh.erowlmapper.er.compact.ERSchemaSnapshot;
+import com.myrosh.erowlmapper.er.parser.YAMLERParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author igorm
+ *
+ * Benchmarks ERSchemaSnapshot.load against parsing and validating the same schema as YAML,
+ * the two ways App reads an input file
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int entityCount;
+
+    private String yaml;
+
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ERSchema schema = BenchmarkSchemas.build(entityCount);
+        yaml = BenchmarkSchemas.toYAML(schema);
+        snapshot = Files.createTempFile("erowlmapper", ".snapshot");
+        ERSchemaSnapshot.write(schema, snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.delete(snapshot);
+    }
+
+    @Benchmark
+    public ERSchema parse() throws Exception {
+        ERSchema schema = new YAMLERParser().parse(new StringReader(yaml));
+        schema.validate();
+
+        return schema;
+    }
+
+    @Benchmark
+    public CompactERSchema load() throws Exception {
+        return ERSchemaSnapshot.load(snapshot);
+    }
+}
@@ -0,0 +1,80 @@
+package com.myrosh.erowlmapper.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author igorm
+ *
+ * Measures time to first output of the App CLI, from launching a fresh JVM until the
+ * ontology has been written, with and without the AppCDS archive built by mvn -P cds package.
+ * The jar and archive locations can be overridden with -Derowlmapper.jar and
+ * -Derowlmapper.jsa.
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    @Param({"5", "100"})
+    public int entityCount;
+
+    @Param({"none", "cds"})
+    public String archive;
+
+    private List<String> command;
+
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        File jar = new File(System.getProperty("erowlmapper.jar", "../target/erowlmapper-1.0-SNAPSHOT.jar"));
+        File jsa = new File(System.getProperty("erowlmapper.jsa", "../target/erowlmapper.jsa"));
+
+        if (!jar.isFile() || (archive.equals("cds") && !jsa.isFile())) {
+            throw new IllegalStateException("Run mvn -P cds package in the project directory first.");
+        }
+
+        File input = File.createTempFile("startup", ".yml");
+        input.deleteOnExit();
+        output = File.createTempFile("startup", ".owl");
+        output.deleteOnExit();
+
+        Files.write(input.toPath(), BenchmarkSchemas.toYAML(BenchmarkSchemas.build(entityCount))
+            .getBytes(StandardCharsets.UTF_8));
+
+        command = new ArrayList<String>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+
+        if (archive.equals("cds")) {
+            command.add("-XX:SharedArchiveFile=" + jsa.getPath());
+        }
+
+        command.add("-jar");
+        command.add(jar.getPath());
+        command.add(input.getPath());
+        command.add(output.getPath());
+    }
+
+    @Benchmark
+    public int run() throws Exception {
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        int exitCode = process.waitFor();
+
+        if (exitCode != 0 || output.length() == 0) {
+            throw new IllegalStateException("App failed with exit code " + exitCode + ".");
+        }
+
+        return exitCode;
+    }
+}
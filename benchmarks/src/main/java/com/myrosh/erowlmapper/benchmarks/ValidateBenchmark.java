@@ -0,0 +1,47 @@
+package com.myrosh.erowlmapper.benchmarks;
+
+import com.myrosh.erowlmapper.er.ERException;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.validator.ERSchemaValidator;
+import com.myrosh.erowlmapper.er.validator.ERValidationReport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author igorm
+ *
+ * Benchmarks ERSchema.validate and parallel ERSchemaValidator runs
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidateBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int entityCount;
+
+    private ERSchema schema;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        schema = BenchmarkSchemas.build(entityCount);
+    }
+
+    @Benchmark
+    public ERSchema validate() throws ERException {
+        schema.validate();
+
+        return schema;
+    }
+
+    @Benchmark
+    public ERValidationReport validateParallel() {
+        return new ERSchemaValidator(ForkJoinPool.commonPool()).validate(schema);
+    }
+}
@@ -0,0 +1,48 @@
+package com.myrosh.erowlmapper.benchmarks;
+
+import com.myrosh.erowlmapper.EROWLMapper;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+import org.apache.commons.io.output.NullWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author igorm
+ *
+ * Benchmarks OWLLiteOntology.write
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int entityCount;
+
+    @Param({"rdfxml-abbrev", "rdfxml", "turtle", "ntriples"})
+    public String format;
+
+    private OWLLiteOntology ontology;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ERSchema schema = BenchmarkSchemas.build(entityCount);
+        schema.validate();
+
+        ontology = new EROWLMapper().map(schema);
+    }
+
+    @Benchmark
+    public OWLLiteOntology write() throws Exception {
+        ontology.write(new NullWriter(), OWLFormat.fromName(format));
+
+        return ontology;
+    }
+}
@@ -1,14 +1,28 @@
 package com.myrosh.erowlmapper;
 
-import java.io.FileReader;
-import java.io.PrintWriter;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.myrosh.erowlmapper.er.ERParser;
 import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.compact.ERSchemaSnapshot;
 import com.myrosh.erowlmapper.er.parser.YAMLERParser;
+import com.myrosh.erowlmapper.metrics.MappingMetrics;
+import com.myrosh.erowlmapper.owl.OWLFormat;
 import com.myrosh.erowlmapper.owl.OWLLiteOntology;
 
 /**
@@ -16,23 +30,356 @@ import com.myrosh.erowlmapper.owl.OWLLiteOntology;
  *
  * A launcher class for EROWLMapper
  *
+ * Usage: App [--format rdfxml-abbrev|rdfxml|turtle|ntriples|thrift] input.yml output
+ *        App [--format ...] [--threads n] --batch directory|glob outputDirectory
+ *        App [--format ...] [--threads n] --manifest manifest.txt
+ *        App [--format ...] [--threads n] [--merge-policy separate|equivalent-classes|reject]
+ *            --merge output input.yml...
+ *        App [--format ...] [--threads n] [--max-modules n] --modules input.yml outputDirectory
+ *        App [--threads n] [--port n] --serve
+ *        App --snapshot input.yml output.snapshot
+ *
+ * The single, batch and manifest forms accept --cache directory [--cache-size bytes] to
+ * reuse ontologies of schemas that were mapped before.
+ *
+ * Every form that writes ontologies accepts --stats to print the time, element, triple and
+ * character counts of every pipeline phase when done.
+ *
+ * --merge maps every input under its own namespace, named after the file, into one
+ * ontology. --modules writes a file per connected component of the schema and a root
+ * ontology importing them.
+ *
+ * --snapshot writes a binary snapshot of a schema. Any input file of the other forms may be
+ * such a snapshot, which is loaded instead of parsed.
+ *
+ * The exit status is 1 if anything, including any schema of a batch, failed to map.
+ *
  */
 public class App
 {
     public static void main(String[] args)
     {
         Logger logger = LoggerFactory.getLogger(App.class);
-        ERParser parser = new YAMLERParser();
-        EROWLMapper mapper = new EROWLMapper();
 
         try {
-            ERSchema schema = parser.parse(new FileReader(args[0]));
-            schema.validate();
+            OWLFormat format = OWLFormat.RDF_XML_ABBREV;
+            int threadCount = Runtime.getRuntime().availableProcessors();
+            boolean batch = false;
+            boolean serve = false;
+            boolean stats = false;
+            boolean snapshot = false;
+            boolean merge = false;
+            boolean modules = false;
+            int maxModuleCount = Integer.MAX_VALUE;
+            MultiSchemaMapper.MergePolicy mergePolicy = MultiSchemaMapper.MergePolicy.SEPARATE;
+            int port = 8080;
+            String manifest = null;
+            String cacheDirectory = null;
+            long cacheSize = MappingCache.DEFAULT_MAX_SIZE;
+            List<String> paths = new ArrayList<String>();
+
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--format") && i + 1 < args.length) {
+                    format = OWLFormat.fromName(args[++i]);
+                } else if (args[i].startsWith("--format=")) {
+                    format = OWLFormat.fromName(args[i].substring("--format=".length()));
+                } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                    threadCount = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--batch")) {
+                    batch = true;
+                } else if (args[i].equals("--stats")) {
+                    stats = true;
+                } else if (args[i].equals("--snapshot")) {
+                    snapshot = true;
+                } else if (args[i].equals("--merge")) {
+                    merge = true;
+                } else if (args[i].equals("--merge-policy") && i + 1 < args.length) {
+                    mergePolicy = MultiSchemaMapper.MergePolicy.valueOf(
+                        args[++i].toUpperCase().replace('-', '_'));
+                } else if (args[i].equals("--modules")) {
+                    modules = true;
+                } else if (args[i].equals("--max-modules") && i + 1 < args.length) {
+                    maxModuleCount = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--serve")) {
+                    serve = true;
+                } else if (args[i].equals("--port") && i + 1 < args.length) {
+                    port = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                    cacheDirectory = args[++i];
+                } else if (args[i].equals("--cache-size") && i + 1 < args.length) {
+                    cacheSize = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--manifest") && i + 1 < args.length) {
+                    manifest = args[++i];
+                } else {
+                    paths.add(args[i]);
+                }
+            }
+
+            if (serve) {
+                MappingServer server = new MappingServer();
+                server.setPort(port);
+                server.setThreadCount(threadCount);
+                server.start();
+                return;
+            }
+
+            if (snapshot) {
+                writeSnapshot(Paths.get(paths.get(0)), Paths.get(paths.get(1)));
+                return;
+            }
+
+            if (modules) {
+                ModularOntologyWriter writer = new ModularOntologyWriter(format);
+                writer.setMaxModuleCount(maxModuleCount);
+                ForkJoinPool pool = new ForkJoinPool(Math.max(1, threadCount));
+
+                try {
+                    List<Path> modulePaths = writer.write(
+                        parse(Paths.get(paths.get(0))), Paths.get(paths.get(1)), pool);
+                    logger.info("Wrote " + modulePaths.get(0) + " importing "
+                        + (modulePaths.size() - 1) + " modules.");
+                } finally {
+                    pool.shutdown();
+                }
+
+                if (stats) {
+                    logger.info("Phases:\n" + MappingMetrics.getInstance());
+                }
+
+                return;
+            }
+
+            if (merge) {
+                List<Path> inputs = new ArrayList<Path>();
+
+                for (String path : paths.subList(1, paths.size())) {
+                    inputs.add(Paths.get(path));
+                }
+
+                ForkJoinPool pool = new ForkJoinPool(Math.max(1, threadCount));
+
+                try {
+                    merge(inputs, Paths.get(paths.get(0)), format, mergePolicy, pool);
+                } finally {
+                    pool.shutdown();
+                }
 
-            OWLLiteOntology ontology = mapper.map(schema);
-            ontology.write(new PrintWriter(args[1], "UTF-8"));
+                if (stats) {
+                    logger.info("Phases:\n" + MappingMetrics.getInstance());
+                }
+
+                return;
+            }
+
+            MappingCache cache = cacheDirectory == null
+                ? null : new MappingCache(Paths.get(cacheDirectory), cacheSize);
+
+            if (!batch && manifest == null) {
+                map(Paths.get(paths.get(0)), Paths.get(paths.get(1)), format, cache);
+
+                if (cache != null) {
+                    logger.info(cache.toString());
+                }
+
+                if (stats) {
+                    logger.info("Phases:\n" + MappingMetrics.getInstance());
+                }
+
+                return;
+            }
+
+            MappingMetrics.getInstance().registerMBeans();
+
+            BatchMapper batchMapper = new BatchMapper(format, threadCount);
+            batchMapper.setCache(cache);
+            BatchMapper.Result result = batchMapper.map(manifest != null
+                ? batchMapper.readManifest(Paths.get(manifest))
+                : batchMapper.findJobs(paths.get(0), Paths.get(paths.get(1))));
+
+            for (String failure : result.getFailures()) {
+                logger.error(failure);
+            }
+
+            logger.info(result.toString());
+
+            if (cache != null) {
+                logger.info(cache.toString());
+            }
+
+            if (stats) {
+                logger.info("Phases:\n" + MappingMetrics.getInstance());
+            }
+
+            if (!result.getFailures().isEmpty()) {
+                System.exit(1);
+            }
         } catch (Exception e) {
             logger.error(e.getMessage());
+            System.exit(1);
         }
     }
+
+    /**
+     * Parses, validates and maps a schema file and writes the ontology to the output file.
+     *
+     * @param input
+     * @param output
+     * @param format
+     * @throws Exception
+     */
+    public static void map(Path input, Path output, OWLFormat format) throws Exception {
+        map(input, output, format, null);
+    }
+
+    /**
+     * Like map(input, output, format), but an ontology found in the cache is copied to the
+     * output file instead of being mapped and serialized again.
+     *
+     * @param input
+     * @param output
+     * @param format
+     * @param cache may be null
+     * @throws Exception
+     */
+    public static void map(Path input, Path output, OWLFormat format, MappingCache cache)
+        throws Exception {
+        ERSchema schema = parse(input);
+
+        if (cache == null) {
+            OWLLiteOntology ontology = new EROWLMapper().map(schema);
+
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(output))) {
+                ontology.write(stream, format);
+            }
+
+            return;
+        }
+
+        String key = MappingCache.getKey(schema, format);
+        byte[] content = cache.get(key);
+
+        if (content == null) {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+            new EROWLMapper().map(schema).write(stream, format);
+
+            content = stream.toByteArray();
+            cache.put(key, content);
+        }
+
+        Files.write(output, content);
+    }
+
+    /**
+     * Maps schema files into one ontology and writes it to the output file. Every schema
+     * gets a namespace below the default one named after its file, e.g. sales.yml is mapped
+     * to http://www.semanticweb.org/ontologies/erowlmapper/sales#. The file name is cleaned
+     * like an entity name, so that "sales data.yml" is mapped to .../salesdata#.
+     *
+     * @param inputs
+     * @param output
+     * @param format
+     * @param mergePolicy
+     * @param pool
+     * @throws IllegalArgumentException before anything is parsed, if a file name has no
+     * letter or digit or two files would share a namespace
+     * @throws Exception
+     */
+    public static void merge(
+        List<Path> inputs,
+        Path output,
+        OWLFormat format,
+        MultiSchemaMapper.MergePolicy mergePolicy,
+        ForkJoinPool pool
+    ) throws Exception {
+        String namespaceBase = OWLLiteOntology.NS.substring(0, OWLLiteOntology.NS.length() - 1);
+        Map<String, Path> inputsByNamespace = new LinkedHashMap<String, Path>();
+
+        for (Path input : inputs) {
+            String name = input.getFileName().toString();
+            int extension = name.lastIndexOf('.');
+            String segment = CanonicalName.of(extension > 0 ? name.substring(0, extension) : name)
+                .getCleanName();
+
+            if (segment.isEmpty()) {
+                throw new IllegalArgumentException("File name " + input
+                    + " has no letter or digit to name its namespace.");
+            }
+
+            String namespace = namespaceBase + "/" + segment + "#";
+            Path otherInput = inputsByNamespace.put(namespace, input);
+
+            if (otherInput != null) {
+                throw new IllegalArgumentException("Both " + otherInput + " and " + input
+                    + " would be mapped to namespace " + namespace + ", rename one of them.");
+            }
+        }
+
+        MultiSchemaMapper mapper = new MultiSchemaMapper();
+        mapper.setMergePolicy(mergePolicy);
+
+        for (Map.Entry<String, Path> input : inputsByNamespace.entrySet()) {
+            mapper.addSchema(input.getKey(), parse(input.getValue()));
+        }
+
+        OWLLiteOntology ontology = mapper.map(pool);
+
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(output))) {
+            ontology.write(stream, format);
+        }
+    }
+
+    /**
+     * Parses, validates and maps a schema.
+     *
+     * @param reader
+     * @return
+     * @throws Exception
+     */
+    public static OWLLiteOntology map(Reader reader) throws Exception {
+        return new EROWLMapper().map(parse(reader));
+    }
+
+    /**
+     * Loads a schema snapshot, or parses and validates a schema file.
+     *
+     * @param input
+     * @return
+     * @throws Exception
+     */
+    public static ERSchema parse(Path input) throws Exception {
+        if (ERSchemaSnapshot.isSnapshot(input)) {
+            return ERSchemaSnapshot.load(input);
+        }
+
+        try (Reader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Parses a schema file and writes its snapshot.
+     *
+     * @param input
+     * @param output
+     * @throws Exception
+     */
+    public static void writeSnapshot(Path input, Path output) throws Exception {
+        ERSchemaSnapshot.write(parse(input), output);
+    }
+
+    /**
+     * Parses and validates a schema.
+     *
+     * @param reader
+     * @return
+     * @throws Exception
+     */
+    public static ERSchema parse(Reader reader) throws Exception {
+        ERParser parser = new YAMLERParser();
+        ERSchema schema = parser.parse(reader);
+        schema.validate();
+
+        return schema;
+    }
 }
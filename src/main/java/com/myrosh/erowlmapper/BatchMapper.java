@@ -0,0 +1,365 @@
+package com.myrosh.erowlmapper;
+
+import com.myrosh.erowlmapper.owl.OWLFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author igorm
+ *
+ * Maps many schema files in one JVM on a worker pool. Every file goes through the same
+ * parse, validate, map and write steps as a single App run. The largest files are scheduled
+ * first, and a failing file does not stop the batch.
+ *
+ */
+public class BatchMapper {
+
+    /**
+     * An input schema file and the ontology file it is mapped to
+     */
+    public static class Job {
+
+        private final Path input;
+
+        private final Path output;
+
+        /**
+         * @param input
+         * @param output
+         */
+        public Job(Path input, Path output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        /**
+         * @return
+         */
+        public Path getInput() {
+            return input;
+        }
+
+        /**
+         * @return
+         */
+        public Path getOutput() {
+            return output;
+        }
+    }
+
+    /**
+     * Summary of a batch run
+     */
+    public static class Result {
+
+        private final int jobCount;
+
+        private final List<String> failures;
+
+        private final long elapsedMillis;
+
+        Result(int jobCount, List<String> failures, long elapsedMillis) {
+            this.jobCount = jobCount;
+            this.failures = Collections.unmodifiableList(failures);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * @return
+         */
+        public int getJobCount() {
+            return jobCount;
+        }
+
+        /**
+         * @return
+         */
+        public int getSuccessCount() {
+            return jobCount - failures.size();
+        }
+
+        /**
+         * @return one "input: message" line per failed job
+         */
+        public List<String> getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Mapped " + getSuccessCount() + " of " + jobCount + " schemas in "
+                + elapsedMillis + " ms, " + failures.size() + " failed.";
+        }
+    }
+
+    /**
+     * Output format
+     */
+    private final OWLFormat format;
+
+    /**
+     * Worker count
+     */
+    private final int threadCount;
+
+    /**
+     * Cache shared by all workers, null if disabled
+     */
+    private MappingCache cache;
+
+    /**
+     * @param format
+     * @param threadCount
+     */
+    public BatchMapper(OWLFormat format, int threadCount) {
+        this.format = format;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * @return
+     */
+    public MappingCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @param cache
+     */
+    public void setCache(MappingCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @param jobs
+     * @return
+     * @throws InterruptedException
+     */
+    public Result map(List<Job> jobs) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        List<Job> sortedJobs = sortLargestFirst(jobs);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+        for (final Job job : sortedJobs) {
+            tasks.add(new Callable<Void>() {
+                public Void call() throws Exception {
+                    if (job.getOutput().getParent() != null) {
+                        Files.createDirectories(job.getOutput().getParent());
+                    }
+
+                    App.map(job.getInput(), job.getOutput(), format, cache);
+
+                    return null;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount));
+        List<String> failures = new ArrayList<String>();
+
+        try {
+            // A fixed pool takes tasks in submission order, so the largest files start first
+            List<Future<Void>> results = executor.invokeAll(tasks);
+
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    failures.add(sortedJobs.get(i).getInput() + ": " + e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        return new Result(jobs.size(), failures, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Collects the *.yml and *.yaml files of a directory, or the files matching a glob such
+     * as schemas/&#42;&#42;/&#42;.yml, and maps each to outputDirectory/basename.extension.
+     *
+     * @param directoryOrGlob
+     * @param outputDirectory
+     * @return
+     * @throws IOException if files of the same basename, e.g. a.yml and a.yaml or files of
+     * different directories, would be mapped to the same output file
+     */
+    public List<Job> findJobs(String directoryOrGlob, Path outputDirectory) throws IOException {
+        final List<Job> jobs = new ArrayList<Job>();
+        Path directory = Paths.get(directoryOrGlob);
+
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> paths =
+                     Files.newDirectoryStream(directory, "*.{yml,yaml}")) {
+                for (Path path : paths) {
+                    jobs.add(new Job(path, getOutput(path, outputDirectory)));
+                }
+            }
+
+            checkOutputs(jobs);
+
+            return jobs;
+        }
+
+        final PathMatcher matcher =
+            FileSystems.getDefault().getPathMatcher("glob:" + directoryOrGlob);
+        final Path outputDirectoryPath = outputDirectory;
+
+        Files.walkFileTree(getGlobBase(directoryOrGlob), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                if (matcher.matches(path)) {
+                    jobs.add(new Job(path, getOutput(path, outputDirectoryPath)));
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        checkOutputs(jobs);
+
+        return jobs;
+    }
+
+    /**
+     * Reads a manifest with one "input output" pair per line. Blank lines and lines starting
+     * with # are ignored.
+     *
+     * @param manifest
+     * @return
+     * @throws IOException if a line is invalid or two lines have the same output file
+     */
+    public List<Job> readManifest(Path manifest) throws IOException {
+        List<Job> jobs = new ArrayList<Job>();
+
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] paths = line.split("\\s+");
+
+                if (paths.length != 2) {
+                    throw new IOException("Invalid manifest line: " + line);
+                }
+
+                jobs.add(new Job(Paths.get(paths[0]), Paths.get(paths[1])));
+            }
+        }
+
+        checkOutputs(jobs);
+
+        return jobs;
+    }
+
+    /**
+     * Concurrent jobs writing the same file would leave it with the output of either one.
+     *
+     * @param jobs
+     * @throws IOException if two jobs have the same output file
+     */
+    private void checkOutputs(List<Job> jobs) throws IOException {
+        Map<Path, Path> inputs = new HashMap<Path, Path>();
+
+        for (Job job : jobs) {
+            Path input = inputs.put(job.getOutput().toAbsolutePath().normalize(), job.getInput());
+
+            if (input != null) {
+                throw new IOException("Both " + input + " and " + job.getInput()
+                    + " are mapped to " + job.getOutput() + ".");
+            }
+        }
+    }
+
+    private Path getOutput(Path input, Path outputDirectory) {
+        String filename = input.getFileName().toString();
+        int extensionIndex = filename.lastIndexOf('.');
+        String basename = extensionIndex > 0 ? filename.substring(0, extensionIndex) : filename;
+
+        return outputDirectory.resolve(basename + "." + format.getExtension());
+    }
+
+    private Path getGlobBase(String glob) {
+        Path base = null;
+
+        for (String segment : glob.split("[/\\\\]")) {
+            if (segment.matches(".*[*?\\[\\]{}].*")) {
+                break;
+            }
+
+            base = base == null
+                ? Paths.get(segment.isEmpty() ? "/" : segment)
+                : base.resolve(segment);
+        }
+
+        return base == null ? Paths.get("") : base;
+    }
+
+    private List<Job> sortLargestFirst(List<Job> jobs) {
+        final List<Long> sizes = new ArrayList<Long>();
+        List<Integer> indexes = new ArrayList<Integer>();
+
+        for (int i = 0; i < jobs.size(); i++) {
+            long size;
+
+            try {
+                size = Files.size(jobs.get(i).getInput());
+            } catch (IOException e) {
+                // Missing files fail quickly once their job runs
+                size = -1;
+            }
+
+            sizes.add(size);
+            indexes.add(i);
+        }
+
+        Collections.sort(indexes, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Long.compare(sizes.get(b), sizes.get(a));
+            }
+        });
+
+        List<Job> sortedJobs = new ArrayList<Job>();
+
+        for (int index : indexes) {
+            sortedJobs.add(jobs.get(index));
+        }
+
+        return sortedJobs;
+    }
+}
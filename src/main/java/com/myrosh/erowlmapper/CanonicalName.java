@@ -0,0 +1,119 @@
+package com.myrosh.erowlmapper;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author igorm
+ *
+ * The cleaned, lower-cased and capitalized forms of a name, computed once. Instances are
+ * interned, so repeated names share one instance and its forms.
+ *
+ */
+public final class CanonicalName {
+
+    /**
+     * Maximum number of interned names before the pool is flushed
+     */
+    private static final int POOL_LIMIT = 1 << 20;
+
+    /**
+     * Interned names
+     */
+    private static final ConcurrentMap<String, CanonicalName> POOL =
+        new ConcurrentHashMap<String, CanonicalName>();
+
+    /**
+     * Canonical form of a null name
+     */
+    private static final CanonicalName NULL = new CanonicalName(null);
+
+    /**
+     * Raw name
+     */
+    private final String name;
+
+    /**
+     * Clean name
+     */
+    private final String cleanName;
+
+    /**
+     * Lower-cased clean name
+     */
+    private final String lowerCaseName;
+
+    /**
+     * Capitalized clean name
+     */
+    private final String capitalizedName;
+
+    private CanonicalName(String name) {
+        this.name = name;
+        this.cleanName = Utils.cleanName(name);
+        this.lowerCaseName = cleanName.toLowerCase();
+        this.capitalizedName = StringUtils.capitalize(cleanName);
+    }
+
+    /**
+     * @param name
+     * @return
+     */
+    public static CanonicalName of(String name) {
+        if (name == null) {
+            return NULL;
+        }
+
+        CanonicalName canonicalName = POOL.get(name);
+
+        if (canonicalName == null) {
+            if (POOL.size() >= POOL_LIMIT) {
+                POOL.clear();
+            }
+
+            canonicalName = new CanonicalName(name);
+            CanonicalName pooledName = POOL.putIfAbsent(name, canonicalName);
+
+            if (pooledName != null) {
+                canonicalName = pooledName;
+            }
+        }
+
+        return canonicalName;
+    }
+
+    /**
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return
+     */
+    public String getCleanName() {
+        return cleanName;
+    }
+
+    /**
+     * @return
+     */
+    public String getLowerCaseName() {
+        return lowerCaseName;
+    }
+
+    /**
+     * @return
+     */
+    public String getCapitalizedName() {
+        return capitalizedName;
+    }
+
+    @Override
+    public String toString() {
+        return lowerCaseName;
+    }
+}
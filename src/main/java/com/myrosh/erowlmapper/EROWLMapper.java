@@ -1,11 +1,22 @@
 package com.myrosh.erowlmapper;
 
 import com.myrosh.erowlmapper.er.*;
+import com.myrosh.erowlmapper.metrics.ElementRun;
+import com.myrosh.erowlmapper.metrics.MappingMetrics;
+import com.myrosh.erowlmapper.metrics.MappingPhase;
+import com.myrosh.erowlmapper.metrics.PhaseRun;
 import com.myrosh.erowlmapper.owl.OWLException;
 import com.myrosh.erowlmapper.owl.OWLLiteOntology;
-import org.apache.jena.ontology.OntClass;
+import org.apache.jena.rdf.model.Resource;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * @author igorm
@@ -15,6 +26,13 @@ import java.util.List;
  */
 public class EROWLMapper {
 
+    /**
+     * Mapping version, to be increased whenever a change alters the ontologies produced.
+     * MappingCache keys include it. MappingCacheTest fails when the expected ontologies of
+     * the test fixtures change while the version does not.
+     */
+    public static final String VERSION = "1";
+
     /**
      * ER schema
      */
@@ -23,7 +41,18 @@ public class EROWLMapper {
     /**
      * OWL ontology
      */
-    private OWLLiteOntology ontology = new OWLLiteOntology();
+    private OWLLiteOntology ontology;
+
+    public EROWLMapper() {
+        this(new OWLLiteOntology());
+    }
+
+    /**
+     * @param ontology ontology to map into, e.g. one with a non-default OWLBackend
+     */
+    public EROWLMapper(OWLLiteOntology ontology) {
+        this.ontology = ontology;
+    }
 
     /**
      * @param schema
@@ -31,25 +60,160 @@ public class EROWLMapper {
      * @throws EROWLException
      */
     public OWLLiteOntology map(ERSchema schema) throws EROWLException, OWLException {
-        this.schema = schema;
+        return map(plan(schema));
+    }
+
+    /**
+     * @param plan
+     * @return
+     * @throws OWLException
+     */
+    public OWLLiteOntology map(MappingPlan plan) throws OWLException {
+        mapStrongEntities(plan);
+        mapWeakEntitiesAndIdentifyingRelationships(plan);
+        mapBinaryRelationshipsWithoutAttributes(plan);
+        mapBinaryRelationshipsWithAttributes(plan);
+        mapTernaryRelationships(plan);
+
+        return ontology;
+    }
+
+    /**
+     * Maps the schema on the common ForkJoinPool.
+     *
+     * @param schema
+     * @return
+     * @throws EROWLException
+     * @throws OWLException
+     */
+    public OWLLiteOntology mapParallel(ERSchema schema) throws EROWLException, OWLException {
+        return map(plan(schema), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Splits the plan along the connected components of the schema, maps every partition
+     * into its own ontology on the pool and merges the results. The plan has already been
+     * checked for name collisions across the whole schema, so the result is the same as
+     * the one of map(plan).
+     *
+     * @param plan
+     * @param pool
+     * @return
+     * @throws OWLException
+     */
+    public OWLLiteOntology map(MappingPlan plan, ForkJoinPool pool) throws OWLException {
+        List<Callable<OWLLiteOntology>> tasks = new ArrayList<Callable<OWLLiteOntology>>();
+
+        for (final MappingPlan partition : plan.partition(pool.getParallelism() * 4)) {
+            tasks.add(new Callable<OWLLiteOntology>() {
+                public OWLLiteOntology call() throws OWLException {
+                    return new EROWLMapper(ontology.newInstance()).map(partition);
+                }
+            });
+        }
 
-        mapStrongEntities();
-        mapWeakEntitiesAndIdentifyingRelationships();
-        mapBinaryRelationshipsWithoutAttributes();
-        mapBinaryRelationshipsWithAttributes();
-        mapTernaryRelationships();
+        for (Future<OWLLiteOntology> result : pool.invokeAll(tasks)) {
+            try {
+                ontology.addOntology(result.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OWLException("Interrupted while mapping.");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof OWLException) {
+                    throw (OWLException)e.getCause();
+                }
+
+                throw new RuntimeException(e.getCause());
+            }
+        }
 
         return ontology;
     }
 
-    private void mapStrongEntities() throws OWLException {
-        for (EREntity entity : schema.getStrongEntities()) {
-            mapEntity(entity);
+    /**
+     * Brings the ontology this mapper was created with, the result of mapping oldSchema, up
+     * to date with newSchema. Only the classes and properties of entities and relationships
+     * that were added, removed or changed are retracted and mapped again. The result is
+     * isomorphic to mapping newSchema from scratch.
+     *
+     * @param oldSchema
+     * @param newSchema
+     * @return
+     * @throws EROWLException
+     * @throws OWLException
+     */
+    public OWLLiteOntology remap(ERSchema oldSchema, ERSchema newSchema)
+        throws EROWLException, OWLException {
+        MappingPlan oldPlan = plan(oldSchema);
+        MappingDiff diff = new MappingDiff(oldPlan, plan(newSchema));
+
+        for (MappingOperation operation : diff.getRetractedOperations()) {
+            for (String name : operation.getObjectPropertyNames()) {
+                ontology.removeOWLProperty(name);
+            }
+
+            for (String name : operation.getDatatypePropertyNames()) {
+                ontology.removeOWLProperty(name);
+            }
+
+            for (String name : operation.getClassNames()) {
+                ontology.removeOWLClass(name);
+            }
         }
+
+        return map(diff.getEmittedPlan());
     }
 
-    private void mapWeakEntitiesAndIdentifyingRelationships() throws EROWLException, OWLException {
-        for (EREntity weakEntity : schema.getWeakEntities()) {
+    /**
+     * Compiles the schema into a mapping plan in a single pass over its entities and
+     * relationships. Participating entities are resolved and OWL name collisions are
+     * detected here, before any triples are created.
+     *
+     * @param schema
+     * @return
+     * @throws EROWLException
+     * @throws OWLException
+     */
+    public MappingPlan plan(ERSchema schema) throws EROWLException, OWLException {
+        this.schema = schema;
+
+        List<EREntity> weakEntities = new ArrayList<EREntity>();
+        List<ERRelationship> binaryRelationshipsWithoutAttributes = new ArrayList<ERRelationship>();
+        List<ERRelationship> binaryRelationshipsWithAttributes = new ArrayList<ERRelationship>();
+        List<ERRelationship> ternaryRelationships = new ArrayList<ERRelationship>();
+
+        for (ERRelationship relationship : schema.getRelationships()) {
+            if (relationship.isIdentifying()) {
+                continue;
+            }
+
+            if (relationship.isBinary()) {
+                if (relationship.getAttributes().isEmpty()) {
+                    binaryRelationshipsWithoutAttributes.add(relationship);
+                } else {
+                    binaryRelationshipsWithAttributes.add(relationship);
+                }
+            } else if (relationship.isTernary()) {
+                ternaryRelationships.add(relationship);
+            }
+        }
+
+        MappingPlan plan = new MappingPlan();
+        PlanNames names = new PlanNames();
+
+        for (EREntity entity : schema.getEntities()) {
+            if (entity.isWeak()) {
+                weakEntities.add(entity);
+                continue;
+            }
+
+            MappingOperation operation =
+                new MappingOperation(MappingOperation.Type.STRONG_ENTITY, entity, null);
+            names.addEntity(operation, entity);
+            plan.addOperation(operation);
+        }
+
+        for (EREntity weakEntity : weakEntities) {
             ERRelationship relationship = schema.getIdentifyingBinaryRelationship(weakEntity);
 
             if (relationship == null) {
@@ -57,145 +221,295 @@ public class EROWLMapper {
                     + " identifying binary ERRelationship.");
             }
 
+            MappingOperation operation = new MappingOperation(
+                MappingOperation.Type.WEAK_ENTITY_AND_IDENTIFYING_RELATIONSHIP,
+                weakEntity,
+                relationship
+            );
             ERParticipatingEntity aParticipatingEntity =
                 relationship.getParticipatingEntitiesExcluding(weakEntity).get(0);
             ERParticipatingEntity bParticipatingEntity =
                 relationship.getParticipatingEntity(weakEntity);
 
-            OntClass aClass = ontology.getOWLClass(aParticipatingEntity.getName());
-            OntClass bClass = mapEntity(weakEntity);
+            addParticipatingEntity(operation, aParticipatingEntity);
+            operation.addParticipatingEntity(bParticipatingEntity, weakEntity);
+
+            names.addEntity(operation, weakEntity);
+            names.addHasIsOfObjectProperties(operation, bParticipatingEntity.getRoleOrName());
+            plan.addOperation(operation);
+        }
+
+        for (ERRelationship relationship : binaryRelationshipsWithoutAttributes) {
+            MappingOperation operation = newRelationshipOperation(
+                MappingOperation.Type.BINARY_RELATIONSHIP_WITHOUT_ATTRIBUTES, relationship);
+
+            names.addHasIsOfObjectProperties(
+                operation, operation.getParticipatingEntity(1).getRoleOrName());
+            plan.addOperation(operation);
+        }
+
+        for (ERRelationship relationship : binaryRelationshipsWithAttributes) {
+            MappingOperation operation = newRelationshipOperation(
+                MappingOperation.Type.BINARY_RELATIONSHIP_WITH_ATTRIBUTES, relationship);
+
+            String relationshipClassName = names.addBClass(operation,
+                operation.getParticipatingEntity(0).getRoleOrName()
+                    + operation.getParticipatingEntity(1).getRoleOrName());
+
+            for (ERAttribute attribute : relationship.getAttributes()) {
+                names.addDatatypeProperty(operation, attribute.getName());
+            }
+
+            names.addHasIsOfObjectProperties(operation,
+                operation.getParticipatingEntity(1).getRoleOrName() + relationshipClassName);
+            plan.addOperation(operation);
+        }
+
+        for (ERRelationship relationship : ternaryRelationships) {
+            MappingOperation operation = newRelationshipOperation(
+                MappingOperation.Type.TERNARY_RELATIONSHIP, relationship);
+
+            String relationshipClassName = names.addBClass(operation,
+                operation.getParticipatingEntity(0).getRoleOrName()
+                    + operation.getParticipatingEntity(1).getRoleOrName()
+                    + operation.getParticipatingEntity(2).getRoleOrName());
+
+            names.addHasIsOfObjectProperties(operation,
+                operation.getParticipatingEntity(1).getRoleOrName() + relationshipClassName);
+            names.addHasIsOfObjectProperties(operation,
+                operation.getParticipatingEntity(2).getRoleOrName() + relationshipClassName);
+            plan.addOperation(operation);
+        }
+
+        return plan;
+    }
+
+    private MappingOperation newRelationshipOperation(
+        MappingOperation.Type type,
+        ERRelationship relationship
+    ) throws OWLException {
+        MappingOperation operation = new MappingOperation(type, null, relationship);
+
+        for (ERParticipatingEntity participatingEntity : relationship.getParticipatingEntities()) {
+            addParticipatingEntity(operation, participatingEntity);
+        }
+
+        return operation;
+    }
+
+    private void addParticipatingEntity(
+        MappingOperation operation,
+        ERParticipatingEntity participatingEntity
+    ) throws OWLException {
+        EREntity entity = schema.getEntity(participatingEntity);
+
+        if (entity == null) {
+            throw new OWLException("Class "
+                + OWLLiteOntology.getOWLClassName(participatingEntity.getName())
+                + " does not exists.");
+        }
+
+        operation.addParticipatingEntity(participatingEntity, entity);
+    }
+
+    private void mapStrongEntities(MappingPlan plan) throws OWLException {
+        MappingPhase phase = MappingPhase.MAP_STRONG_ENTITIES;
+        PhaseRun run = MappingMetrics.getInstance().start(phase);
+        long size = ontology.size();
+        List<MappingOperation> operations =
+            plan.getOperations(MappingOperation.Type.STRONG_ENTITY);
+
+        for (MappingOperation operation : operations) {
+            ElementRun elementRun = ElementRun.start(phase);
+            long elementSize = elementRun != null ? ontology.size() : 0;
+
+            mapEntity(operation.getEntity());
+
+            endElementRun(elementRun, operation, elementSize);
+        }
+
+        run.end(operations.size(), ontology.size() - size, 0);
+    }
+
+    private void mapWeakEntitiesAndIdentifyingRelationships(MappingPlan plan)
+        throws OWLException {
+        MappingPhase phase = MappingPhase.MAP_WEAK_ENTITIES_AND_IDENTIFYING_RELATIONSHIPS;
+        PhaseRun run = MappingMetrics.getInstance().start(phase);
+        long size = ontology.size();
+        List<MappingOperation> operations =
+            plan.getOperations(MappingOperation.Type.WEAK_ENTITY_AND_IDENTIFYING_RELATIONSHIP);
+
+        for (MappingOperation operation : operations) {
+            ElementRun elementRun = ElementRun.start(phase);
+            long elementSize = elementRun != null ? ontology.size() : 0;
+
+            Resource aClass = ontology.getOWLClass(operation.getParticipatingEntity(0).getName());
+            Resource bClass = mapEntity(operation.getEntity());
 
             ontology.addOWLHasIsOfObjectProperties(
-                bParticipatingEntity.getRoleOrName(),
+                operation.getParticipatingEntity(1).getRoleOrName(),
                 aClass,
                 bClass,
-                (aParticipatingEntity.getMax() == 1),
-                (aParticipatingEntity.getMin() == 1),
+                operation.isFunctional(0),
+                operation.isMinCardinalityOne(0),
                 true,
                 true
             );
+
+            endElementRun(elementRun, operation, elementSize);
         }
+
+        run.end(operations.size(), ontology.size() - size, 0);
     }
 
-    private void mapBinaryRelationshipsWithoutAttributes() throws OWLException {
-        for (ERRelationship relationship : schema.getRelationships()) {
-            if (!relationship.isIdentifying()
-                && relationship.isBinary()
-                && relationship.getAttributes().isEmpty()
-            ) {
-                ERParticipatingEntity aParticipatingEntity =
-                    relationship.getParticipatingEntities().get(0);
-                ERParticipatingEntity bParticipatingEntity =
-                    relationship.getParticipatingEntities().get(1);
-
-                ontology.addOWLHasIsOfObjectProperties(
-                    bParticipatingEntity.getRoleOrName(),
-                    ontology.getOWLClass(aParticipatingEntity.getName()),
-                    ontology.getOWLClass(bParticipatingEntity.getName()),
-                    (aParticipatingEntity.getMax() == 1),
-                    (aParticipatingEntity.getMin() == 1),
-                    (bParticipatingEntity.getMax() == 1),
-                    (bParticipatingEntity.getMin() == 1)
-                );
-            }
+    private void mapBinaryRelationshipsWithoutAttributes(MappingPlan plan) throws OWLException {
+        MappingPhase phase = MappingPhase.MAP_BINARY_RELATIONSHIPS_WITHOUT_ATTRIBUTES;
+        PhaseRun run = MappingMetrics.getInstance().start(phase);
+        long size = ontology.size();
+        List<MappingOperation> operations =
+            plan.getOperations(MappingOperation.Type.BINARY_RELATIONSHIP_WITHOUT_ATTRIBUTES);
+
+        for (MappingOperation operation : operations) {
+            ElementRun elementRun = ElementRun.start(phase);
+            long elementSize = elementRun != null ? ontology.size() : 0;
+
+            ontology.addOWLHasIsOfObjectProperties(
+                operation.getParticipatingEntity(1).getRoleOrName(),
+                ontology.getOWLClass(operation.getParticipatingEntity(0).getName()),
+                ontology.getOWLClass(operation.getParticipatingEntity(1).getName()),
+                operation.isFunctional(0),
+                operation.isMinCardinalityOne(0),
+                operation.isFunctional(1),
+                operation.isMinCardinalityOne(1)
+            );
+
+            endElementRun(elementRun, operation, elementSize);
         }
+
+        run.end(operations.size(), ontology.size() - size, 0);
     }
 
-    private void mapBinaryRelationshipsWithAttributes() throws OWLException {
-        for (ERRelationship relationship : schema.getRelationships()) {
-            if (!relationship.isIdentifying()
-                && relationship.isBinary()
-                && !relationship.getAttributes().isEmpty()
-            ) {
-                ERParticipatingEntity aParticipatingEntity =
-                    relationship.getParticipatingEntities().get(0);
-                ERParticipatingEntity bParticipatingEntity =
-                    relationship.getParticipatingEntities().get(1);
-
-                OntClass aClass = ontology.getOWLClass(aParticipatingEntity.getName());
-                OntClass bClass = ontology.getOWLClass(bParticipatingEntity.getName());
-
-                OntClass relationshipClass = ontology.addOWLBClass(
-                    aClass,
-                    aParticipatingEntity.getRoleOrName() + bParticipatingEntity.getRoleOrName(),
-                    (aParticipatingEntity.getMax() == 1),
-                    (aParticipatingEntity.getMin() == 1),
-                    true,
-                    true
-                );
+    private void mapBinaryRelationshipsWithAttributes(MappingPlan plan) throws OWLException {
+        MappingPhase phase = MappingPhase.MAP_BINARY_RELATIONSHIPS_WITH_ATTRIBUTES;
+        PhaseRun run = MappingMetrics.getInstance().start(phase);
+        long size = ontology.size();
+        List<MappingOperation> operations =
+            plan.getOperations(MappingOperation.Type.BINARY_RELATIONSHIP_WITH_ATTRIBUTES);
 
-                for (ERAttribute attribute : relationship.getAttributes()) {
-                    ontology.addOWLDatatypeProperty(
-                        attribute.getName(),
-                        relationshipClass,
-                        !attribute.isMultivalued(),
-                        false
-                    );
-                }
+        for (MappingOperation operation : operations) {
+            ElementRun elementRun = ElementRun.start(phase);
+            long elementSize = elementRun != null ? ontology.size() : 0;
+
+            ERParticipatingEntity aParticipatingEntity = operation.getParticipatingEntity(0);
+            ERParticipatingEntity bParticipatingEntity = operation.getParticipatingEntity(1);
 
-                ontology.addOWLHasIsOfObjectProperties(
-                    bParticipatingEntity.getRoleOrName() + relationshipClass.getLocalName(),
-                    bClass,
+            Resource aClass = ontology.getOWLClass(aParticipatingEntity.getName());
+            Resource bClass = ontology.getOWLClass(bParticipatingEntity.getName());
+
+            Resource relationshipClass = ontology.addOWLBClass(
+                aClass,
+                aParticipatingEntity.getRoleOrName() + bParticipatingEntity.getRoleOrName(),
+                operation.isFunctional(0),
+                operation.isMinCardinalityOne(0),
+                true,
+                true
+            );
+
+            for (ERAttribute attribute : operation.getRelationship().getAttributes()) {
+                ontology.addOWLDatatypeProperty(
+                    attribute.getName(),
                     relationshipClass,
-                    (bParticipatingEntity.getMax() == 1),
-                    (bParticipatingEntity.getMin() == 1),
-                    true,
-                    true
+                    !attribute.isMultivalued(),
+                    false
                 );
             }
+
+            ontology.addOWLHasIsOfObjectProperties(
+                bParticipatingEntity.getRoleOrName() + relationshipClass.getLocalName(),
+                bClass,
+                relationshipClass,
+                operation.isFunctional(1),
+                operation.isMinCardinalityOne(1),
+                true,
+                true
+            );
+
+            endElementRun(elementRun, operation, elementSize);
         }
+
+        run.end(operations.size(), ontology.size() - size, 0);
     }
 
-    private void mapTernaryRelationships() throws OWLException {
-        for (ERRelationship relationship : schema.getRelationships()) {
-            if (!relationship.isIdentifying() && relationship.isTernary()) {
-                ERParticipatingEntity aParticipatingEntity =
-                    relationship.getParticipatingEntities().get(0);
-                ERParticipatingEntity bParticipatingEntity =
-                    relationship.getParticipatingEntities().get(1);
-                ERParticipatingEntity cParticipatingEntity =
-                    relationship.getParticipatingEntities().get(2);
-
-                OntClass aClass = ontology.getOWLClass(aParticipatingEntity.getName());
-                OntClass bClass = ontology.getOWLClass(bParticipatingEntity.getName());
-                OntClass cClass = ontology.getOWLClass(cParticipatingEntity.getName());
-
-                OntClass relationshipClass = ontology.addOWLBClass(
-                    aClass,
-                    aParticipatingEntity.getRoleOrName() + bParticipatingEntity.getRoleOrName()
-                        + cParticipatingEntity.getRoleOrName(),
-                    (aParticipatingEntity.getMax() == 1),
-                    (aParticipatingEntity.getMin() == 1),
-                    true,
-                    true
-                );
+    private void mapTernaryRelationships(MappingPlan plan) throws OWLException {
+        MappingPhase phase = MappingPhase.MAP_TERNARY_RELATIONSHIPS;
+        PhaseRun run = MappingMetrics.getInstance().start(phase);
+        long size = ontology.size();
+        List<MappingOperation> operations =
+            plan.getOperations(MappingOperation.Type.TERNARY_RELATIONSHIP);
 
-                ontology.addOWLHasIsOfObjectProperties(
-                    bParticipatingEntity.getRoleOrName() + relationshipClass.getLocalName(),
-                    bClass,
-                    relationshipClass,
-                    (bParticipatingEntity.getMax() == 1),
-                    (bParticipatingEntity.getMin() == 1),
-                    true,
-                    true
-                );
+        for (MappingOperation operation : operations) {
+            ElementRun elementRun = ElementRun.start(phase);
+            long elementSize = elementRun != null ? ontology.size() : 0;
 
-                ontology.addOWLHasIsOfObjectProperties(
-                    cParticipatingEntity.getRoleOrName() + relationshipClass.getLocalName(),
-                    cClass,
-                    relationshipClass,
-                    (cParticipatingEntity.getMax() == 1),
-                    (cParticipatingEntity.getMin() == 1),
-                    true,
-                    true
-                );
-            }
+            ERParticipatingEntity aParticipatingEntity = operation.getParticipatingEntity(0);
+            ERParticipatingEntity bParticipatingEntity = operation.getParticipatingEntity(1);
+            ERParticipatingEntity cParticipatingEntity = operation.getParticipatingEntity(2);
+
+            Resource aClass = ontology.getOWLClass(aParticipatingEntity.getName());
+            Resource bClass = ontology.getOWLClass(bParticipatingEntity.getName());
+            Resource cClass = ontology.getOWLClass(cParticipatingEntity.getName());
+
+            Resource relationshipClass = ontology.addOWLBClass(
+                aClass,
+                aParticipatingEntity.getRoleOrName() + bParticipatingEntity.getRoleOrName()
+                    + cParticipatingEntity.getRoleOrName(),
+                operation.isFunctional(0),
+                operation.isMinCardinalityOne(0),
+                true,
+                true
+            );
+
+            ontology.addOWLHasIsOfObjectProperties(
+                bParticipatingEntity.getRoleOrName() + relationshipClass.getLocalName(),
+                bClass,
+                relationshipClass,
+                operation.isFunctional(1),
+                operation.isMinCardinalityOne(1),
+                true,
+                true
+            );
+
+            ontology.addOWLHasIsOfObjectProperties(
+                cParticipatingEntity.getRoleOrName() + relationshipClass.getLocalName(),
+                cClass,
+                relationshipClass,
+                operation.isFunctional(2),
+                operation.isMinCardinalityOne(2),
+                true,
+                true
+            );
+
+            endElementRun(elementRun, operation, elementSize);
         }
+
+        run.end(operations.size(), ontology.size() - size, 0);
+    }
+
+    private void endElementRun(ElementRun elementRun, MappingOperation operation, long size) {
+        if (elementRun == null) {
+            return;
+        }
+
+        ERElementWithAttributes element = operation.getEntity() != null
+            ? operation.getEntity() : operation.getRelationship();
+
+        elementRun.end(operation.getEntity() != null ? "entity" : "relationship",
+            element.getName(), element.getAttributes().size(), ontology.size() - size);
     }
 
-    private OntClass mapEntity(EREntity entity) throws OWLException {
+    private Resource mapEntity(EREntity entity) throws OWLException {
         // Map the entity
-        OntClass entityClass = ontology.addOWLClass(entity.getName());
+        Resource entityClass = ontology.addOWLClass(entity.getName());
         List<ERAttribute> keyAttributes = entity.getKeyAttributes();
 
         if (keyAttributes.size() == 1) {
@@ -203,7 +517,7 @@ public class EROWLMapper {
 
             if (keyAttribute.isComposite()) {
                 // Map the single composite key attribute
-                OntClass keyClass = ontology.addOWLKeyClass(entityClass);
+                Resource keyClass = ontology.addOWLKeyClass(entityClass);
 
                 for (ERAttribute attribute : keyAttribute.getAttributes()) {
                     ontology.addOWLDatatypeProperty(
@@ -224,7 +538,7 @@ public class EROWLMapper {
             }
         } else if (keyAttributes.size() > 1) {
             // Map multiple simple key attributes
-            OntClass keyClass = ontology.addOWLKeyClass(entityClass);
+            Resource keyClass = ontology.addOWLKeyClass(entityClass);
 
             for (ERAttribute attribute : keyAttributes) {
                 ontology.addOWLDatatypeProperty(
@@ -239,7 +553,7 @@ public class EROWLMapper {
         for (ERAttribute nonKeyAttribute : entity.getNonKeyAttributes()) {
             if (nonKeyAttribute.isComposite()) {
                 // Map composite attributes
-                OntClass compositeAttributeClass = ontology.addOWLBClass(
+                Resource compositeAttributeClass = ontology.addOWLBClass(
                     entityClass,
                     nonKeyAttribute.getName(),
                     !nonKeyAttribute.isMultivalued(),
@@ -269,4 +583,99 @@ public class EROWLMapper {
 
         return entityClass;
     }
+
+    /**
+     * Records the OWL names a plan creates, in the order mapping creates them, and reports
+     * the first collision with the same message OWLLiteOntology would use
+     */
+    private static class PlanNames {
+
+        private final Set<String> classNames = new HashSet<String>();
+
+        private final Set<String> objectPropertyNames = new HashSet<String>();
+
+        private final Set<String> datatypePropertyNames = new HashSet<String>();
+
+        void addEntity(MappingOperation operation, EREntity entity) throws OWLException {
+            String entityClassName = addClass(operation, entity.getName());
+            List<ERAttribute> keyAttributes = entity.getKeyAttributes();
+
+            if (keyAttributes.size() == 1 && keyAttributes.get(0).isComposite()) {
+                addKeyClass(operation, entityClassName);
+
+                for (ERAttribute attribute : keyAttributes.get(0).getAttributes()) {
+                    addDatatypeProperty(operation, attribute.getName());
+                }
+            } else if (keyAttributes.size() == 1) {
+                addDatatypeProperty(operation, keyAttributes.get(0).getName());
+            } else if (keyAttributes.size() > 1) {
+                addKeyClass(operation, entityClassName);
+
+                for (ERAttribute attribute : keyAttributes) {
+                    addDatatypeProperty(operation, attribute.getName());
+                }
+            }
+
+            for (ERAttribute nonKeyAttribute : entity.getNonKeyAttributes()) {
+                if (nonKeyAttribute.isComposite()) {
+                    addBClass(operation, nonKeyAttribute.getName());
+
+                    for (ERAttribute attribute : nonKeyAttribute.getAttributes()) {
+                        addDatatypeProperty(operation, attribute.getName());
+                    }
+                } else {
+                    addDatatypeProperty(operation, nonKeyAttribute.getName());
+                }
+            }
+        }
+
+        String addKeyClass(MappingOperation operation, String className) throws OWLException {
+            return addBClass(operation, OWLLiteOntology.getOWLKeyClassName(className));
+        }
+
+        String addBClass(MappingOperation operation, String name) throws OWLException {
+            String className = addClass(operation, name);
+            addHasIsOfObjectProperties(operation, className);
+
+            return className;
+        }
+
+        String addClass(MappingOperation operation, String name) throws OWLException {
+            String className = OWLLiteOntology.getOWLClassName(name);
+
+            if (!classNames.add(className)) {
+                throw new OWLException("Class " + className + " already exists.");
+            }
+
+            operation.addClassName(className);
+
+            return className;
+        }
+
+        void addHasIsOfObjectProperties(MappingOperation operation, String basename)
+            throws OWLException {
+            addObjectProperty(operation,
+                OWLLiteOntology.getOWLObjectPropertyName("has", basename, ""));
+            addObjectProperty(operation,
+                OWLLiteOntology.getOWLObjectPropertyName("is", basename, "Of"));
+        }
+
+        void addObjectProperty(MappingOperation operation, String name) throws OWLException {
+            if (!objectPropertyNames.add(name)) {
+                throw new OWLException("Object property " + name + " already exists.");
+            }
+
+            operation.addObjectPropertyName(name);
+        }
+
+        void addDatatypeProperty(MappingOperation operation, String basename) throws OWLException {
+            String name = OWLLiteOntology.getOWLDatatypePropertyName(basename);
+
+            if (!datatypePropertyNames.add(name)) {
+                throw new OWLException("Datatype property " + name + " already exists.");
+            }
+
+            operation.addDatatypePropertyName(name);
+        }
+    }
 }
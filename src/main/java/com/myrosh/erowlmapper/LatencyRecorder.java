@@ -0,0 +1,78 @@
+package com.myrosh.erowlmapper;
+
+import java.util.Arrays;
+
+/**
+ * @author igorm
+ *
+ * Keeps the most recent latency samples in a ring buffer and reports percentiles over them
+ *
+ */
+public class LatencyRecorder {
+
+    /**
+     * Recent samples in nanoseconds
+     */
+    private final long[] samples;
+
+    /**
+     * Number of samples recorded since creation
+     */
+    private long count = 0;
+
+    /**
+     * @param capacity number of most recent samples percentiles are computed over
+     */
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * @param nanos
+     */
+    public synchronized void record(long nanos) {
+        samples[(int) (count % samples.length)] = nanos;
+        count++;
+    }
+
+    /**
+     * @return
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return latency in nanoseconds, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long[] sorted;
+
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount()
+            + " p50=" + toMillis(getPercentile(50))
+            + "ms p90=" + toMillis(getPercentile(90))
+            + "ms p99=" + toMillis(getPercentile(99))
+            + "ms max=" + toMillis(getPercentile(100)) + "ms";
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+}
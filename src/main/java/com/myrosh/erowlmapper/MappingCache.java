@@ -0,0 +1,288 @@
+package com.myrosh.erowlmapper;
+
+import com.myrosh.erowlmapper.er.ERAttribute;
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERParticipatingEntity;
+import com.myrosh.erowlmapper.er.ERRelationship;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author igorm
+ *
+ * A persistent cache of serialized ontologies, keyed by a hash of the schema contents, the
+ * mapper version and the output format. Entries are written to a temporary file and moved
+ * into place atomically, so several processes can share one directory. The least recently
+ * used entries are evicted once the directory grows beyond its size limit.
+ *
+ */
+public class MappingCache {
+
+    /**
+     * Default size limit in bytes
+     */
+    public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * Extension of cache entries
+     */
+    private static final String EXTENSION = ".cache";
+
+    /**
+     * Cache directory
+     */
+    private final Path directory;
+
+    /**
+     * Size limit in bytes
+     */
+    private final long maxSize;
+
+    /**
+     * Hit count
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * Miss count
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Eviction count
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param directory
+     * @param maxSize
+     * @throws IOException
+     */
+    public MappingCache(Path directory, long maxSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param key
+     * @return the cached ontology, or null on a miss
+     */
+    public byte[] get(String key) {
+        Path path = directory.resolve(key + EXTENSION);
+
+        byte[] content;
+
+        try {
+            content = Files.readAllBytes(path);
+        } catch (IOException e) {
+            // Missing, or evicted by another process while being read
+            missCount.incrementAndGet();
+
+            return null;
+        }
+
+        try {
+            // The modification time orders entries for eviction
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Evicted by another process since being read, or read-only, which only
+            // makes the entry older for eviction
+        }
+
+        hitCount.incrementAndGet();
+
+        return content;
+    }
+
+    /**
+     * @param key
+     * @param content
+     * @throws IOException
+     */
+    public void put(String key, byte[] content) throws IOException {
+        Path temporaryPath = Files.createTempFile(directory, key, ".tmp");
+
+        try {
+            Files.write(temporaryPath, content);
+            Files.move(temporaryPath, directory.resolve(key + EXTENSION),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+
+        evict();
+    }
+
+    /**
+     * @return
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Cache " + directory + ": " + getHitCount() + " hits, " + getMissCount()
+            + " misses, " + getEvictionCount() + " evictions.";
+    }
+
+    /**
+     * Builds the cache key of a validated schema. Entities, relationships and attributes are
+     * hashed in sorted order, so reordering them does not change the key. The order of the
+     * participating entities of a relationship does change the ontology and is kept. Names
+     * are hashed in their cleaned form, which the OWL names are derived from.
+     *
+     * @param schema
+     * @param format
+     * @return
+     */
+    public static String getKey(ERSchema schema, OWLFormat format) {
+        List<String> elements = new ArrayList<String>();
+
+        for (EREntity entity : schema.getEntities()) {
+            elements.add("E" + getCleanName(entity.getName()) + (entity.isWeak() ? "+w" : "")
+                + getAttributes(entity.getAttributes()));
+        }
+
+        for (ERRelationship relationship : schema.getRelationships()) {
+            StringBuilder element = new StringBuilder("R")
+                .append(getCleanName(relationship.getName()))
+                .append(relationship.isIdentifying() ? "+i" : "");
+
+            for (ERParticipatingEntity participatingEntity
+                : relationship.getParticipatingEntities()
+            ) {
+                element.append('|').append(getCleanName(participatingEntity.getName()))
+                    .append(':').append(getCleanName(participatingEntity.getRole()))
+                    .append(':').append(participatingEntity.getMin())
+                    .append(':').append(participatingEntity.getMax());
+            }
+
+            elements.add(element.append(getAttributes(relationship.getAttributes())).toString());
+        }
+
+        Collections.sort(elements);
+
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        digest.update((EROWLMapper.VERSION + "\n" + format.getName() + "\n")
+            .getBytes(StandardCharsets.UTF_8));
+
+        for (String element : elements) {
+            digest.update(element.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+
+        StringBuilder key = new StringBuilder();
+
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+
+        return key.toString();
+    }
+
+    private static String getAttributes(List<ERAttribute> attributes) {
+        List<String> sortedAttributes = new ArrayList<String>();
+
+        for (ERAttribute attribute : attributes) {
+            sortedAttributes.add(getCleanName(attribute.getName())
+                + (attribute.isKey() ? "+k" : "")
+                + (attribute.isComposite() ? "+c" : "")
+                + (attribute.isMultivalued() ? "+m" : "")
+                + getAttributes(attribute.getAttributes()));
+        }
+
+        Collections.sort(sortedAttributes);
+
+        return sortedAttributes.toString();
+    }
+
+    private static String getCleanName(String name) {
+        return name == null ? "" : CanonicalName.of(name).getCleanName();
+    }
+
+    private void evict() throws IOException {
+        List<Path> paths = new ArrayList<Path>();
+        final List<Long> lastModifiedTimes = new ArrayList<Long>();
+        final List<Long> sizes = new ArrayList<Long>();
+        long size = 0;
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path path : entries) {
+                try {
+                    lastModifiedTimes.add(Files.getLastModifiedTime(path).toMillis());
+                    sizes.add(Files.size(path));
+                    paths.add(path);
+                    size += sizes.get(sizes.size() - 1);
+                } catch (NoSuchFileException e) {
+                    // Evicted by another process
+                }
+            }
+        }
+
+        if (size <= maxSize) {
+            return;
+        }
+
+        List<Integer> indexes = new ArrayList<Integer>();
+
+        for (int i = 0; i < paths.size(); i++) {
+            indexes.add(i);
+        }
+
+        Collections.sort(indexes, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Long.compare(lastModifiedTimes.get(a), lastModifiedTimes.get(b));
+            }
+        });
+
+        for (int index : indexes) {
+            if (size <= maxSize) {
+                break;
+            }
+
+            if (Files.deleteIfExists(paths.get(index))) {
+                evictionCount.incrementAndGet();
+            }
+
+            size -= sizes.get(index);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.myrosh.erowlmapper;
+
+import com.myrosh.erowlmapper.er.ERAttribute;
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERParticipatingEntity;
+import com.myrosh.erowlmapper.er.ERRelationship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author igorm
+ *
+ * The difference between the mapping plans of two versions of a schema. Operations are
+ * matched by type and by the first OWL name they create. A matched pair whose ER element
+ * differs in any attribute, participating entity or cardinality is a change.
+ *
+ */
+public class MappingDiff {
+
+    /**
+     * New plan
+     */
+    private final MappingPlan newPlan;
+
+    /**
+     * Operations of the old plan without a counterpart in the new plan
+     */
+    private final List<MappingOperation> removedOperations = new ArrayList<MappingOperation>();
+
+    /**
+     * Operations of the new plan without a counterpart in the old plan
+     */
+    private final List<MappingOperation> addedOperations = new ArrayList<MappingOperation>();
+
+    /**
+     * Old versions of changed operations
+     */
+    private final List<MappingOperation> changedOldOperations = new ArrayList<MappingOperation>();
+
+    /**
+     * New versions of changed operations
+     */
+    private final List<MappingOperation> changedNewOperations = new ArrayList<MappingOperation>();
+
+    /**
+     * @param oldPlan
+     * @param newPlan
+     */
+    public MappingDiff(MappingPlan oldPlan, MappingPlan newPlan) {
+        this.newPlan = newPlan;
+        Map<String, MappingOperation> oldOperations = new HashMap<String, MappingOperation>();
+
+        for (MappingOperation operation : oldPlan.getOperations()) {
+            oldOperations.put(getKey(operation), operation);
+        }
+
+        for (MappingOperation operation : newPlan.getOperations()) {
+            MappingOperation oldOperation = oldOperations.remove(getKey(operation));
+
+            if (oldOperation == null) {
+                addedOperations.add(operation);
+            } else if (!getFingerprint(oldOperation).equals(getFingerprint(operation))) {
+                changedOldOperations.add(oldOperation);
+                changedNewOperations.add(operation);
+            }
+        }
+
+        for (MappingOperation operation : oldPlan.getOperations()) {
+            if (oldOperations.containsKey(getKey(operation))) {
+                removedOperations.add(operation);
+            }
+        }
+    }
+
+    /**
+     * @return
+     */
+    public List<MappingOperation> getRemovedOperations() {
+        return Collections.unmodifiableList(removedOperations);
+    }
+
+    /**
+     * @return
+     */
+    public List<MappingOperation> getAddedOperations() {
+        return Collections.unmodifiableList(addedOperations);
+    }
+
+    /**
+     * @return new versions of the changed operations
+     */
+    public List<MappingOperation> getChangedOperations() {
+        return Collections.unmodifiableList(changedNewOperations);
+    }
+
+    /**
+     * @return operations whose OWL output has to be retracted, in old plan order
+     */
+    public List<MappingOperation> getRetractedOperations() {
+        List<MappingOperation> operations = new ArrayList<MappingOperation>(removedOperations);
+        operations.addAll(changedOldOperations);
+
+        return operations;
+    }
+
+    /**
+     * @return operations whose OWL output has to be emitted, as a plan in execution order
+     */
+    public MappingPlan getEmittedPlan() {
+        Set<MappingOperation> operations =
+            Collections.newSetFromMap(new IdentityHashMap<MappingOperation, Boolean>());
+        operations.addAll(addedOperations);
+        operations.addAll(changedNewOperations);
+
+        // Weak entities may be owned by other weak entities, so the new plan order is kept
+        MappingPlan plan = new MappingPlan();
+
+        for (MappingOperation operation : newPlan.getOperations()) {
+            if (operations.contains(operation)) {
+                plan.addOperation(operation);
+            }
+        }
+
+        return plan;
+    }
+
+    /**
+     * @return
+     */
+    public List<EREntity> getAddedEntities() {
+        return getEntities(addedOperations);
+    }
+
+    /**
+     * @return
+     */
+    public List<EREntity> getRemovedEntities() {
+        return getEntities(removedOperations);
+    }
+
+    /**
+     * @return new versions of entities whose attributes or identifying relationship changed
+     */
+    public List<EREntity> getChangedEntities() {
+        return getEntities(changedNewOperations);
+    }
+
+    /**
+     * @return added non-identifying relationships
+     */
+    public List<ERRelationship> getAddedRelationships() {
+        return getRelationships(addedOperations);
+    }
+
+    /**
+     * @return removed non-identifying relationships
+     */
+    public List<ERRelationship> getRemovedRelationships() {
+        return getRelationships(removedOperations);
+    }
+
+    /**
+     * @return new versions of non-identifying relationships whose attributes or participating
+     * entities changed
+     */
+    public List<ERRelationship> getChangedRelationships() {
+        return getRelationships(changedNewOperations);
+    }
+
+    /**
+     * @return true if both plans produce the same ontology
+     */
+    public boolean isEmpty() {
+        return removedOperations.isEmpty() && addedOperations.isEmpty()
+            && changedNewOperations.isEmpty();
+    }
+
+    private static List<EREntity> getEntities(List<MappingOperation> operations) {
+        List<EREntity> entities = new ArrayList<EREntity>();
+
+        for (MappingOperation operation : operations) {
+            if (operation.getEntity() != null) {
+                entities.add(operation.getEntity());
+            }
+        }
+
+        return entities;
+    }
+
+    private static List<ERRelationship> getRelationships(List<MappingOperation> operations) {
+        List<ERRelationship> relationships = new ArrayList<ERRelationship>();
+
+        for (MappingOperation operation : operations) {
+            if (operation.getEntity() == null) {
+                relationships.add(operation.getRelationship());
+            }
+        }
+
+        return relationships;
+    }
+
+    private static String getKey(MappingOperation operation) {
+        return operation.getType() + ":" + (operation.getClassNames().isEmpty()
+            ? operation.getObjectPropertyNames().get(0)
+            : operation.getClassNames().get(0));
+    }
+
+    /**
+     * @param operation
+     * @return a string that is equal for two operations exactly when they produce the same
+     * OWL statements
+     */
+    private static String getFingerprint(MappingOperation operation) {
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(operation.getType()).append('|')
+            .append(operation.getClassNames()).append('|')
+            .append(operation.getObjectPropertyNames()).append('|')
+            .append(operation.getDatatypePropertyNames());
+
+        for (ERParticipatingEntity participatingEntity : operation.getParticipatingEntities()) {
+            fingerprint.append('|').append(participatingEntity.getName())
+                .append(':').append(participatingEntity.getRoleOrName())
+                .append(':').append(participatingEntity.getMin())
+                .append(':').append(participatingEntity.getMax());
+        }
+
+        if (operation.getEntity() != null) {
+            appendAttributes(fingerprint, operation.getEntity().getAttributes());
+        } else {
+            appendAttributes(fingerprint, operation.getRelationship().getAttributes());
+        }
+
+        return fingerprint.toString();
+    }
+
+    private static void appendAttributes(StringBuilder fingerprint, List<ERAttribute> attributes) {
+        fingerprint.append('[');
+
+        for (ERAttribute attribute : attributes) {
+            fingerprint.append(attribute.getName())
+                .append(attribute.isKey() ? "+k" : "")
+                .append(attribute.isComposite() ? "+c" : "")
+                .append(attribute.isMultivalued() ? "+m" : "");
+            appendAttributes(fingerprint, attribute.getAttributes());
+            fingerprint.append(',');
+        }
+
+        fingerprint.append(']');
+    }
+}
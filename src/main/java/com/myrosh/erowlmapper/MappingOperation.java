@@ -0,0 +1,199 @@
+package com.myrosh.erowlmapper;
+
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERParticipatingEntity;
+import com.myrosh.erowlmapper.er.ERRelationship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author igorm
+ *
+ * A single step of a MappingPlan: one ER element together with its resolved participating
+ * entities and the OWL names mapping it creates
+ *
+ */
+public class MappingOperation {
+
+    /**
+     * Operation types in execution order
+     */
+    public enum Type {
+        STRONG_ENTITY,
+        WEAK_ENTITY_AND_IDENTIFYING_RELATIONSHIP,
+        BINARY_RELATIONSHIP_WITHOUT_ATTRIBUTES,
+        BINARY_RELATIONSHIP_WITH_ATTRIBUTES,
+        TERNARY_RELATIONSHIP
+    }
+
+    /**
+     * Type
+     */
+    private final Type type;
+
+    /**
+     * Mapped entity, null for relationship operations
+     */
+    private final EREntity entity;
+
+    /**
+     * Mapped relationship, null for strong entity operations
+     */
+    private final ERRelationship relationship;
+
+    /**
+     * Participating entities in mapping order
+     */
+    private final List<ERParticipatingEntity> participatingEntities =
+        new ArrayList<ERParticipatingEntity>();
+
+    /**
+     * Entities the participating entities refer to
+     */
+    private final List<EREntity> entities = new ArrayList<EREntity>();
+
+    /**
+     * Names of the classes the operation creates
+     */
+    private final List<String> classNames = new ArrayList<String>();
+
+    /**
+     * Names of the object properties the operation creates
+     */
+    private final List<String> objectPropertyNames = new ArrayList<String>();
+
+    /**
+     * Names of the datatype properties the operation creates
+     */
+    private final List<String> datatypePropertyNames = new ArrayList<String>();
+
+    /**
+     * @param type
+     * @param entity
+     * @param relationship
+     */
+    MappingOperation(Type type, EREntity entity, ERRelationship relationship) {
+        this.type = type;
+        this.entity = entity;
+        this.relationship = relationship;
+    }
+
+    /**
+     * @return
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return
+     */
+    public EREntity getEntity() {
+        return entity;
+    }
+
+    /**
+     * @return
+     */
+    public ERRelationship getRelationship() {
+        return relationship;
+    }
+
+    /**
+     * @return
+     */
+    public List<ERParticipatingEntity> getParticipatingEntities() {
+        return Collections.unmodifiableList(participatingEntities);
+    }
+
+    /**
+     * @param index
+     * @return
+     */
+    public ERParticipatingEntity getParticipatingEntity(int index) {
+        return participatingEntities.get(index);
+    }
+
+    /**
+     * @param index
+     * @return entity the participating entity at the index refers to
+     */
+    public EREntity getEntity(int index) {
+        return entities.get(index);
+    }
+
+    /**
+     * @param index
+     * @return
+     */
+    public boolean isFunctional(int index) {
+        return participatingEntities.get(index).getMax() == 1;
+    }
+
+    /**
+     * @param index
+     * @return
+     */
+    public boolean isMinCardinalityOne(int index) {
+        return participatingEntities.get(index).getMin() == 1;
+    }
+
+    /**
+     * @return
+     */
+    public List<String> getClassNames() {
+        return Collections.unmodifiableList(classNames);
+    }
+
+    /**
+     * @return
+     */
+    public List<String> getObjectPropertyNames() {
+        return Collections.unmodifiableList(objectPropertyNames);
+    }
+
+    /**
+     * @return
+     */
+    public List<String> getDatatypePropertyNames() {
+        return Collections.unmodifiableList(datatypePropertyNames);
+    }
+
+    /**
+     * @param participatingEntity
+     * @param entity
+     */
+    void addParticipatingEntity(ERParticipatingEntity participatingEntity, EREntity entity) {
+        participatingEntities.add(participatingEntity);
+        entities.add(entity);
+    }
+
+    /**
+     * @param name
+     */
+    void addClassName(String name) {
+        classNames.add(name);
+    }
+
+    /**
+     * @param name
+     */
+    void addObjectPropertyName(String name) {
+        objectPropertyNames.add(name);
+    }
+
+    /**
+     * @param name
+     */
+    void addDatatypePropertyName(String name) {
+        datatypePropertyNames.add(name);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" + type + ", "
+            + (relationship != null ? relationship : entity) + "}";
+    }
+}
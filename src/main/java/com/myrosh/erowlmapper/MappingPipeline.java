@@ -0,0 +1,622 @@
+package com.myrosh.erowlmapper;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.compact.ERSchemaSnapshot;
+import com.myrosh.erowlmapper.er.parser.YAMLERParser;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+
+/**
+ * @author igorm
+ *
+ * Maps a continuous stream of schemas in four stages, parse, validate, map and write, each
+ * run by its own workers and fed by a bounded queue. While one schema is being written the
+ * next one can be mapped and the one after it parsed. A stage that falls behind fills its
+ * queue, which blocks the stage before it and eventually submit(), so memory stays bounded
+ * however fast schemas arrive.
+ *
+ * Every submitted schema gets a future that completes with its ontology once written, or
+ * exceptionally with the error of the stage it failed in. A failure does not affect the
+ * other schemas.
+ *
+ */
+public class MappingPipeline implements AutoCloseable {
+
+    /**
+     * Pipeline stages in processing order
+     */
+    public enum Stage {
+        PARSE("parse"),
+        VALIDATE("validate"),
+        MAP("map"),
+        WRITE("write");
+
+        /**
+         * Name
+         */
+        private final String name;
+
+        /**
+         * @param name
+         */
+        Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Queue depth, counters and throughput of one stage, to size its concurrency and queue
+     */
+    public static class StageMetrics {
+
+        /**
+         * Stage
+         */
+        private final Stage stage;
+
+        /**
+         * Input queue
+         */
+        private final BlockingQueue<Job> queue;
+
+        /**
+         * Worker count
+         */
+        private final int concurrency;
+
+        /**
+         * Workers that have not exited yet
+         */
+        private final AtomicInteger runningWorkerCount;
+
+        /**
+         * Schemas passed on to the next stage or completed
+         */
+        private final AtomicLong completedCount = new AtomicLong();
+
+        /**
+         * Schemas failed in the stage
+         */
+        private final AtomicLong failedCount = new AtomicLong();
+
+        /**
+         * Time spent processing, in nanoseconds
+         */
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        /**
+         * Time spent waiting for room in the queue of the next stage, in nanoseconds
+         */
+        private final AtomicLong blockedNanos = new AtomicLong();
+
+        /**
+         * Start of the pipeline
+         */
+        private volatile long startNanos;
+
+        /**
+         * @param stage
+         * @param queueCapacity
+         * @param concurrency
+         */
+        StageMetrics(Stage stage, int queueCapacity, int concurrency) {
+            this.stage = stage;
+            this.queue = new ArrayBlockingQueue<Job>(queueCapacity);
+            this.concurrency = concurrency;
+            this.runningWorkerCount = new AtomicInteger(concurrency);
+        }
+
+        /**
+         * @return
+         */
+        public Stage getStage() {
+            return stage;
+        }
+
+        /**
+         * @return
+         */
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        /**
+         * @return number of schemas waiting for the stage
+         */
+        public int getQueueDepth() {
+            return queue.size();
+        }
+
+        /**
+         * @return
+         */
+        public int getQueueCapacity() {
+            return queue.size() + queue.remainingCapacity();
+        }
+
+        /**
+         * @return
+         */
+        public long getCompletedCount() {
+            return completedCount.get();
+        }
+
+        /**
+         * @return
+         */
+        public long getFailedCount() {
+            return failedCount.get();
+        }
+
+        /**
+         * @return
+         */
+        public double getBusyMillis() {
+            return busyNanos.get() / 1e6;
+        }
+
+        /**
+         * A stage that is blocked a lot feeds a slower one.
+         *
+         * @return
+         */
+        public double getBlockedMillis() {
+            return blockedNanos.get() / 1e6;
+        }
+
+        /**
+         * @return completed schemas per second since the pipeline was started
+         */
+        public double getThroughput() {
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            return elapsedNanos > 0 ? completedCount.get() * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * @return share of the worker time spent processing, close to 1 for a bottleneck
+         */
+        public double getUtilization() {
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            return elapsedNanos > 0 ? (double) busyNanos.get() / elapsedNanos / concurrency : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s concurrency=%d queue=%d/%d completed=%d failed=%d"
+                + " throughput=%.1f/s utilization=%.0f%% busy=%.3fms blocked=%.3fms",
+                stage.getName(), concurrency, getQueueDepth(), getQueueCapacity(),
+                getCompletedCount(), getFailedCount(), getThroughput(),
+                getUtilization() * 100, getBusyMillis(), getBlockedMillis());
+        }
+    }
+
+    /**
+     * A schema on its way through the pipeline
+     */
+    private static class Job {
+
+        private final Reader reader;
+
+        private final Path input;
+
+        private final OutputStream outputStream;
+
+        private final Path output;
+
+        private final CompletableFuture<OWLLiteOntology> result =
+            new CompletableFuture<OWLLiteOntology>();
+
+        private ERSchema schema;
+
+        private OWLLiteOntology ontology;
+
+        Job(Reader reader, Path input, OutputStream outputStream, Path output) {
+            this.reader = reader;
+            this.input = input;
+            this.outputStream = outputStream;
+            this.output = output;
+        }
+    }
+
+    /**
+     * Default capacity of every stage queue
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /**
+     * Tells a worker to exit once everything before it in its queue is processed
+     */
+    private static final Job END = new Job(null, null, null, null);
+
+    /**
+     * Output format
+     */
+    private final OWLFormat format;
+
+    /**
+     * Worker count per stage
+     */
+    private final Map<Stage, Integer> concurrency = new EnumMap<Stage, Integer>(Stage.class);
+
+    /**
+     * Capacity of every stage queue
+     */
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * Metrics and queue per stage, null until started
+     */
+    private Map<Stage, StageMetrics> stages;
+
+    /**
+     * Workers of all stages
+     */
+    private final List<Thread> workers = new ArrayList<Thread>();
+
+    /**
+     * Held by submitters, and exclusively by shutdown so that nothing is queued after END
+     */
+    private final ReadWriteLock submitLock = new ReentrantReadWriteLock();
+
+    /**
+     * Whether shutdown() has been called
+     */
+    private boolean shutdown = false;
+
+    /**
+     * @param format
+     */
+    public MappingPipeline(OWLFormat format) {
+        this.format = format;
+
+        for (Stage stage : Stage.values()) {
+            concurrency.put(stage, 1);
+        }
+
+        concurrency.put(Stage.MAP, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stage
+     * @return
+     */
+    public int getConcurrency(Stage stage) {
+        return concurrency.get(stage);
+    }
+
+    /**
+     * @param stage
+     * @param threadCount
+     */
+    public void setConcurrency(Stage stage, int threadCount) {
+        concurrency.put(stage, Math.max(1, threadCount));
+    }
+
+    /**
+     * @return
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @param queueCapacity
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * Starts the workers of every stage. Concurrency and queue capacity cannot be changed
+     * afterwards.
+     *
+     * @throws IllegalStateException if the pipeline has been started before
+     */
+    public synchronized void start() {
+        if (stages != null) {
+            throw new IllegalStateException("Pipeline has already been started.");
+        }
+
+        Map<Stage, StageMetrics> stages = new EnumMap<Stage, StageMetrics>(Stage.class);
+        long startNanos = System.nanoTime();
+
+        for (Stage stage : Stage.values()) {
+            StageMetrics metrics = new StageMetrics(stage, queueCapacity, concurrency.get(stage));
+            metrics.startNanos = startNanos;
+            stages.put(stage, metrics);
+        }
+
+        this.stages = stages;
+
+        for (final Stage stage : Stage.values()) {
+            for (int i = 1; i <= concurrency.get(stage); i++) {
+                Thread worker = new Thread(new Runnable() {
+                    public void run() {
+                        work(stage);
+                    }
+                }, "erowlmapper-" + stage.getName() + "-" + i);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+    }
+
+    /**
+     * Queues a schema for mapping, blocking while the parse queue is full. The reader is
+     * closed once parsed, the output stream is flushed but not closed.
+     *
+     * @param reader YAML schema
+     * @param output
+     * @return
+     * @throws InterruptedException
+     * @throws IllegalStateException if the pipeline is not running
+     */
+    public CompletableFuture<OWLLiteOntology> submit(Reader reader, OutputStream output)
+        throws InterruptedException {
+        return submit(new Job(reader, null, output, null));
+    }
+
+    /**
+     * Queues a schema file or snapshot for mapping to the output file, blocking while the
+     * parse queue is full.
+     *
+     * @param input
+     * @param output
+     * @return
+     * @throws InterruptedException
+     * @throws IllegalStateException if the pipeline is not running
+     */
+    public CompletableFuture<OWLLiteOntology> submit(Path input, Path output)
+        throws InterruptedException {
+        return submit(new Job(null, input, null, output));
+    }
+
+    /**
+     * Stops accepting schemas. Schemas submitted before are still mapped, after which the
+     * workers exit.
+     */
+    public void shutdown() {
+        submitLock.writeLock().lock();
+
+        try {
+            if (shutdown || stages == null) {
+                shutdown = true;
+                return;
+            }
+
+            shutdown = true;
+            end(Stage.PARSE);
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param timeout
+     * @param unit
+     * @return true if every worker has exited
+     * @throws InterruptedException
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (Thread worker : workers) {
+            long remaining = deadline - System.nanoTime();
+
+            if (remaining <= 0) {
+                return false;
+            }
+
+            TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+
+            if (worker.isAlive()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Shuts the pipeline down and waits until every submitted schema is done. If the calling
+     * thread is interrupted while waiting, it returns early with the interrupt status set.
+     */
+    @Override
+    public void close() {
+        shutdown();
+
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param stage
+     * @return
+     * @throws IllegalStateException if the pipeline has not been started
+     */
+    public StageMetrics getStageMetrics(Stage stage) {
+        if (stages == null) {
+            throw new IllegalStateException("Pipeline has not been started.");
+        }
+
+        return stages.get(stage);
+    }
+
+    @Override
+    public String toString() {
+        if (stages == null) {
+            return "";
+        }
+
+        StringBuilder summary = new StringBuilder();
+
+        for (StageMetrics metrics : stages.values()) {
+            summary.append(metrics).append('\n');
+        }
+
+        return summary.toString();
+    }
+
+    private CompletableFuture<OWLLiteOntology> submit(Job job) throws InterruptedException {
+        submitLock.readLock().lock();
+
+        try {
+            if (stages == null || shutdown) {
+                throw new IllegalStateException("Pipeline is not running.");
+            }
+
+            stages.get(Stage.PARSE).queue.put(job);
+        } finally {
+            submitLock.readLock().unlock();
+        }
+
+        return job.result;
+    }
+
+    private void work(Stage stage) {
+        StageMetrics metrics = stages.get(stage);
+        Stage nextStage = stage.ordinal() + 1 < Stage.values().length
+            ? Stage.values()[stage.ordinal() + 1] : null;
+        Job job = null;
+
+        try {
+            while (true) {
+                job = metrics.queue.take();
+
+                if (job == END) {
+                    job = null;
+                    return;
+                }
+
+                long start = System.nanoTime();
+
+                try {
+                    process(stage, job);
+                } catch (Throwable e) {
+                    // Errors such as a StackOverflowError fail the schema, not the worker
+                    metrics.failedCount.incrementAndGet();
+                    job.result.completeExceptionally(e);
+                    job = null;
+                    continue;
+                } finally {
+                    metrics.busyNanos.addAndGet(System.nanoTime() - start);
+                }
+
+                metrics.completedCount.incrementAndGet();
+
+                if (nextStage == null) {
+                    job.result.complete(job.ontology);
+                    job = null;
+                    continue;
+                }
+
+                start = System.nanoTime();
+                stages.get(nextStage).queue.put(job);
+                job = null;
+                metrics.blockedNanos.addAndGet(System.nanoTime() - start);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            if (job != null) {
+                job.result.completeExceptionally(e);
+            }
+        } finally {
+            // The last worker out, however it exits, lets the next stage drain and end in turn
+            if (metrics.runningWorkerCount.decrementAndGet() == 0 && nextStage != null) {
+                end(nextStage);
+            }
+        }
+    }
+
+    private void end(Stage stage) {
+        StageMetrics metrics = stages.get(stage);
+        boolean interrupted = false;
+
+        // Every worker has to see an END, or it would never exit
+        for (int i = 0; i < metrics.getConcurrency(); i++) {
+            while (true) {
+                try {
+                    metrics.queue.put(END);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(Stage stage, Job job) throws Exception {
+        switch (stage) {
+            case PARSE:
+                if (job.input != null && ERSchemaSnapshot.isSnapshot(job.input)) {
+                    job.schema = ERSchemaSnapshot.load(job.input);
+                    break;
+                }
+
+                try (Reader reader = job.input != null
+                    ? Files.newBufferedReader(job.input, StandardCharsets.UTF_8) : job.reader) {
+                    job.schema = new YAMLERParser().parse(reader);
+                }
+
+                break;
+            case VALIDATE:
+                job.schema.validate();
+                break;
+            case MAP:
+                job.ontology = new EROWLMapper().map(job.schema);
+                job.schema = null;
+                break;
+            case WRITE:
+                if (job.output == null) {
+                    job.ontology.write(job.outputStream, format);
+                    job.outputStream.flush();
+                    break;
+                }
+
+                try (OutputStream output =
+                    new BufferedOutputStream(Files.newOutputStream(job.output))) {
+                    job.ontology.write(output, format);
+                }
+
+                break;
+        }
+    }
+}
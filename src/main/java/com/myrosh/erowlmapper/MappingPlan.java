@@ -0,0 +1,250 @@
+package com.myrosh.erowlmapper;
+
+import com.myrosh.erowlmapper.er.EREntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author igorm
+ *
+ * A compiled, inspectable list of the operations EROWLMapper performs for a schema. A plan
+ * is checked for OWL name collisions when it is built, so executing it cannot fail halfway.
+ *
+ */
+public class MappingPlan {
+
+    /**
+     * Operations by type
+     */
+    private final Map<MappingOperation.Type, List<MappingOperation>> operationsByType =
+        new EnumMap<MappingOperation.Type, List<MappingOperation>>(MappingOperation.Type.class);
+
+    /**
+     * Class count
+     */
+    private int classCount = 0;
+
+    /**
+     * Object property count
+     */
+    private int objectPropertyCount = 0;
+
+    /**
+     * Datatype property count
+     */
+    private int datatypePropertyCount = 0;
+
+    MappingPlan() {
+        for (MappingOperation.Type type : MappingOperation.Type.values()) {
+            operationsByType.put(type, new ArrayList<MappingOperation>());
+        }
+    }
+
+    /**
+     * @return all operations in execution order
+     */
+    public List<MappingOperation> getOperations() {
+        List<MappingOperation> operations = new ArrayList<MappingOperation>();
+
+        for (List<MappingOperation> typeOperations : operationsByType.values()) {
+            operations.addAll(typeOperations);
+        }
+
+        return operations;
+    }
+
+    /**
+     * @param type
+     * @return operations of the type in execution order
+     */
+    public List<MappingOperation> getOperations(MappingOperation.Type type) {
+        return Collections.unmodifiableList(operationsByType.get(type));
+    }
+
+    /**
+     * @return
+     */
+    public int getOperationCount() {
+        int operationCount = 0;
+
+        for (List<MappingOperation> typeOperations : operationsByType.values()) {
+            operationCount += typeOperations.size();
+        }
+
+        return operationCount;
+    }
+
+    /**
+     * @return
+     */
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * @return
+     */
+    public int getObjectPropertyCount() {
+        return objectPropertyCount;
+    }
+
+    /**
+     * @return
+     */
+    public int getDatatypePropertyCount() {
+        return datatypePropertyCount;
+    }
+
+    /**
+     * Splits the plan into at most partitionCount plans along the connected components of
+     * the participating-entity graph. No operation in one partition refers to a class created
+     * in another, so the partitions can be executed independently. Components are assigned
+     * largest first to the least loaded partition.
+     *
+     * @param partitionCount
+     * @return
+     */
+    public List<MappingPlan> partition(int partitionCount) {
+        List<MappingOperation> operations = getOperations();
+        Map<EREntity, Integer> entityIds = new IdentityHashMap<EREntity, Integer>();
+        List<Integer> parents = new ArrayList<Integer>();
+
+        for (MappingOperation operation : operations) {
+            int rootId = -1;
+
+            for (EREntity entity : getEntities(operation)) {
+                Integer entityId = entityIds.get(entity);
+
+                if (entityId == null) {
+                    entityId = parents.size();
+                    entityIds.put(entity, entityId);
+                    parents.add(entityId);
+                }
+
+                if (rootId == -1) {
+                    rootId = find(parents, entityId);
+                } else {
+                    parents.set(find(parents, entityId), rootId);
+                }
+            }
+        }
+
+        Map<Integer, List<MappingOperation>> components =
+            new LinkedHashMap<Integer, List<MappingOperation>>();
+
+        for (MappingOperation operation : operations) {
+            int rootId = find(parents, entityIds.get(getEntities(operation).get(0)));
+            List<MappingOperation> component = components.get(rootId);
+
+            if (component == null) {
+                component = new ArrayList<MappingOperation>();
+                components.put(rootId, component);
+            }
+
+            component.add(operation);
+        }
+
+        final Map<List<MappingOperation>, Integer> componentWeights =
+            new IdentityHashMap<List<MappingOperation>, Integer>();
+
+        for (List<MappingOperation> component : components.values()) {
+            componentWeights.put(component, getWeight(component));
+        }
+
+        List<List<MappingOperation>> sortedComponents =
+            new ArrayList<List<MappingOperation>>(components.values());
+        Collections.sort(sortedComponents, new Comparator<List<MappingOperation>>() {
+            public int compare(List<MappingOperation> a, List<MappingOperation> b) {
+                return Integer.compare(componentWeights.get(b), componentWeights.get(a));
+            }
+        });
+
+        int size = Math.max(1, Math.min(partitionCount, sortedComponents.size()));
+        List<MappingPlan> partitions = new ArrayList<MappingPlan>(size);
+        int[] weights = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            partitions.add(new MappingPlan());
+        }
+
+        for (List<MappingOperation> component : sortedComponents) {
+            int lightest = 0;
+
+            for (int i = 1; i < size; i++) {
+                if (weights[i] < weights[lightest]) {
+                    lightest = i;
+                }
+            }
+
+            for (MappingOperation operation : component) {
+                partitions.get(lightest).addOperation(operation);
+            }
+
+            weights[lightest] += componentWeights.get(component);
+        }
+
+        return partitions;
+    }
+
+    private static List<EREntity> getEntities(MappingOperation operation) {
+        List<EREntity> entities = new ArrayList<EREntity>();
+
+        if (operation.getEntity() != null) {
+            entities.add(operation.getEntity());
+        }
+
+        for (int i = 0; i < operation.getParticipatingEntities().size(); i++) {
+            entities.add(operation.getEntity(i));
+        }
+
+        return entities;
+    }
+
+    private static int getWeight(List<MappingOperation> component) {
+        int weight = 0;
+
+        for (MappingOperation operation : component) {
+            weight += 1 + operation.getClassNames().size()
+                + operation.getObjectPropertyNames().size()
+                + operation.getDatatypePropertyNames().size();
+        }
+
+        return weight;
+    }
+
+    private static int find(List<Integer> parents, int id) {
+        while (parents.get(id) != id) {
+            int grandparent = parents.get(parents.get(id));
+            parents.set(id, grandparent);
+            id = grandparent;
+        }
+
+        return id;
+    }
+
+    /**
+     * @param operation
+     */
+    void addOperation(MappingOperation operation) {
+        operationsByType.get(operation.getType()).add(operation);
+
+        classCount += operation.getClassNames().size();
+        objectPropertyCount += operation.getObjectPropertyNames().size();
+        datatypePropertyCount += operation.getDatatypePropertyNames().size();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{operations=" + getOperationCount()
+            + ", classes=" + classCount
+            + ", objectProperties=" + objectPropertyCount
+            + ", datatypeProperties=" + datatypePropertyCount + "}";
+    }
+}
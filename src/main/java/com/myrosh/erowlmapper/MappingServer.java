@@ -0,0 +1,337 @@
+package com.myrosh.erowlmapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.myrosh.erowlmapper.metrics.MappingMetrics;
+import com.myrosh.erowlmapper.owl.OWLException;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author igorm
+ *
+ * A long-running HTTP server on the loopback interface that maps YAML ER schemas, so that
+ * clients do not pay for JVM and Jena startup on every call.
+ *
+ * POST /map[?format=turtle] with the schema as the body returns the ontology.
+ * GET /stats returns request counts and latency percentiles, followed by the metrics of
+ * every pipeline phase, which are also published over JMX.
+ *
+ */
+public class MappingServer {
+
+    /**
+     * Default maximum request body size in bytes
+     */
+    public static final int DEFAULT_MAX_REQUEST_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Largest part of a rejected request body read before responding
+     */
+    private static final int MAX_DISCARDED_SIZE = 1024 * 1024;
+
+    /**
+     * Logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MappingServer.class);
+
+    /**
+     * Port, 0 for any free port
+     */
+    private int port = 0;
+
+    /**
+     * Worker count
+     */
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum request body size in bytes
+     */
+    private int maxRequestSize = DEFAULT_MAX_REQUEST_SIZE;
+
+    /**
+     * Latencies of successful mapping requests
+     */
+    private final LatencyRecorder latencies = new LatencyRecorder(4096);
+
+    /**
+     * Number of requests answered with a status other than 2xx
+     */
+    private long errorCount = 0;
+
+    /**
+     * HTTP server, null until started
+     */
+    private HttpServer server;
+
+    /**
+     * Request executor, null until started
+     */
+    private ExecutorService executor;
+
+    /**
+     * @return
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    /**
+     * @param port
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * @return
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @param threadCount
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * @return
+     */
+    public int getMaxRequestSize() {
+        return maxRequestSize;
+    }
+
+    /**
+     * @param maxRequestSize
+     */
+    public void setMaxRequestSize(int maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    /**
+     * @return
+     */
+    public LatencyRecorder getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @return
+     */
+    public synchronized long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Binds to the loopback interface and starts serving. Jena is initialized by mapping an
+     * empty schema before the first request arrives.
+     *
+     * @throws Exception
+     */
+    public void start() throws Exception {
+        MappingMetrics.getInstance().registerMBeans();
+        App.map(new StringReader("{}"));
+
+        executor = Executors.newFixedThreadPool(Math.max(1, threadCount));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/map", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                handleMap(exchange);
+            }
+        });
+        server.createContext("/stats", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                handleStats(exchange);
+            }
+        });
+        server.start();
+
+        logger.info("Listening on " + server.getAddress());
+    }
+
+    /**
+     * Stops accepting requests and waits up to a second for running ones.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    private void handleMap(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, "Only POST is supported.");
+                return;
+            }
+
+            long start = System.nanoTime();
+            OWLFormat format = getFormat(exchange.getRequestURI().getRawQuery());
+            byte[] body = readBody(exchange);
+
+            if (body == null) {
+                send(exchange, 413, "Request exceeds " + maxRequestSize + " bytes.");
+                return;
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            try {
+                OWLLiteOntology ontology = App.map(
+                    new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+
+                ontology.write(output, format);
+            } catch (Exception e) {
+                send(exchange, 400, String.valueOf(e.getMessage()));
+                return;
+            }
+
+            latencies.record(System.nanoTime() - start);
+
+            exchange.getResponseHeaders().set("Content-Type", getContentType(format));
+            exchange.sendResponseHeaders(200, output.size());
+
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                output.writeTo(responseBody);
+            }
+        } catch (OWLException e) {
+            send(exchange, 400, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, "requests: " + latencies + "\nerrors: " + getErrorCount() + "\n"
+                + MappingMetrics.getInstance());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @param exchange
+     * @return the body, or null if it is larger than maxRequestSize
+     * @throws IOException
+     */
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+
+        if (contentLength != null && Long.parseLong(contentLength) > maxRequestSize) {
+            discard(exchange.getRequestBody());
+            return null;
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        try (InputStream input = exchange.getRequestBody()) {
+            int length;
+
+            while ((length = input.read(buffer)) != -1) {
+                if (body.size() + length > maxRequestSize) {
+                    discard(input);
+                    return null;
+                }
+
+                body.write(buffer, 0, length);
+            }
+        }
+
+        return body.toByteArray();
+    }
+
+    /**
+     * Reads and drops the rest of a rejected body, up to MAX_DISCARDED_SIZE bytes. A client
+     * still sending the body would otherwise have its connection reset instead of reading
+     * the response.
+     *
+     * @param input
+     * @throws IOException
+     */
+    private static void discard(InputStream input) throws IOException {
+        byte[] buffer = new byte[8192];
+        long discarded = 0;
+        int length;
+
+        while (discarded < MAX_DISCARDED_SIZE && (length = input.read(buffer)) != -1) {
+            discarded += length;
+        }
+    }
+
+    private static OWLFormat getFormat(String query) throws OWLException, IOException {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("format=")) {
+                    return OWLFormat.fromName(
+                        URLDecoder.decode(parameter.substring("format=".length()), "UTF-8"));
+                }
+            }
+        }
+
+        return OWLFormat.RDF_XML_ABBREV;
+    }
+
+    private static String getContentType(OWLFormat format) {
+        switch (format) {
+            case TURTLE:
+                return "text/turtle; charset=utf-8";
+            case N_TRIPLES:
+                return "application/n-triples; charset=utf-8";
+            case RDF_THRIFT:
+                return "application/rdf+thrift";
+            default:
+                return "application/rdf+xml; charset=utf-8";
+        }
+    }
+
+    /**
+     * Sends a plain text response. Every response other than 2xx is counted as an error.
+     *
+     * @param exchange
+     * @param status
+     * @param message
+     * @throws IOException
+     */
+    private void send(HttpExchange exchange, int status, String message) throws IOException {
+        if (status < 200 || status >= 300) {
+            synchronized (this) {
+                errorCount++;
+            }
+        }
+
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.myrosh.erowlmapper;
+
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.owl.OWLException;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * @author igorm
+ *
+ * Writes the ontology of a schema as modules, one file each, and a root ontology that
+ * owl:imports all of them, so that consumers can load only the modules they need.
+ *
+ * Modules are the connected components of the schema, or the entity groups given by the
+ * caller. Every class is declared in the module of its entity only; a relationship belongs
+ * to the module of its first participating entity, and its module imports the modules of
+ * the other participating entities. The modules together hold the same statements as the
+ * ontology EROWLMapper creates for the whole schema, besides the ontology headers.
+ *
+ */
+public class ModularOntologyWriter {
+
+    /**
+     * Default name of the root ontology
+     */
+    public static final String DEFAULT_ROOT_NAME = "ontology";
+
+    /**
+     * Name of the module of entities no group lists
+     */
+    public static final String DEFAULT_MODULE_NAME = "Other";
+
+    /**
+     * Output format
+     */
+    private final OWLFormat format;
+
+    /**
+     * Ontology whose backend kind and namespace modules are mapped with
+     */
+    private final OWLLiteOntology ontology;
+
+    /**
+     * Entity names by module name, null to write one module per connected component
+     */
+    private Map<String, ? extends Collection<String>> groups = null;
+
+    /**
+     * Maximum number of connected component modules
+     */
+    private int maxModuleCount = Integer.MAX_VALUE;
+
+    /**
+     * Base the ontology URIs are formed from, null for the output directory
+     */
+    private String ontologyBase = null;
+
+    /**
+     * Name of the root ontology
+     */
+    private String rootName = DEFAULT_ROOT_NAME;
+
+    /**
+     * @param format
+     */
+    public ModularOntologyWriter(OWLFormat format) {
+        this(format, new OWLLiteOntology());
+    }
+
+    /**
+     * @param format
+     * @param ontology ontology whose backend kind and namespace modules are mapped with
+     */
+    public ModularOntologyWriter(OWLFormat format, OWLLiteOntology ontology) {
+        this.format = format;
+        this.ontology = ontology;
+    }
+
+    /**
+     * @return
+     */
+    public Map<String, ? extends Collection<String>> getGroups() {
+        return groups;
+    }
+
+    /**
+     * @param groups entity names by module name, null for connected components
+     */
+    public void setGroups(Map<String, ? extends Collection<String>> groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * @return
+     */
+    public int getMaxModuleCount() {
+        return maxModuleCount;
+    }
+
+    /**
+     * Limits the number of connected component modules. Small components then share a
+     * module, which is named after its largest one.
+     *
+     * @param maxModuleCount
+     */
+    public void setMaxModuleCount(int maxModuleCount) {
+        this.maxModuleCount = Math.max(1, maxModuleCount);
+    }
+
+    /**
+     * @return
+     */
+    public String getOntologyBase() {
+        return ontologyBase;
+    }
+
+    /**
+     * Sets where the files will be published. Every ontology URI is the base followed by
+     * its file name, so that owl:imports can be followed. By default it is the URI of the
+     * output directory.
+     *
+     * @param ontologyBase ends with '/'
+     */
+    public void setOntologyBase(String ontologyBase) {
+        this.ontologyBase = ontologyBase;
+    }
+
+    /**
+     * @return
+     */
+    public String getRootName() {
+        return rootName;
+    }
+
+    /**
+     * @param rootName
+     * @throws IllegalArgumentException if the name is not a file name
+     */
+    public void setRootName(String rootName) {
+        if (!isFileName(rootName)) {
+            throw new IllegalArgumentException(
+                "Root name " + rootName + " is not a valid file name.");
+        }
+
+        this.rootName = rootName;
+    }
+
+    /**
+     * Maps and writes the modules on the common ForkJoinPool.
+     *
+     * @param schema
+     * @param directory
+     * @return the root ontology file followed by the module files
+     * @throws EROWLException
+     * @throws OWLException
+     * @throws IOException
+     */
+    public List<Path> write(ERSchema schema, Path directory)
+        throws EROWLException, OWLException, IOException {
+        return write(schema, directory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Maps and writes every module on the pool, then writes the root ontology.
+     *
+     * @param schema
+     * @param directory
+     * @param pool
+     * @return the root ontology file followed by the module files
+     * @throws EROWLException if the schema cannot be mapped, a group lists an unknown entity
+     * or an entity listed by another group, or a group name is not a file name or would
+     * share its file with the root ontology or another module
+     * @throws OWLException
+     * @throws IOException
+     */
+    public List<Path> write(ERSchema schema, Path directory, ForkJoinPool pool)
+        throws EROWLException, OWLException, IOException {
+        MappingPlan plan = new EROWLMapper(ontology.newInstance()).plan(schema);
+        final Map<String, MappingPlan> modules = groups == null
+            ? getComponentModules(plan) : getGroupModules(plan);
+        final Map<EREntity, String> moduleNames = getModuleNames(modules);
+
+        Files.createDirectories(directory);
+
+        final String base = ontologyBase != null ? ontologyBase : directory.toUri().toString();
+        final Path outputDirectory = directory;
+        List<Callable<Path>> tasks = new ArrayList<Callable<Path>>();
+
+        for (final Map.Entry<String, MappingPlan> module : modules.entrySet()) {
+            tasks.add(new Callable<Path>() {
+                public Path call() throws OWLException, IOException {
+                    return writeModule(module.getKey(), module.getValue(), moduleNames, base,
+                        outputDirectory);
+                }
+            });
+        }
+
+        List<Path> paths = new ArrayList<Path>();
+        List<String> moduleUris = new ArrayList<String>();
+        paths.add(directory.resolve(getFileName(rootName)));
+
+        for (Future<Path> result : pool.invokeAll(tasks)) {
+            try {
+                paths.add(result.get());
+                moduleUris.add(base + paths.get(paths.size() - 1).getFileName());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OWLException("Interrupted while writing modules.");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof OWLException) {
+                    throw (OWLException)e.getCause();
+                }
+
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException)e.getCause();
+                }
+
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        OWLLiteOntology root = ontology.newInstance();
+        root.addOWLOntology(base + getFileName(rootName), moduleUris);
+        write(root, paths.get(0));
+
+        return paths;
+    }
+
+    private Path writeModule(
+        String moduleName,
+        MappingPlan plan,
+        Map<EREntity, String> moduleNames,
+        String base,
+        Path directory
+    ) throws OWLException, IOException {
+        OWLLiteOntology module = ontology.newInstance();
+        Set<String> externalClassNames = new LinkedHashSet<String>();
+        Set<String> importedModuleNames = new LinkedHashSet<String>();
+
+        for (MappingOperation operation : plan.getOperations()) {
+            for (int i = 0; i < operation.getParticipatingEntities().size(); i++) {
+                EREntity entity = operation.getEntity(i);
+                String entityModuleName = moduleNames.get(entity);
+
+                if (!entityModuleName.equals(moduleName)) {
+                    externalClassNames.add(OWLLiteOntology.getOWLClassName(entity.getName()));
+                    importedModuleNames.add(entityModuleName);
+                }
+            }
+        }
+
+        // Classes of other modules are declared while mapping, so that they can be looked
+        // up, and retracted afterwards, so that only their own module declares them
+        for (String className : externalClassNames) {
+            module.addOWLClass(className);
+        }
+
+        new EROWLMapper(module).map(plan);
+
+        for (String className : externalClassNames) {
+            module.removeOWLClass(className);
+        }
+
+        List<String> importedUris = new ArrayList<String>();
+
+        for (String importedModuleName : importedModuleNames) {
+            importedUris.add(base + getFileName(importedModuleName));
+        }
+
+        module.addOWLOntology(base + getFileName(moduleName), importedUris);
+
+        Path path = directory.resolve(getFileName(moduleName));
+        write(module, path);
+
+        return path;
+    }
+
+    private void write(OWLLiteOntology ontology, Path path) throws IOException {
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(path))) {
+            ontology.write(stream, format);
+        }
+    }
+
+    private String getFileName(String name) {
+        return name + "." + format.getExtension();
+    }
+
+    /**
+     * @param plan
+     * @return one plan per connected component, or per group of components, named after the
+     * class of its first entity, followed by a number if the file name is taken
+     */
+    private Map<String, MappingPlan> getComponentModules(MappingPlan plan) {
+        Map<String, MappingPlan> modules = new LinkedHashMap<String, MappingPlan>();
+        Set<String> fileKeys = new HashSet<String>();
+        fileKeys.add(getFileKey(rootName));
+
+        for (MappingPlan partition : plan.partition(maxModuleCount)) {
+            if (partition.getOperationCount() == 0) {
+                continue;
+            }
+
+            MappingOperation operation = partition.getOperations().get(0);
+            EREntity entity = operation.getEntity() != null
+                ? operation.getEntity() : operation.getEntity(0);
+
+            String className = OWLLiteOntology.getOWLClassName(entity.getName());
+            String moduleName = className;
+
+            for (int i = 2; !fileKeys.add(getFileKey(moduleName)); i++) {
+                moduleName = className + i;
+            }
+
+            modules.put(moduleName, partition);
+        }
+
+        return modules;
+    }
+
+    /**
+     * @param plan
+     * @return one plan per group, in the order of the groups, and one for the entities no
+     * group lists
+     * @throws EROWLException
+     */
+    private Map<String, MappingPlan> getGroupModules(MappingPlan plan) throws EROWLException {
+        Map<String, String> moduleNamesByClassName = new HashMap<String, String>();
+        Map<String, String> moduleNamesByFileKey = new HashMap<String, String>();
+        moduleNamesByFileKey.put(getFileKey(rootName), rootName);
+
+        for (String moduleName : groups.keySet()) {
+            checkGroupName(moduleName, moduleNamesByFileKey);
+        }
+
+        for (Map.Entry<String, ? extends Collection<String>> group : groups.entrySet()) {
+            for (String entityName : group.getValue()) {
+                String className = OWLLiteOntology.getOWLClassName(entityName);
+                String moduleName = moduleNamesByClassName.put(className, group.getKey());
+
+                if (moduleName != null && !moduleName.equals(group.getKey())) {
+                    throw new EROWLException("Entity " + entityName + " is listed by both"
+                        + " module " + moduleName + " and module " + group.getKey() + ".");
+                }
+            }
+        }
+
+        Map<String, MappingPlan> modules = new LinkedHashMap<String, MappingPlan>();
+
+        for (String moduleName : groups.keySet()) {
+            modules.put(moduleName, new MappingPlan());
+        }
+
+        Set<String> classNames = new LinkedHashSet<String>();
+
+        for (MappingOperation operation : plan.getOperations()) {
+            EREntity entity = operation.getEntity() != null
+                ? operation.getEntity() : operation.getEntity(0);
+            String className = OWLLiteOntology.getOWLClassName(entity.getName());
+            String moduleName = moduleNamesByClassName.get(className);
+
+            if (moduleName == null) {
+                moduleName = DEFAULT_MODULE_NAME;
+
+                if (!modules.containsKey(moduleName)) {
+                    checkGroupName(moduleName, moduleNamesByFileKey);
+                }
+            }
+
+            if (operation.getEntity() != null) {
+                classNames.add(className);
+            }
+
+            MappingPlan module = modules.get(moduleName);
+
+            if (module == null) {
+                module = new MappingPlan();
+                modules.put(moduleName, module);
+            }
+
+            module.addOperation(operation);
+        }
+
+        for (String className : moduleNamesByClassName.keySet()) {
+            if (!classNames.contains(className)) {
+                throw new EROWLException("Entity " + className + " of module "
+                    + moduleNamesByClassName.get(className) + " does not exist.");
+            }
+        }
+
+        for (String moduleName : new ArrayList<String>(modules.keySet())) {
+            if (modules.get(moduleName).getOperationCount() == 0) {
+                modules.remove(moduleName);
+            }
+        }
+
+        return modules;
+    }
+
+    /**
+     * Module names become file names, which have to stay in the output directory and must
+     * not overwrite one another on case-insensitive file systems.
+     *
+     * @param moduleName
+     * @param moduleNamesByFileKey names taken so far
+     * @throws EROWLException
+     */
+    private static void checkGroupName(String moduleName, Map<String, String> moduleNamesByFileKey)
+        throws EROWLException {
+        if (!isFileName(moduleName)) {
+            throw new EROWLException("Module name " + moduleName + " is not a valid file name.");
+        }
+
+        String otherModuleName = moduleNamesByFileKey.put(getFileKey(moduleName), moduleName);
+
+        if (otherModuleName != null) {
+            throw new EROWLException("Module " + moduleName + " would be written to the file of "
+                + otherModuleName + ".");
+        }
+    }
+
+    private static boolean isFileName(String name) {
+        return name != null && !name.isEmpty() && !name.contains("/") && !name.contains("\\")
+            && !name.contains("..");
+    }
+
+    private static String getFileKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param modules
+     * @return module name of every entity, by the module its class is declared in
+     */
+    private static Map<EREntity, String> getModuleNames(Map<String, MappingPlan> modules) {
+        Map<EREntity, String> moduleNames = new IdentityHashMap<EREntity, String>();
+
+        for (Map.Entry<String, MappingPlan> module : modules.entrySet()) {
+            for (MappingOperation operation : module.getValue().getOperations()) {
+                if (operation.getEntity() != null) {
+                    moduleNames.put(operation.getEntity(), module.getKey());
+                }
+            }
+        }
+
+        return moduleNames;
+    }
+}
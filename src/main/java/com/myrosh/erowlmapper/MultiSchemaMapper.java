@@ -0,0 +1,216 @@
+package com.myrosh.erowlmapper;
+
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.owl.OWLException;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+import org.apache.jena.rdf.model.ResourceFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * @author igorm
+ *
+ * Maps many ER schemas, e.g. one per business domain, into a single ontology. Every schema
+ * is mapped concurrently into its own graph under its own namespace, so identical names in
+ * different schemas do not collide, and the graphs are merged in the order the schemas
+ * were added. The merge policy decides what happens to identically named entities.
+ *
+ */
+public class MultiSchemaMapper {
+
+    /**
+     * What to do with entities of the same class name in different schemas
+     */
+    public enum MergePolicy {
+
+        /**
+         * Map them to unrelated classes
+         */
+        SEPARATE,
+
+        /**
+         * Declare the classes equivalent to the class of the first schema
+         */
+        EQUIVALENT_CLASSES,
+
+        /**
+         * Fail before mapping anything
+         */
+        REJECT
+    }
+
+    /**
+     * Ontology the schemas are merged into
+     */
+    private final OWLLiteOntology ontology;
+
+    /**
+     * Schemas by namespace, in the order they were added
+     */
+    private final Map<String, ERSchema> schemas = new LinkedHashMap<String, ERSchema>();
+
+    /**
+     * Merge policy
+     */
+    private MergePolicy mergePolicy = MergePolicy.SEPARATE;
+
+    public MultiSchemaMapper() {
+        this(new OWLLiteOntology());
+    }
+
+    /**
+     * @param ontology ontology to merge into, whose backend kind every schema is mapped with
+     */
+    public MultiSchemaMapper(OWLLiteOntology ontology) {
+        this.ontology = ontology;
+    }
+
+    /**
+     * @return
+     */
+    public MergePolicy getMergePolicy() {
+        return mergePolicy;
+    }
+
+    /**
+     * @param mergePolicy
+     */
+    public void setMergePolicy(MergePolicy mergePolicy) {
+        this.mergePolicy = mergePolicy;
+    }
+
+    /**
+     * @param namespace namespace of the classes and properties of the schema
+     * @param schema
+     * @throws IllegalArgumentException if the namespace has been added before or does not
+     * end with '#' or '/'
+     */
+    public void addSchema(String namespace, ERSchema schema) {
+        if (!namespace.endsWith("#") && !namespace.endsWith("/")) {
+            throw new IllegalArgumentException(
+                "Namespace " + namespace + " does not end with '#' or '/'.");
+        }
+
+        if (schemas.containsKey(namespace)) {
+            throw new IllegalArgumentException(
+                "Namespace " + namespace + " is used by more than one schema.");
+        }
+
+        schemas.put(namespace, schema);
+    }
+
+    /**
+     * Maps the schemas on the common ForkJoinPool.
+     *
+     * @return
+     * @throws EROWLException
+     * @throws OWLException
+     */
+    public OWLLiteOntology map() throws EROWLException, OWLException {
+        return map(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Maps every schema into its own ontology on the pool and merges the results.
+     *
+     * @param pool
+     * @return
+     * @throws EROWLException if a schema cannot be mapped, or the policy rejects an entity
+     * @throws OWLException
+     */
+    public OWLLiteOntology map(ForkJoinPool pool) throws EROWLException, OWLException {
+        Map<String, List<String>> namespacesByClassName = getNamespacesByClassName();
+        List<Callable<OWLLiteOntology>> tasks = new ArrayList<Callable<OWLLiteOntology>>();
+
+        for (final Map.Entry<String, ERSchema> schema : schemas.entrySet()) {
+            tasks.add(new Callable<OWLLiteOntology>() {
+                public OWLLiteOntology call() throws EROWLException, OWLException {
+                    return new EROWLMapper(new OWLLiteOntology(
+                        ontology.getBackend().newInstance(), schema.getKey()
+                    )).map(schema.getValue());
+                }
+            });
+        }
+
+        for (Future<OWLLiteOntology> result : pool.invokeAll(tasks)) {
+            try {
+                ontology.addOntology(result.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OWLException("Interrupted while mapping.");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof EROWLException) {
+                    throw (EROWLException)e.getCause();
+                }
+
+                if (e.getCause() instanceof OWLException) {
+                    throw (OWLException)e.getCause();
+                }
+
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        if (mergePolicy == MergePolicy.EQUIVALENT_CLASSES) {
+            for (Map.Entry<String, List<String>> entry : namespacesByClassName.entrySet()) {
+                List<String> namespaces = entry.getValue();
+
+                for (int i = 1; i < namespaces.size(); i++) {
+                    ontology.addOWLEquivalentClass(
+                        ResourceFactory.createResource(namespaces.get(i) + entry.getKey()),
+                        ResourceFactory.createResource(namespaces.get(0) + entry.getKey()));
+                }
+            }
+        }
+
+        return ontology;
+    }
+
+    /**
+     * @return namespaces of every entity class name defined by more than one schema
+     * @throws EROWLException if the policy rejects such entities
+     */
+    private Map<String, List<String>> getNamespacesByClassName() throws EROWLException {
+        Map<String, List<String>> namespacesByClassName =
+            new LinkedHashMap<String, List<String>>();
+
+        if (mergePolicy == MergePolicy.SEPARATE) {
+            return namespacesByClassName;
+        }
+
+        for (Map.Entry<String, ERSchema> schema : schemas.entrySet()) {
+            for (EREntity entity : schema.getValue().getEntities()) {
+                String className = OWLLiteOntology.getOWLClassName(entity.getName());
+                List<String> namespaces = namespacesByClassName.get(className);
+
+                if (namespaces == null) {
+                    namespaces = new ArrayList<String>();
+                    namespacesByClassName.put(className, namespaces);
+                } else if (namespaces.contains(schema.getKey())) {
+                    continue;
+                } else if (mergePolicy == MergePolicy.REJECT) {
+                    throw new EROWLException("Class " + className + " is mapped in both "
+                        + namespaces.get(0) + " and " + schema.getKey() + ".");
+                }
+
+                namespaces.add(schema.getKey());
+            }
+        }
+
+        for (String className : new ArrayList<String>(namespacesByClassName.keySet())) {
+            if (namespacesByClassName.get(className).size() < 2) {
+                namespacesByClassName.remove(className);
+            }
+        }
+
+        return namespacesByClassName;
+    }
+}
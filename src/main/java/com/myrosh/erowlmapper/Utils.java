@@ -2,6 +2,8 @@ package com.myrosh.erowlmapper;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.regex.Pattern;
+
 /**
  * @author igorm
  *
@@ -10,6 +12,11 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class Utils
 {
+    /**
+     * Matches everything that is not a letter or a decimal digit
+     */
+    private static final Pattern NON_NAME_CHARACTERS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
     public static String lowerCaseCleanName(String name) {
         return StringUtils.lowerCase(cleanName(name));
     }
@@ -22,7 +29,48 @@ public class Utils
         return StringUtils.uncapitalize(cleanName(name));
     }
 
+    /**
+     * Strips everything but letters and decimal digits. ASCII names are handled without the
+     * regex, and a name which is already clean is returned as is.
+     *
+     * @param name
+     * @return
+     */
     public static String cleanName(String name) {
-        return StringUtils.isBlank(name) ? "" : name.replaceAll("[^\\p{L}\\p{Nd}]+", "");
+        if (name == null) {
+            return "";
+        }
+
+        int length = name.length();
+        int i = 0;
+
+        while (i < length && isASCIILetterOrDigit(name.charAt(i))) {
+            i++;
+        }
+
+        if (i == length) {
+            return name;
+        }
+
+        StringBuilder cleanName = new StringBuilder(length);
+        cleanName.append(name, 0, i);
+
+        for (; i < length; i++) {
+            char c = name.charAt(i);
+
+            if (c >= 0x80) {
+                return NON_NAME_CHARACTERS.matcher(name).replaceAll("");
+            }
+
+            if (isASCIILetterOrDigit(c)) {
+                cleanName.append(c);
+            }
+        }
+
+        return cleanName.toString();
+    }
+
+    private static boolean isASCIILetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
     }
 }
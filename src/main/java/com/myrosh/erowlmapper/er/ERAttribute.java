@@ -26,6 +26,17 @@ public class ERAttribute extends ERElementWithAttributes {
      */
     private boolean multivalued = false;
 
+    public ERAttribute() {
+    }
+
+    /**
+     * @param attributes component attribute list, or null for subclasses storing component
+     *                   attributes elsewhere
+     */
+    protected ERAttribute(List<ERAttribute> attributes) {
+        super(attributes);
+    }
+
     /**
      * @return
      */
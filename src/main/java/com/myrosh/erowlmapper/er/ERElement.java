@@ -1,8 +1,6 @@
 package com.myrosh.erowlmapper.er;
 
-import com.myrosh.erowlmapper.Utils;
-
-import java.util.Objects;
+import com.myrosh.erowlmapper.CanonicalName;
 
 /**
  * @author igorm
@@ -17,6 +15,16 @@ public abstract class ERElement {
      */
     private String name;
 
+    /**
+     * Cached canonical forms of the name, reset by setName
+     */
+    private CanonicalName canonicalName;
+
+    /**
+     * Schema indexing the element by name, told when the name changes
+     */
+    private ERSchema schema;
+
     /**
      * @return
      */
@@ -28,7 +36,28 @@ public abstract class ERElement {
      * @return
      */
     public String getUniqueName() {
-        return Utils.lowerCaseCleanName(name);
+        return getCanonicalName().getLowerCaseName();
+    }
+
+    /**
+     * @return
+     */
+    public String getCapitalizedName() {
+        return getCanonicalName().getCapitalizedName();
+    }
+
+    /**
+     * @return
+     */
+    protected CanonicalName getCanonicalName() {
+        CanonicalName canonicalName = this.canonicalName;
+
+        if (canonicalName == null) {
+            canonicalName = CanonicalName.of(name);
+            this.canonicalName = canonicalName;
+        }
+
+        return canonicalName;
     }
 
     /**
@@ -36,6 +65,25 @@ public abstract class ERElement {
      */
     public void setName(String name) {
         this.name = name;
+        this.canonicalName = null;
+
+        if (schema != null) {
+            schema.invalidateIndexes();
+        }
+    }
+
+    /**
+     * @return
+     */
+    ERSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @param schema
+     */
+    void setSchema(ERSchema schema) {
+        this.schema = schema;
     }
 
     @Override
@@ -59,7 +107,8 @@ public abstract class ERElement {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getUniqueName());
+        // Same value as Objects.hash(getUniqueName()) without the varargs array
+        return 31 + getUniqueName().hashCode();
     }
 
     @Override
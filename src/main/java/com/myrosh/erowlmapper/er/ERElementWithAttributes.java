@@ -14,7 +14,18 @@ public abstract class ERElementWithAttributes extends ERElement {
     /**
      * Attributes
      */
-    private List<ERAttribute> attributes = new ArrayList<ERAttribute>();
+    private final List<ERAttribute> attributes;
+
+    public ERElementWithAttributes() {
+        this(new ArrayList<ERAttribute>());
+    }
+
+    /**
+     * @param attributes attribute list, or null for subclasses storing attributes elsewhere
+     */
+    protected ERElementWithAttributes(List<ERAttribute> attributes) {
+        this.attributes = attributes;
+    }
 
     public List<ERAttribute> getAttributes() {
         return attributes;
@@ -16,6 +16,16 @@ public class EREntity extends ERElementWithAttributes {
      */
     private boolean weak = false;
 
+    public EREntity() {
+    }
+
+    /**
+     * @param attributes attribute list, or null for subclasses storing attributes elsewhere
+     */
+    protected EREntity(List<ERAttribute> attributes) {
+        super(attributes);
+    }
+
     /**
      * @return
      */
@@ -27,7 +37,7 @@ public class EREntity extends ERElementWithAttributes {
      * @return
      */
     public boolean isStrong() {
-        return !weak;
+        return !isWeak();
     }
 
     /**
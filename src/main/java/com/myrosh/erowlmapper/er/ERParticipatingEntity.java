@@ -1,10 +1,8 @@
 package com.myrosh.erowlmapper.er;
 
-import com.myrosh.erowlmapper.Utils;
+import com.myrosh.erowlmapper.CanonicalName;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.Objects;
-
 /**
  * @author igorm
  *
@@ -18,6 +16,11 @@ public class ERParticipatingEntity extends ERElement {
      */
     private String role;
 
+    /**
+     * Cached canonical forms of the role, reset by setRole
+     */
+    private CanonicalName canonicalRole;
+
     /**
      * Min cardinality constraint
      */
@@ -39,7 +42,14 @@ public class ERParticipatingEntity extends ERElement {
      * @return
      */
     public String getUniqueRole() {
-        return Utils.lowerCaseCleanName(role);
+        CanonicalName canonicalRole = this.canonicalRole;
+
+        if (canonicalRole == null) {
+            canonicalRole = CanonicalName.of(role);
+            this.canonicalRole = canonicalRole;
+        }
+
+        return canonicalRole.getLowerCaseName();
     }
 
     /**
@@ -54,6 +64,7 @@ public class ERParticipatingEntity extends ERElement {
      */
     public void setRole(String role) {
         this.role = role;
+        this.canonicalRole = null;
     }
 
     /**
@@ -106,12 +117,13 @@ public class ERParticipatingEntity extends ERElement {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getUniqueName(), getUniqueRole());
+        // Same value as Objects.hash(getUniqueName(), getUniqueRole()) without the varargs array
+        return 31 * (31 + getUniqueName().hashCode()) + getUniqueRole().hashCode();
     }
 
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{" + getUniqueName()
-            + (StringUtils.isBlank(role) ? "" : "/" + getUniqueRole()) + "}";
+            + (StringUtils.isBlank(getRole()) ? "" : "/" + getUniqueRole()) + "}";
     }
 }
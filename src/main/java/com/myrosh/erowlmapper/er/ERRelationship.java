@@ -19,7 +19,24 @@ public class ERRelationship extends ERElementWithAttributes {
     /**
      * Participating entities
      */
-    private List<ERParticipatingEntity> participatingEntities = new ArrayList<ERParticipatingEntity>();
+    private final List<ERParticipatingEntity> participatingEntities;
+
+    public ERRelationship() {
+        this(new ArrayList<ERAttribute>(), new ArrayList<ERParticipatingEntity>());
+    }
+
+    /**
+     * @param attributes attribute list, or null for subclasses storing attributes elsewhere
+     * @param participatingEntities participating entity list, or null for subclasses storing
+     *                              participating entities elsewhere
+     */
+    protected ERRelationship(
+        List<ERAttribute> attributes,
+        List<ERParticipatingEntity> participatingEntities
+    ) {
+        super(attributes);
+        this.participatingEntities = participatingEntities;
+    }
 
     /**
      * @return
@@ -47,7 +64,7 @@ public class ERRelationship extends ERElementWithAttributes {
      * @return
      */
     public ERParticipatingEntity getParticipatingEntity(EREntity entity) {
-        for (ERParticipatingEntity participatingEntity : participatingEntities) {
+        for (ERParticipatingEntity participatingEntity : getParticipatingEntities()) {
             if (participatingEntity.getUniqueName().equals(entity.getUniqueName())) {
                 return participatingEntity;
             }
@@ -63,7 +80,7 @@ public class ERRelationship extends ERElementWithAttributes {
     public List<ERParticipatingEntity> getParticipatingEntitiesExcluding(EREntity entity) {
         List<ERParticipatingEntity> filteredParticipatingEntities = new ArrayList<ERParticipatingEntity>();
 
-        for (ERParticipatingEntity participatingEntity : participatingEntities) {
+        for (ERParticipatingEntity participatingEntity : getParticipatingEntities()) {
             if (!participatingEntity.getUniqueName().equals(entity.getUniqueName())) {
                 filteredParticipatingEntities.add(participatingEntity);
             }
@@ -77,26 +94,33 @@ public class ERRelationship extends ERElementWithAttributes {
      */
     public void addParticipatingEntity(ERParticipatingEntity participatingEntity) {
         participatingEntities.add(participatingEntity);
+
+        ERSchema schema = getSchema();
+
+        if (schema != null) {
+            participatingEntity.setSchema(schema);
+            schema.invalidateIndexes();
+        }
     }
 
     /**
      * @return
      */
     public boolean isBinary() {
-        return participatingEntities.size() == 2;
+        return getParticipatingEntities().size() == 2;
     }
 
     /**
      * @return
      */
     public boolean isTernary() {
-        return participatingEntities.size() == 3;
+        return getParticipatingEntities().size() == 3;
     }
 
     /**
      * @return
      */
     public boolean isNary() {
-        return participatingEntities.size() > 3;
+        return getParticipatingEntities().size() > 3;
     }
 }
@@ -1,11 +1,16 @@
 package com.myrosh.erowlmapper.er;
 
-import org.apache.commons.lang3.StringUtils;
+import com.myrosh.erowlmapper.er.validator.ERSchemaValidator;
+import com.myrosh.erowlmapper.er.validator.ERValidationReport;
+import com.myrosh.erowlmapper.metrics.MappingMetrics;
+import com.myrosh.erowlmapper.metrics.MappingPhase;
+import com.myrosh.erowlmapper.metrics.PhaseRun;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * @author igorm
@@ -18,12 +23,35 @@ public class ERSchema {
     /**
      * Entities
      */
-    private List<EREntity> entities = new ArrayList<EREntity>();
+    private ElementList<EREntity> entities = new ElementList<EREntity>();
 
     /**
      * Relationships
      */
-    private List<ERRelationship> relationships = new ArrayList<ERRelationship>();
+    private ElementList<ERRelationship> relationships = new ElementList<ERRelationship>();
+
+    /**
+     * Entity index by unique name (the first entity wins for duplicate names)
+     */
+    private Map<String, EREntity> entityIndex = new HashMap<String, EREntity>();
+
+    /**
+     * Relationship index by the unique name of every participating entity
+     */
+    private Map<String, List<ERRelationship>> relationshipIndex =
+        new HashMap<String, List<ERRelationship>>();
+
+    /**
+     * Whether a name or a participating entity changed since the indexes were built
+     */
+    private volatile boolean indexesStale = false;
+
+    /**
+     * Change counts of the entity and relationship lists the indexes were built from
+     */
+    private int indexedEntitiesModCount = 0;
+
+    private int indexedRelationshipsModCount = 0;
 
     /**
      * @return
@@ -32,18 +60,26 @@ public class ERSchema {
         return entities;
     }
 
+    /**
+     * @param entities
+     */
+    public void setEntities(List<EREntity> entities) {
+        this.entities = new ElementList<EREntity>();
+        invalidateIndexes();
+
+        for (EREntity entity : entities) {
+            addEntity(entity);
+        }
+    }
+
     /**
      * @param participatingEntity
      * @return
      */
     public EREntity getEntity(ERParticipatingEntity participatingEntity) {
-        for (EREntity entity : entities) {
-            if (entity.getUniqueName().equals(participatingEntity.getUniqueName())) {
-                return entity;
-            }
-        }
+        checkIndexes();
 
-        return null;
+        return entityIndex.get(participatingEntity.getUniqueName());
     }
 
     /**
@@ -52,7 +88,7 @@ public class ERSchema {
     public List<EREntity> getStrongEntities() {
         List<EREntity> strongEntities = new ArrayList<EREntity>();
 
-        for (EREntity entity : entities) {
+        for (EREntity entity : getEntities()) {
             if (entity.isStrong()) {
                 strongEntities.add(entity);
             }
@@ -67,7 +103,7 @@ public class ERSchema {
     public List<EREntity> getWeakEntities() {
         List<EREntity> weakEntities = new ArrayList<EREntity>();
 
-        for (EREntity entity : entities) {
+        for (EREntity entity : getEntities()) {
             if (entity.isWeak()) {
                 weakEntities.add(entity);
             }
@@ -80,7 +116,14 @@ public class ERSchema {
      * @param entity
      */
     public void addEntity(EREntity entity) {
+        boolean indexed = !isIndexStale();
         entities.add(entity);
+        entity.setSchema(this);
+
+        if (indexed) {
+            indexEntity(entity);
+            indexedEntitiesModCount = entities.getModCount();
+        }
     }
 
     /**
@@ -90,31 +133,181 @@ public class ERSchema {
         return relationships;
     }
 
+    /**
+     * @param relationships
+     */
+    public void setRelationships(List<ERRelationship> relationships) {
+        this.relationships = new ElementList<ERRelationship>();
+        invalidateIndexes();
+
+        for (ERRelationship relationship : relationships) {
+            addRelationship(relationship);
+        }
+    }
+
+    /**
+     * @param entity
+     * @return read-only view of the relationships the entity participates in
+     */
+    public List<ERRelationship> getRelationships(EREntity entity) {
+        checkIndexes();
+
+        List<ERRelationship> entityRelationships = relationshipIndex.get(entity.getUniqueName());
+
+        return entityRelationships == null
+            ? Collections.<ERRelationship>emptyList()
+            : Collections.unmodifiableList(entityRelationships);
+    }
+
+    /**
+     * @param entity
+     * @return
+     */
+    public List<ERRelationship> getIdentifyingRelationships(EREntity entity) {
+        List<ERRelationship> identifyingRelationships = new ArrayList<ERRelationship>();
+
+        for (ERRelationship relationship : getRelationships(entity)) {
+            if (relationship.isIdentifying()) {
+                identifyingRelationships.add(relationship);
+            }
+        }
+
+        return identifyingRelationships;
+    }
+
+    /**
+     * @param entity
+     * @return
+     */
+    public List<ERRelationship> getNonIdentifyingRelationships(EREntity entity) {
+        List<ERRelationship> nonIdentifyingRelationships = new ArrayList<ERRelationship>();
+
+        for (ERRelationship relationship : getRelationships(entity)) {
+            if (!relationship.isIdentifying()) {
+                nonIdentifyingRelationships.add(relationship);
+            }
+        }
+
+        return nonIdentifyingRelationships;
+    }
+
     /**
      * @param weakEntity
      *
      * @return
      */
     public ERRelationship getIdentifyingBinaryRelationship(EREntity weakEntity) {
-        List<ERRelationship> identifyingRelationships = new ArrayList<ERRelationship>();
+        ERRelationship identifyingRelationship = null;
 
-        for (ERRelationship relationship : relationships) {
-            if (relationship.isIdentifying()
-                && relationship.isBinary()
-                && relationship.getParticipatingEntity(weakEntity) != null
-            ) {
-                identifyingRelationships.add(relationship);
+        for (ERRelationship relationship : getRelationships(weakEntity)) {
+            if (relationship.isIdentifying() && relationship.isBinary()) {
+                if (identifyingRelationship != null) {
+                    return null;
+                }
+
+                identifyingRelationship = relationship;
             }
         }
 
-        return identifyingRelationships.size() == 1 ? identifyingRelationships.get(0) : null;
+        return identifyingRelationship;
     }
 
     /**
      * @param relationship
      */
     public void addRelationship(ERRelationship relationship) {
+        boolean indexed = !isIndexStale();
         relationships.add(relationship);
+        claim(relationship);
+
+        if (indexed) {
+            indexRelationship(relationship);
+            indexedRelationshipsModCount = relationships.getModCount();
+        }
+    }
+
+    /**
+     * Rebuilds the entity and relationship indexes. Lookups rebuild them on their own once an
+     * element of the schema is renamed, a relationship gets another participating entity or
+     * the entity/relationship lists change, so this is only needed to pay for the rebuild up
+     * front.
+     */
+    public synchronized void reindex() {
+        entityIndex = new HashMap<String, EREntity>();
+        relationshipIndex = new HashMap<String, List<ERRelationship>>();
+
+        for (EREntity entity : entities) {
+            entity.setSchema(this);
+            indexEntity(entity);
+        }
+
+        for (ERRelationship relationship : relationships) {
+            claim(relationship);
+            indexRelationship(relationship);
+        }
+
+        indexedEntitiesModCount = entities.getModCount();
+        indexedRelationshipsModCount = relationships.getModCount();
+        // Written last so that lookups seeing fresh indexes also see their contents
+        indexesStale = false;
+    }
+
+    /**
+     * Marks the indexes for a rebuild on the next lookup
+     */
+    void invalidateIndexes() {
+        indexesStale = true;
+    }
+
+    private boolean isIndexStale() {
+        return indexesStale
+            || indexedEntitiesModCount != entities.getModCount()
+            || indexedRelationshipsModCount != relationships.getModCount();
+    }
+
+    private void checkIndexes() {
+        if (isIndexStale()) {
+            synchronized (this) {
+                if (isIndexStale()) {
+                    reindex();
+                }
+            }
+        }
+    }
+
+    private void claim(ERRelationship relationship) {
+        relationship.setSchema(this);
+
+        for (ERParticipatingEntity participatingEntity : relationship.getParticipatingEntities()) {
+            participatingEntity.setSchema(this);
+        }
+    }
+
+    private void indexEntity(EREntity entity) {
+        String uniqueName = entity.getUniqueName();
+
+        if (!entityIndex.containsKey(uniqueName)) {
+            entityIndex.put(uniqueName, entity);
+        }
+    }
+
+    private void indexRelationship(ERRelationship relationship) {
+        for (ERParticipatingEntity participatingEntity : relationship.getParticipatingEntities()) {
+            String uniqueName = participatingEntity.getUniqueName();
+            List<ERRelationship> entityRelationships = relationshipIndex.get(uniqueName);
+
+            if (entityRelationships == null) {
+                entityRelationships = new ArrayList<ERRelationship>();
+                relationshipIndex.put(uniqueName, entityRelationships);
+            }
+
+            // An entity participating more than once is still incident only once
+            if (entityRelationships.isEmpty()
+                || entityRelationships.get(entityRelationships.size() - 1) != relationship
+            ) {
+                entityRelationships.add(relationship);
+            }
+        }
     }
 
     /**
@@ -188,152 +381,36 @@ public class ERSchema {
     /**
      * @throws ERException
      *
-     * Checks for schema inconsistencies.
+     * Checks for schema inconsistencies and throws on the first one. ERSchemaValidator
+     * reports all of them.
      */
     public void validate() throws ERException {
-        Set<EREntity> uniqueEntities = new HashSet<EREntity>();
-        Set<ERRelationship> uniqueRelationships = new HashSet<ERRelationship>();
-        Set<ERParticipatingEntity> uniqueParticipatingEntities = new HashSet<ERParticipatingEntity>();
+        PhaseRun run = MappingMetrics.getInstance().start(MappingPhase.VALIDATE);
+        ERValidationReport report = new ERSchemaValidator().validate(this);
+        run.end(getEntities().size() + getRelationships().size(), 0, 0);
 
-        for (EREntity entity : entities) {
-            if (StringUtils.isBlank(entity.getUniqueName())) {
-                throw new ERException("Every EREntity must have a name.");
-            }
-
-            if (uniqueEntities.contains(entity)) {
-                throw new ERException(entity + " is a duplicate.");
-            } else {
-                uniqueEntities.add(entity);
-            }
+        if (!report.isValid()) {
+            throw new ERException(report.getViolations().get(0).getMessage());
         }
+    }
 
-        for (ERRelationship relationship : relationships) {
-            if (StringUtils.isBlank(relationship.getUniqueName())) {
-                throw new ERException("Every ERRelationship must have a name.");
-            }
-
-            if (uniqueRelationships.contains(relationship)) {
-                throw new ERException(relationship + " is a duplicate.");
-            } else {
-                uniqueRelationships.add(relationship);
-            }
-
-            if (relationship.getParticipatingEntities().size() < 2) {
-                throw new ERException(relationship
-                    + " must have at least 2 ERParticipatingEntities.");
-            }
-
-            if (relationship.getParticipatingEntities().size() > 3) {
-                throw new ERException(relationship
-                    + " cannot have more than 3 ERParticipatingEntities.");
-            }
-
-            for (ERParticipatingEntity participatingEntity : relationship.getParticipatingEntities()) {
-                if (StringUtils.isBlank(participatingEntity.getUniqueName())) {
-                    throw new ERException("Every ERParticipatingEntity must have a name.");
-                }
-
-                if (uniqueParticipatingEntities.contains(participatingEntity)) {
-                    throw new ERException(participatingEntity + " in " + relationship
-                        + " is a duplicate.");
-                } else {
-                    uniqueParticipatingEntities.add(participatingEntity);
-                }
-
-                if (getEntity(participatingEntity) == null) {
-                    throw new ERException(participatingEntity + " in " + relationship
-                        + " refers to EREntity{" + participatingEntity.getUniqueName() + "}"
-                        + " which does not exist.");
-                }
-            }
-
-            if (relationship.isIdentifying()) {
-                if (!relationship.isBinary()) {
-                    throw new ERException("Identifying " + relationship
-                        + " must have exactly 2 ERParticipatingEntities.");
-                }
+    /**
+     * List counting its changes, so that the indexes notice elements added, removed or
+     * replaced through getEntities() and getRelationships()
+     */
+    private static final class ElementList<E> extends ArrayList<E> {
 
-                List<ERParticipatingEntity> participatingEntities =
-                    relationship.getParticipatingEntities();
-                EREntity aEntity = getEntity(participatingEntities.get(0));
-                EREntity bEntity = getEntity(participatingEntities.get(1));
-
-                if (!((aEntity.isStrong() && bEntity.isWeak())
-                    || (aEntity.isWeak() && bEntity.isStrong()))
-                ) {
-                    throw new ERException("Identifying " + relationship
-                        + " must have 1 strong ERParticipatingEntity"
-                        + " and 1 weak ERParticipatingEntity.");
-                }
+        private static final long serialVersionUID = 1L;
 
-                if (!relationship.getAttributes().isEmpty()) {
-                    throw new ERException("Identifying " + relationship
-                        + " cannot have attributes.");
-                }
-            }
-        }
+        @Override
+        public E set(int index, E element) {
+            modCount++;
 
-        for (EREntity weakEntity : getWeakEntities()) {
-            if (getIdentifyingBinaryRelationship(weakEntity) == null) {
-                throw new ERException("Weak " + weakEntity + " must have exactly 1 identifying"
-                    + " binary ERRelationship with a strong EREntity.");
-            }
+            return super.set(index, element);
         }
 
-        List<ERElementWithAttributes> elementsWithAttributes =
-            new ArrayList<ERElementWithAttributes>();
-        elementsWithAttributes.addAll(entities);
-        elementsWithAttributes.addAll(relationships);
-
-        Set<ERAttribute> uniqueAttributes = new HashSet<ERAttribute>();
-
-        for (ERElementWithAttributes element : elementsWithAttributes) {
-            for (ERAttribute attribute : element.getAttributes()) {
-                if (StringUtils.isBlank(attribute.getUniqueName())) {
-                    throw new ERException("Every ERAttribute must have a name.");
-                }
-
-                if (uniqueAttributes.contains(attribute)) {
-                    throw new ERException(attribute + " is a duplicate.");
-                } else {
-                    uniqueAttributes.add(attribute);
-                }
-
-                if (attribute.isKey() && attribute.isMultivalued()) {
-                    throw new ERException("Key " + attribute + " cannot be multivalued.");
-                }
-
-                if (attribute.isComposite()) {
-                    for (EREntity entity : uniqueEntities) {
-                        if (entity.getUniqueName().equals(attribute.getUniqueName())) {
-                            throw new ERException("Composite " + attribute
-                                + " cannot have the same name as " + entity + ".");
-                        }
-                    }
-                }
-
-                for (ERAttribute componentAttribute : attribute.getAttributes()) {
-                    if (StringUtils.isBlank(componentAttribute.getUniqueName())) {
-                        throw new ERException("Every ERAttribute must have a name.");
-                    }
-
-                    if (uniqueAttributes.contains(componentAttribute)) {
-                        throw new ERException(componentAttribute + " is a duplicate.");
-                    } else {
-                        uniqueAttributes.add(componentAttribute);
-                    }
-
-                    if (componentAttribute.isKey()) {
-                        throw new ERException("Component " + componentAttribute
-                            + " cannot be a key.");
-                    }
-
-                    if (componentAttribute.isComposite()) {
-                        throw new ERException("Component " + componentAttribute
-                            + " cannot be composite.");
-                    }
-                }
-            }
+        int getModCount() {
+            return modCount;
         }
     }
 }
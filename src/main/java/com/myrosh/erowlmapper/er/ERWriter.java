@@ -0,0 +1,19 @@
+package com.myrosh.erowlmapper.er;
+
+import java.io.Writer;
+
+/**
+ * @author igorm
+ *
+ * A generic ER schema writer contract
+ *
+ */
+public interface ERWriter {
+
+    /**
+     * @param schema
+     * @param writer
+     * @throws Exception
+     */
+    void write(ERSchema schema, Writer writer) throws Exception;
+}
@@ -0,0 +1,996 @@
+package com.myrosh.erowlmapper.er.compact;
+
+import com.myrosh.erowlmapper.CanonicalName;
+import com.myrosh.erowlmapper.er.ERAttribute;
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERParticipatingEntity;
+import com.myrosh.erowlmapper.er.ERRelationship;
+import com.myrosh.erowlmapper.er.ERSchema;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author igorm
+ *
+ * A read-only ER schema stored as arrays instead of one object per element. Every name is
+ * kept once in a string table and referred to by its int id. Entities, relationships,
+ * attributes and participating entities are rows of parallel int arrays and flag bitsets,
+ * and the attributes and participating entities of an element are contiguous ranges of
+ * their arrays. The arrays are held as IntBuffers, so that a schema loaded by
+ * ERSchemaSnapshot reads them in place from the mapped file.
+ *
+ * The elements are handed out as views, subclasses of EREntity, ERRelationship, ERAttribute
+ * and ERParticipatingEntity reading from the arrays, so ERSchema.validate() and EROWLMapper
+ * work on a CompactERSchema as they are. A view is created the first time its element is
+ * accessed and the same view is returned from then on, so views can be compared by
+ * identity. Views print like the elements they stand for, and they and the schema throw
+ * UnsupportedOperationException from every mutator.
+ *
+ */
+public class CompactERSchema extends ERSchema {
+
+    /**
+     * Distinct names
+     */
+    private final StringTable strings;
+
+    /**
+     * Entity name string ids
+     */
+    private final IntBuffer entityNames;
+
+    /**
+     * Weak entities
+     */
+    private final BitSet weakEntities;
+
+    /**
+     * First attribute of every entity
+     */
+    private final IntBuffer entityAttributeStarts;
+
+    /**
+     * End of the attributes of every entity
+     */
+    private final IntBuffer entityAttributeEnds;
+
+    /**
+     * Relationship name string ids
+     */
+    private final IntBuffer relationshipNames;
+
+    /**
+     * Identifying relationships
+     */
+    private final BitSet identifyingRelationships;
+
+    /**
+     * First attribute of every relationship
+     */
+    private final IntBuffer relationshipAttributeStarts;
+
+    /**
+     * End of the attributes of every relationship
+     */
+    private final IntBuffer relationshipAttributeEnds;
+
+    /**
+     * Participating entities of relationship i are offsets[i] to offsets[i + 1]
+     */
+    private final IntBuffer relationshipParticipantOffsets;
+
+    /**
+     * Attribute name string ids
+     */
+    private final IntBuffer attributeNames;
+
+    /**
+     * Key attributes
+     */
+    private final BitSet keyAttributes;
+
+    /**
+     * Composite attributes
+     */
+    private final BitSet compositeAttributes;
+
+    /**
+     * Multivalued attributes
+     */
+    private final BitSet multivaluedAttributes;
+
+    /**
+     * First component attribute of every attribute
+     */
+    private final IntBuffer attributeComponentStarts;
+
+    /**
+     * End of the component attributes of every attribute
+     */
+    private final IntBuffer attributeComponentEnds;
+
+    /**
+     * Participating entity name string ids
+     */
+    private final IntBuffer participantNames;
+
+    /**
+     * Participating entity role string ids
+     */
+    private final IntBuffer participantRoles;
+
+    /**
+     * Participating entity min cardinalities
+     */
+    private final IntBuffer participantMins;
+
+    /**
+     * Participating entity max cardinalities
+     */
+    private final IntBuffer participantMaxes;
+
+    /**
+     * Distinct unique names of entities and participating entities, sorted
+     */
+    private final StringTable indexedNames;
+
+    /**
+     * First entity of every indexed name, -1 if there is none
+     */
+    private final IntBuffer entitiesByName;
+
+    /**
+     * Relationships incident to indexed name i are relationshipsByName[offsets[i]] to
+     * relationshipsByName[offsets[i + 1]]
+     */
+    private final IntBuffer relationshipOffsetsByName;
+
+    /**
+     * Relationships by the unique names of their participating entities
+     */
+    private final IntBuffer relationshipsByName;
+
+    /**
+     * Entity views, created on first access
+     */
+    private final AtomicReferenceArray<EREntity> entityViews;
+
+    /**
+     * Relationship views, created on first access
+     */
+    private final AtomicReferenceArray<ERRelationship> relationshipViews;
+
+    /**
+     * Attribute views, created on first access
+     */
+    private final AtomicReferenceArray<ERAttribute> attributeViews;
+
+    /**
+     * Participating entity views, created on first access
+     */
+    private final AtomicReferenceArray<ERParticipatingEntity> participantViews;
+
+    /**
+     * Copies a schema.
+     *
+     * @param schema
+     */
+    public CompactERSchema(ERSchema schema) {
+        this(newBuilder(schema));
+    }
+
+    private CompactERSchema(Builder builder) {
+        String[] strings = builder.strings.toArray(new String[builder.strings.size()]);
+        int[] entityNames = builder.entityNames.toArray();
+        int[] relationshipNames = builder.relationshipNames.toArray();
+        builder.relationshipParticipantOffsets.add(builder.participantNames.size());
+        int[] relationshipParticipantOffsets = builder.relationshipParticipantOffsets.toArray();
+        int[] participantNames = builder.participantNames.toArray();
+
+        this.strings = new StringTable(strings);
+
+        this.entityNames = IntBuffer.wrap(entityNames);
+        weakEntities = builder.weakEntities;
+        entityAttributeStarts = IntBuffer.wrap(builder.entityAttributeStarts.toArray());
+        entityAttributeEnds = IntBuffer.wrap(builder.entityAttributeEnds.toArray());
+
+        this.relationshipNames = IntBuffer.wrap(relationshipNames);
+        identifyingRelationships = builder.identifyingRelationships;
+        relationshipAttributeStarts = IntBuffer.wrap(builder.relationshipAttributeStarts.toArray());
+        relationshipAttributeEnds = IntBuffer.wrap(builder.relationshipAttributeEnds.toArray());
+        this.relationshipParticipantOffsets = IntBuffer.wrap(relationshipParticipantOffsets);
+
+        attributeNames = IntBuffer.wrap(builder.attributeNames.toArray());
+        keyAttributes = builder.keyAttributes;
+        compositeAttributes = builder.compositeAttributes;
+        multivaluedAttributes = builder.multivaluedAttributes;
+        attributeComponentStarts = IntBuffer.wrap(builder.attributeComponentStarts.toArray());
+        attributeComponentEnds = IntBuffer.wrap(builder.attributeComponentEnds.toArray());
+
+        this.participantNames = IntBuffer.wrap(participantNames);
+        participantRoles = IntBuffer.wrap(builder.participantRoles.toArray());
+        participantMins = IntBuffer.wrap(builder.participantMins.toArray());
+        participantMaxes = IntBuffer.wrap(builder.participantMaxes.toArray());
+
+        TreeSet<String> sortedNames = new TreeSet<String>();
+
+        for (int name : entityNames) {
+            sortedNames.add(CanonicalName.of(strings[name]).getLowerCaseName());
+        }
+
+        for (int name : participantNames) {
+            sortedNames.add(CanonicalName.of(strings[name]).getLowerCaseName());
+        }
+
+        String[] indexedNames = sortedNames.toArray(new String[sortedNames.size()]);
+        int[] entitiesByName = new int[indexedNames.length];
+        Arrays.fill(entitiesByName, -1);
+
+        for (int entity = 0; entity < entityNames.length; entity++) {
+            int name = Arrays.binarySearch(indexedNames,
+                CanonicalName.of(strings[entityNames[entity]]).getLowerCaseName());
+
+            if (entitiesByName[name] == -1) {
+                entitiesByName[name] = entity;
+            }
+        }
+
+        // Counted first, then filled, as a relationship is incident to an entity only once
+        int[] participantIndexedNames = new int[participantNames.length];
+        int[] relationshipOffsetsByName = new int[indexedNames.length + 1];
+        int[] lastRelationships = new int[indexedNames.length];
+        Arrays.fill(lastRelationships, -1);
+
+        for (int relationship = 0; relationship < relationshipNames.length; relationship++) {
+            for (int participant = relationshipParticipantOffsets[relationship];
+                participant < relationshipParticipantOffsets[relationship + 1];
+                participant++
+            ) {
+                int name = Arrays.binarySearch(indexedNames,
+                    CanonicalName.of(strings[participantNames[participant]]).getLowerCaseName());
+                participantIndexedNames[participant] = name;
+
+                if (lastRelationships[name] != relationship) {
+                    lastRelationships[name] = relationship;
+                    relationshipOffsetsByName[name + 1]++;
+                }
+            }
+        }
+
+        for (int i = 0; i < indexedNames.length; i++) {
+            relationshipOffsetsByName[i + 1] += relationshipOffsetsByName[i];
+        }
+
+        int[] relationshipsByName = new int[relationshipOffsetsByName[indexedNames.length]];
+        int[] positions = Arrays.copyOf(relationshipOffsetsByName, indexedNames.length);
+        Arrays.fill(lastRelationships, -1);
+
+        for (int relationship = 0; relationship < relationshipNames.length; relationship++) {
+            for (int participant = relationshipParticipantOffsets[relationship];
+                participant < relationshipParticipantOffsets[relationship + 1];
+                participant++
+            ) {
+                int name = participantIndexedNames[participant];
+
+                if (lastRelationships[name] != relationship) {
+                    lastRelationships[name] = relationship;
+                    relationshipsByName[positions[name]++] = relationship;
+                }
+            }
+        }
+
+        this.indexedNames = new StringTable(indexedNames);
+        this.entitiesByName = IntBuffer.wrap(entitiesByName);
+        this.relationshipOffsetsByName = IntBuffer.wrap(relationshipOffsetsByName);
+        this.relationshipsByName = IntBuffer.wrap(relationshipsByName);
+
+        entityViews = new AtomicReferenceArray<EREntity>(entityNames.length);
+        relationshipViews = new AtomicReferenceArray<ERRelationship>(relationshipNames.length);
+        attributeViews = new AtomicReferenceArray<ERAttribute>(attributeNames.limit());
+        participantViews = new AtomicReferenceArray<ERParticipatingEntity>(participantNames.length);
+    }
+
+    /**
+     * Reads a schema from the sections of a snapshot, in the order written by write(). The
+     * sections are used in place, so nothing but the flag bitsets is copied.
+     *
+     * @param reader
+     */
+    CompactERSchema(SnapshotReader reader) {
+        strings = reader.readStrings();
+
+        entityNames = reader.readInts();
+        weakEntities = reader.readBits();
+        entityAttributeStarts = reader.readInts();
+        entityAttributeEnds = reader.readInts();
+
+        relationshipNames = reader.readInts();
+        identifyingRelationships = reader.readBits();
+        relationshipAttributeStarts = reader.readInts();
+        relationshipAttributeEnds = reader.readInts();
+        relationshipParticipantOffsets = reader.readInts();
+
+        attributeNames = reader.readInts();
+        keyAttributes = reader.readBits();
+        compositeAttributes = reader.readBits();
+        multivaluedAttributes = reader.readBits();
+        attributeComponentStarts = reader.readInts();
+        attributeComponentEnds = reader.readInts();
+
+        participantNames = reader.readInts();
+        participantRoles = reader.readInts();
+        participantMins = reader.readInts();
+        participantMaxes = reader.readInts();
+
+        indexedNames = reader.readStrings();
+        entitiesByName = reader.readInts();
+        relationshipOffsetsByName = reader.readInts();
+        relationshipsByName = reader.readInts();
+
+        entityViews = new AtomicReferenceArray<EREntity>(entityNames.limit());
+        relationshipViews = new AtomicReferenceArray<ERRelationship>(relationshipNames.limit());
+        attributeViews = new AtomicReferenceArray<ERAttribute>(attributeNames.limit());
+        participantViews =
+            new AtomicReferenceArray<ERParticipatingEntity>(participantNames.limit());
+    }
+
+    private static Builder newBuilder(ERSchema schema) {
+        Builder builder = new Builder();
+
+        for (EREntity entity : schema.getEntities()) {
+            builder.addEntity(entity);
+        }
+
+        for (ERRelationship relationship : schema.getRelationships()) {
+            builder.addRelationship(relationship);
+        }
+
+        return builder;
+    }
+
+    /**
+     * @return number of distinct names in the string table
+     */
+    public int getStringCount() {
+        return strings.size();
+    }
+
+    /**
+     * Writes every section, in the order read by CompactERSchema(SnapshotReader).
+     *
+     * @param writer
+     * @throws IOException
+     */
+    void write(SnapshotWriter writer) throws IOException {
+        writer.writeStrings(strings);
+
+        writer.writeInts(entityNames);
+        writer.writeBits(weakEntities);
+        writer.writeInts(entityAttributeStarts);
+        writer.writeInts(entityAttributeEnds);
+
+        writer.writeInts(relationshipNames);
+        writer.writeBits(identifyingRelationships);
+        writer.writeInts(relationshipAttributeStarts);
+        writer.writeInts(relationshipAttributeEnds);
+        writer.writeInts(relationshipParticipantOffsets);
+
+        writer.writeInts(attributeNames);
+        writer.writeBits(keyAttributes);
+        writer.writeBits(compositeAttributes);
+        writer.writeBits(multivaluedAttributes);
+        writer.writeInts(attributeComponentStarts);
+        writer.writeInts(attributeComponentEnds);
+
+        writer.writeInts(participantNames);
+        writer.writeInts(participantRoles);
+        writer.writeInts(participantMins);
+        writer.writeInts(participantMaxes);
+
+        writer.writeStrings(indexedNames);
+        writer.writeInts(entitiesByName);
+        writer.writeInts(relationshipOffsetsByName);
+        writer.writeInts(relationshipsByName);
+    }
+
+    @Override
+    public List<EREntity> getEntities() {
+        return new ViewList<EREntity>(entityNames.limit()) {
+            EREntity getView(int index) {
+                return getEntityView(index);
+            }
+        };
+    }
+
+    @Override
+    public void setEntities(List<EREntity> entities) {
+        throw readOnly();
+    }
+
+    @Override
+    public EREntity getEntity(ERParticipatingEntity participatingEntity) {
+        int name = getIndexedName(participatingEntity.getUniqueName());
+
+        return name < 0 || entitiesByName.get(name) < 0
+            ? null
+            : getEntityView(entitiesByName.get(name));
+    }
+
+    @Override
+    public void addEntity(EREntity entity) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<ERRelationship> getRelationships() {
+        return new ViewList<ERRelationship>(relationshipNames.limit()) {
+            ERRelationship getView(int index) {
+                return getRelationshipView(index);
+            }
+        };
+    }
+
+    @Override
+    public void setRelationships(List<ERRelationship> relationships) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<ERRelationship> getRelationships(EREntity entity) {
+        int name = getIndexedName(entity.getUniqueName());
+
+        if (name < 0) {
+            return new ArrayList<ERRelationship>();
+        }
+
+        final int start = relationshipOffsetsByName.get(name);
+        int end = relationshipOffsetsByName.get(name + 1);
+
+        return new ViewList<ERRelationship>(end - start) {
+            ERRelationship getView(int index) {
+                return getRelationshipView(relationshipsByName.get(start + index));
+            }
+        };
+    }
+
+    @Override
+    public void addRelationship(ERRelationship relationship) {
+        throw readOnly();
+    }
+
+    /**
+     * Names cannot change, so the indexes built on construction stay valid.
+     */
+    @Override
+    public void reindex() {
+    }
+
+    /**
+     * @return the position of a unique name in indexedNames, or a negative value if it is
+     * not there
+     */
+    private int getIndexedName(String uniqueName) {
+        return indexedNames.binarySearch(uniqueName);
+    }
+
+    private EREntity getEntityView(int index) {
+        EREntity view = entityViews.get(index);
+
+        if (view == null) {
+            entityViews.compareAndSet(index, null, new EntityView(index));
+            view = entityViews.get(index);
+        }
+
+        return view;
+    }
+
+    private ERRelationship getRelationshipView(int index) {
+        ERRelationship view = relationshipViews.get(index);
+
+        if (view == null) {
+            relationshipViews.compareAndSet(index, null, new RelationshipView(index));
+            view = relationshipViews.get(index);
+        }
+
+        return view;
+    }
+
+    private ERAttribute getAttributeView(int index) {
+        ERAttribute view = attributeViews.get(index);
+
+        if (view == null) {
+            attributeViews.compareAndSet(index, null, new AttributeView(index));
+            view = attributeViews.get(index);
+        }
+
+        return view;
+    }
+
+    private ERParticipatingEntity getParticipantView(int index) {
+        ERParticipatingEntity view = participantViews.get(index);
+
+        if (view == null) {
+            participantViews.compareAndSet(index, null, new ParticipantView(index));
+            view = participantViews.get(index);
+        }
+
+        return view;
+    }
+
+    private List<ERAttribute> getAttributes(final int start, int end) {
+        return new ViewList<ERAttribute>(end - start) {
+            ERAttribute getView(int index) {
+                return getAttributeView(start + index);
+            }
+        };
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("CompactERSchema is read-only.");
+    }
+
+    /**
+     * An unmodifiable list of views
+     */
+    private abstract static class ViewList<T> extends AbstractList<T> implements RandomAccess {
+
+        private final int size;
+
+        ViewList(int size) {
+            this.size = size;
+        }
+
+        abstract T getView(int index);
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+
+            return getView(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * An entity row
+     */
+    private final class EntityView extends EREntity {
+
+        private final int index;
+
+        EntityView(int index) {
+            super(null);
+            this.index = index;
+        }
+
+        @Override
+        public String getName() {
+            return strings.get(entityNames.get(index));
+        }
+
+        @Override
+        protected CanonicalName getCanonicalName() {
+            return CanonicalName.of(getName());
+        }
+
+        @Override
+        public void setName(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean isWeak() {
+            return weakEntities.get(index);
+        }
+
+        @Override
+        public void setWeak(boolean weak) {
+            throw readOnly();
+        }
+
+        @Override
+        public List<ERAttribute> getAttributes() {
+            return CompactERSchema.this.getAttributes(
+                entityAttributeStarts.get(index), entityAttributeEnds.get(index));
+        }
+
+        @Override
+        public void addAttribute(ERAttribute attribute) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return "EREntity{" + getUniqueName() + "}";
+        }
+    }
+
+    /**
+     * A relationship row
+     */
+    private final class RelationshipView extends ERRelationship {
+
+        private final int index;
+
+        RelationshipView(int index) {
+            super(null, null);
+            this.index = index;
+        }
+
+        @Override
+        public String getName() {
+            return strings.get(relationshipNames.get(index));
+        }
+
+        @Override
+        protected CanonicalName getCanonicalName() {
+            return CanonicalName.of(getName());
+        }
+
+        @Override
+        public void setName(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean isIdentifying() {
+            return identifyingRelationships.get(index);
+        }
+
+        @Override
+        public void setIdentifying(boolean identifying) {
+            throw readOnly();
+        }
+
+        @Override
+        public List<ERAttribute> getAttributes() {
+            return CompactERSchema.this.getAttributes(
+                relationshipAttributeStarts.get(index), relationshipAttributeEnds.get(index));
+        }
+
+        @Override
+        public void addAttribute(ERAttribute attribute) {
+            throw readOnly();
+        }
+
+        @Override
+        public List<ERParticipatingEntity> getParticipatingEntities() {
+            final int start = relationshipParticipantOffsets.get(index);
+
+            return new ViewList<ERParticipatingEntity>(
+                relationshipParticipantOffsets.get(index + 1) - start
+            ) {
+                ERParticipatingEntity getView(int participant) {
+                    return getParticipantView(start + participant);
+                }
+            };
+        }
+
+        @Override
+        public void addParticipatingEntity(ERParticipatingEntity participatingEntity) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return "ERRelationship{" + getUniqueName() + "}";
+        }
+    }
+
+    /**
+     * An attribute row
+     */
+    private final class AttributeView extends ERAttribute {
+
+        private final int index;
+
+        AttributeView(int index) {
+            super(null);
+            this.index = index;
+        }
+
+        @Override
+        public String getName() {
+            return strings.get(attributeNames.get(index));
+        }
+
+        @Override
+        protected CanonicalName getCanonicalName() {
+            return CanonicalName.of(getName());
+        }
+
+        @Override
+        public void setName(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean isKey() {
+            return keyAttributes.get(index);
+        }
+
+        @Override
+        public void setKey(boolean key) {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean isComposite() {
+            return compositeAttributes.get(index);
+        }
+
+        @Override
+        public void setComposite(boolean composite) {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean isMultivalued() {
+            return multivaluedAttributes.get(index);
+        }
+
+        @Override
+        public void setMultivalued(boolean multivalued) {
+            throw readOnly();
+        }
+
+        @Override
+        public List<ERAttribute> getAttributes() {
+            return CompactERSchema.this.getAttributes(
+                attributeComponentStarts.get(index), attributeComponentEnds.get(index));
+        }
+
+        @Override
+        public void addAttribute(ERAttribute attribute) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return "ERAttribute{" + getUniqueName() + "}";
+        }
+    }
+
+    /**
+     * A participating entity row
+     */
+    private final class ParticipantView extends ERParticipatingEntity {
+
+        private final int index;
+
+        ParticipantView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getName() {
+            return strings.get(participantNames.get(index));
+        }
+
+        @Override
+        protected CanonicalName getCanonicalName() {
+            return CanonicalName.of(getName());
+        }
+
+        @Override
+        public void setName(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public String getRole() {
+            return strings.get(participantRoles.get(index));
+        }
+
+        @Override
+        public String getUniqueRole() {
+            return CanonicalName.of(getRole()).getLowerCaseName();
+        }
+
+        @Override
+        public void setRole(String role) {
+            throw readOnly();
+        }
+
+        @Override
+        public int getMin() {
+            return participantMins.get(index);
+        }
+
+        @Override
+        public void setMin(int min) {
+            throw readOnly();
+        }
+
+        @Override
+        public int getMax() {
+            return participantMaxes.get(index);
+        }
+
+        @Override
+        public void setMax(int max) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return "ERParticipatingEntity{" + getUniqueName()
+                + (StringUtils.isBlank(getRole()) ? "" : "/" + getUniqueRole()) + "}";
+        }
+    }
+
+    /**
+     * Appends entities and relationships one at a time, e.g. as StreamingYAMLERParser reads
+     * them, so that a schema can be compacted without holding all of its elements as objects
+     */
+    public static class Builder {
+
+        private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+
+        private final List<String> strings = new ArrayList<String>();
+
+        private final IntList entityNames = new IntList();
+
+        private final BitSet weakEntities = new BitSet();
+
+        private final IntList entityAttributeStarts = new IntList();
+
+        private final IntList entityAttributeEnds = new IntList();
+
+        private final IntList relationshipNames = new IntList();
+
+        private final BitSet identifyingRelationships = new BitSet();
+
+        private final IntList relationshipAttributeStarts = new IntList();
+
+        private final IntList relationshipAttributeEnds = new IntList();
+
+        private final IntList relationshipParticipantOffsets = new IntList();
+
+        private final IntList attributeNames = new IntList();
+
+        private final BitSet keyAttributes = new BitSet();
+
+        private final BitSet compositeAttributes = new BitSet();
+
+        private final BitSet multivaluedAttributes = new BitSet();
+
+        private final IntList attributeComponentStarts = new IntList();
+
+        private final IntList attributeComponentEnds = new IntList();
+
+        private final IntList participantNames = new IntList();
+
+        private final IntList participantRoles = new IntList();
+
+        private final IntList participantMins = new IntList();
+
+        private final IntList participantMaxes = new IntList();
+
+        /**
+         * Whether build() was called
+         */
+        private boolean built = false;
+
+        /**
+         * @param entity
+         */
+        public void addEntity(EREntity entity) {
+            checkNotBuilt();
+
+            if (entity.isWeak()) {
+                weakEntities.set(entityNames.size());
+            }
+
+            entityNames.add(getStringId(entity.getName()));
+            entityAttributeStarts.add(attributeNames.size());
+            entityAttributeEnds.add(attributeNames.size() + entity.getAttributes().size());
+            addAttributes(entity.getAttributes());
+        }
+
+        /**
+         * @param relationship
+         */
+        public void addRelationship(ERRelationship relationship) {
+            checkNotBuilt();
+
+            if (relationship.isIdentifying()) {
+                identifyingRelationships.set(relationshipNames.size());
+            }
+
+            relationshipNames.add(getStringId(relationship.getName()));
+            relationshipAttributeStarts.add(attributeNames.size());
+            relationshipAttributeEnds.add(attributeNames.size()
+                + relationship.getAttributes().size());
+            addAttributes(relationship.getAttributes());
+            relationshipParticipantOffsets.add(participantNames.size());
+
+            for (ERParticipatingEntity participatingEntity
+                : relationship.getParticipatingEntities()
+            ) {
+                participantNames.add(getStringId(participatingEntity.getName()));
+                participantRoles.add(getStringId(participatingEntity.getRole()));
+                participantMins.add(participatingEntity.getMin());
+                participantMaxes.add(participatingEntity.getMax());
+            }
+        }
+
+        /**
+         * @return
+         */
+        public CompactERSchema build() {
+            checkNotBuilt();
+            built = true;
+
+            return new CompactERSchema(this);
+        }
+
+        /**
+         * Appends the attributes of an element breadth first: the element's attributes
+         * first, then the components of each of them in order, and so on, so that the
+         * components of every attribute are a contiguous range.
+         */
+        private void addAttributes(List<ERAttribute> attributes) {
+            List<ERAttribute> queue = new ArrayList<ERAttribute>(attributes);
+
+            for (ERAttribute attribute : attributes) {
+                addAttribute(attribute);
+            }
+
+            for (int i = 0; i < queue.size(); i++) {
+                attributeComponentStarts.add(attributeNames.size());
+                attributeComponentEnds.add(attributeNames.size()
+                    + queue.get(i).getAttributes().size());
+
+                for (ERAttribute componentAttribute : queue.get(i).getAttributes()) {
+                    addAttribute(componentAttribute);
+                    queue.add(componentAttribute);
+                }
+            }
+        }
+
+        private void addAttribute(ERAttribute attribute) {
+            int index = attributeNames.size();
+            keyAttributes.set(index, attribute.isKey());
+            compositeAttributes.set(index, attribute.isComposite());
+            multivaluedAttributes.set(index, attribute.isMultivalued());
+            attributeNames.add(getStringId(attribute.getName()));
+        }
+
+        private int getStringId(String string) {
+            Integer id = stringIds.get(string);
+
+            if (id == null) {
+                id = strings.size();
+                stringIds.put(string, id);
+                strings.add(string);
+            }
+
+            return id;
+        }
+
+        private void checkNotBuilt() {
+            if (built) {
+                throw new IllegalStateException("The schema has already been built.");
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.myrosh.erowlmapper.er.compact;
+
+import com.myrosh.erowlmapper.er.ERException;
+import com.myrosh.erowlmapper.er.ERSchema;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * @author igorm
+ *
+ * A binary snapshot of a validated ER schema, which loads in milliseconds where parsing the
+ * YAML takes seconds.
+ *
+ * A snapshot is a 32 byte header (magic, format version, payload length and the CRC32 of
+ * the payload) followed by the sections of a CompactERSchema: the string table as UTF-8
+ * bytes with an offset array, the element columns as big-endian ints and the flags as
+ * bitsets. load() maps the file and reads the columns in place, so elements are only
+ * decoded as they are accessed. The mapping is released when the schema is garbage
+ * collected.
+ *
+ */
+public final class ERSchemaSnapshot {
+
+    /**
+     * "EROWLSNP"
+     */
+    public static final long MAGIC = 0x45524F574C534E50L;
+
+    /**
+     * Format version, incremented on every incompatible change
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Header size in bytes
+     */
+    private static final int HEADER_SIZE = 32;
+
+    private ERSchemaSnapshot() {
+    }
+
+    /**
+     * Validates a schema and writes its snapshot. The file is replaced atomically.
+     *
+     * @param schema
+     * @param path
+     * @throws IOException
+     * @throws ERException if the schema is not valid
+     */
+    public static void write(ERSchema schema, Path path) throws IOException, ERException {
+        schema.validate();
+
+        CompactERSchema compactSchema = schema instanceof CompactERSchema
+            ? (CompactERSchema) schema : new CompactERSchema(schema);
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporaryPath = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_SIZE);
+
+                CRC32 checksum = new CRC32();
+                SnapshotWriter writer = new SnapshotWriter(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16),
+                    checksum));
+                compactSchema.write(writer);
+                writer.flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putLong(MAGIC);
+                header.putInt(VERSION);
+                header.putInt(0);
+                header.putLong(writer.getPosition());
+                header.putLong(checksum.getValue());
+                header.flip();
+
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            }
+
+            Files.move(temporaryPath, path,
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Maps a snapshot after verifying its header and checksum.
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     * @throws ERException if the file is not a snapshot of this version or is corrupted
+     */
+    public static CompactERSchema load(Path path) throws IOException, ERException {
+        return load(path, true);
+    }
+
+    /**
+     * Maps a snapshot. Verifying the checksum reads the whole file; without it only the
+     * pages holding accessed elements are read.
+     *
+     * @param path
+     * @param verifyChecksum
+     * @return
+     * @throws IOException
+     * @throws ERException if the file is not a snapshot of this version or is corrupted
+     */
+    public static CompactERSchema load(Path path, boolean verifyChecksum)
+        throws IOException, ERException {
+        MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new ERException(path + " is not a schema snapshot.");
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getLong() != MAGIC) {
+            throw new ERException(path + " is not a schema snapshot.");
+        }
+
+        int version = buffer.getInt();
+
+        if (version != VERSION) {
+            throw new ERException(path + " is a version " + version
+                + " schema snapshot, version " + VERSION + " is supported.");
+        }
+
+        buffer.getInt();
+        long payloadLength = buffer.getLong();
+        long expectedChecksum = buffer.getLong();
+
+        if (payloadLength != buffer.remaining()) {
+            throw new ERException("Schema snapshot " + path + " is truncated.");
+        }
+
+        ByteBuffer payload = buffer.slice();
+
+        if (verifyChecksum) {
+            CRC32 checksum = new CRC32();
+            checksum.update(payload.duplicate());
+
+            if (checksum.getValue() != expectedChecksum) {
+                throw new ERException("Schema snapshot " + path + " is corrupted.");
+            }
+        }
+
+        return new CompactERSchema(new SnapshotReader(payload));
+    }
+
+    /**
+     * @param path
+     * @return whether the file starts with the snapshot magic number
+     * @throws IOException
+     */
+    public static boolean isSnapshot(Path path) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(8);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (magic.hasRemaining() && channel.read(magic) != -1) {
+            }
+        }
+
+        return !magic.hasRemaining() && magic.getLong(0) == MAGIC;
+    }
+}
@@ -0,0 +1,47 @@
+package com.myrosh.erowlmapper.er.compact;
+
+import java.util.Arrays;
+
+/**
+ * @author igorm
+ *
+ * A growable array of primitive ints
+ *
+ */
+class IntList {
+
+    /**
+     * Values
+     */
+    private int[] values = new int[16];
+
+    /**
+     * Number of values
+     */
+    private int size = 0;
+
+    /**
+     * @param value
+     */
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        values[size++] = value;
+    }
+
+    /**
+     * @return
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the values, trimmed to size
+     */
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,72 @@
+package com.myrosh.erowlmapper.er.compact;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.BitSet;
+
+/**
+ * @author igorm
+ *
+ * Reads the sections written by SnapshotWriter. Int and string sections are returned as
+ * views of the underlying buffer rather than copied.
+ *
+ */
+class SnapshotReader {
+
+    /**
+     * Big-endian snapshot content, positioned at the next section
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * @param buffer
+     */
+    SnapshotReader(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    /**
+     * @return
+     */
+    IntBuffer readInts() {
+        return readSection(4 * readLength()).asIntBuffer();
+    }
+
+    /**
+     * @return
+     */
+    BitSet readBits() {
+        return BitSet.valueOf(readSection(8 * readLength()).asLongBuffer());
+    }
+
+    /**
+     * @return
+     */
+    StringTable readStrings() {
+        int nullId = buffer.getInt();
+        IntBuffer offsets = readInts();
+        ByteBuffer bytes = readSection(readLength());
+        align();
+
+        return new StringTable(bytes, offsets, nullId);
+    }
+
+    private int readLength() {
+        int length = buffer.getInt();
+        align();
+
+        return length;
+    }
+
+    private ByteBuffer readSection(int size) {
+        ByteBuffer section = buffer.slice();
+        section.limit(size);
+        buffer.position(buffer.position() + size);
+
+        return section;
+    }
+
+    private void align() {
+        buffer.position((buffer.position() + 7) & ~7);
+    }
+}
@@ -0,0 +1,119 @@
+package com.myrosh.erowlmapper.er.compact;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * @author igorm
+ *
+ * Writes the sections of a schema snapshot. Every section starts with its length and its
+ * content is aligned to 8 bytes, so that SnapshotReader can view it in place.
+ *
+ */
+class SnapshotWriter {
+
+    /**
+     * Big-endian output
+     */
+    private final DataOutputStream output;
+
+    /**
+     * Bytes written
+     */
+    private long position = 0;
+
+    /**
+     * @param output
+     */
+    SnapshotWriter(OutputStream output) {
+        this.output = new DataOutputStream(output);
+    }
+
+    /**
+     * @return bytes written
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * @param ints
+     * @throws IOException
+     */
+    void writeInts(IntBuffer ints) throws IOException {
+        writeLength(ints.limit());
+
+        for (int i = 0; i < ints.limit(); i++) {
+            output.writeInt(ints.get(i));
+        }
+
+        position += 4L * ints.limit();
+    }
+
+    /**
+     * @param bits
+     * @throws IOException
+     */
+    void writeBits(BitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        writeLength(words.length);
+
+        for (long word : words) {
+            output.writeLong(word);
+        }
+
+        position += 8L * words.length;
+    }
+
+    /**
+     * @param strings
+     * @throws IOException
+     */
+    void writeStrings(StringTable strings) throws IOException {
+        byte[][] encodedStrings = new byte[strings.size()][];
+        int[] offsets = new int[strings.size() + 1];
+
+        for (int i = 0; i < strings.size(); i++) {
+            String string = strings.get(i);
+            encodedStrings[i] = string == null
+                ? new byte[0] : string.getBytes(StandardCharsets.UTF_8);
+            offsets[i + 1] = offsets[i] + encodedStrings[i].length;
+        }
+
+        output.writeInt(strings.getNullId());
+        position += 4;
+        writeInts(IntBuffer.wrap(offsets));
+        writeLength(offsets[strings.size()]);
+
+        for (byte[] encodedString : encodedStrings) {
+            output.write(encodedString);
+        }
+
+        position += offsets[strings.size()];
+        align();
+    }
+
+    /**
+     * @throws IOException
+     */
+    void flush() throws IOException {
+        output.flush();
+    }
+
+    private void writeLength(int length) throws IOException {
+        output.writeInt(length);
+        position += 4;
+        align();
+    }
+
+    private void align() throws IOException {
+        while (position % 8 != 0) {
+            output.writeByte(0);
+            position++;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.myrosh.erowlmapper.er.compact;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author igorm
+ *
+ * Strings by int id. A table is either built from strings or read from UTF-8 bytes and an
+ * offset array, in which case every string is decoded the first time it is asked for.
+ *
+ */
+final class StringTable {
+
+    /**
+     * Strings, null where not decoded yet
+     */
+    private final AtomicReferenceArray<String> strings;
+
+    /**
+     * UTF-8 bytes of all strings, null if every string is present
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * Bytes of string i are offsets[i] to offsets[i + 1]
+     */
+    private final IntBuffer offsets;
+
+    /**
+     * Id of the null string, -1 if there is none
+     */
+    private final int nullId;
+
+    /**
+     * @param strings may contain one null
+     */
+    StringTable(String[] strings) {
+        this.strings = new AtomicReferenceArray<String>(strings);
+        this.bytes = null;
+        this.offsets = null;
+
+        int nullId = -1;
+
+        for (int i = 0; i < strings.length; i++) {
+            if (strings[i] == null) {
+                nullId = i;
+            }
+        }
+
+        this.nullId = nullId;
+    }
+
+    /**
+     * @param bytes
+     * @param offsets
+     * @param nullId
+     */
+    StringTable(ByteBuffer bytes, IntBuffer offsets, int nullId) {
+        this.strings = new AtomicReferenceArray<String>(offsets.limit() - 1);
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.nullId = nullId;
+    }
+
+    /**
+     * @return
+     */
+    int size() {
+        return strings.length();
+    }
+
+    /**
+     * @return
+     */
+    int getNullId() {
+        return nullId;
+    }
+
+    /**
+     * @param id
+     * @return
+     */
+    String get(int id) {
+        String string = strings.get(id);
+
+        if (string == null && bytes != null && id != nullId) {
+            byte[] buffer = new byte[offsets.get(id + 1) - offsets.get(id)];
+            ByteBuffer source = bytes.duplicate();
+            source.position(offsets.get(id));
+            source.get(buffer);
+
+            // Losing a race only decodes the string twice
+            string = new String(buffer, StandardCharsets.UTF_8);
+            strings.compareAndSet(id, null, string);
+            string = strings.get(id);
+        }
+
+        return string;
+    }
+
+    /**
+     * Searches a table sorted in natural order.
+     *
+     * @param key
+     * @return as Arrays.binarySearch
+     */
+    int binarySearch(String key) {
+        int low = 0;
+        int high = size() - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = get(middle).compareTo(key);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,383 @@
+package com.myrosh.erowlmapper.er.generator;
+
+import com.myrosh.erowlmapper.er.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author igorm
+ *
+ * A seeded, deterministic generator of synthetic ER schemas. Every generated schema passes
+ * ERSchema.validate() and maps without name collisions, so it can be fed straight to
+ * EROWLMapper for scale and stress testing.
+ *
+ */
+public class ERSchemaGenerator {
+
+    /**
+     * Random seed
+     */
+    private long seed = 0;
+
+    /**
+     * Number of entities
+     */
+    private int entityCount = 10;
+
+    /**
+     * Share of entities which are weak
+     */
+    private double weakEntityRatio = 0.1;
+
+    /**
+     * Number of attributes per entity, including the key attribute
+     */
+    private int attributesPerEntity = 3;
+
+    /**
+     * Share of attributes which are composite
+     */
+    private double compositeAttributeRatio = 0.1;
+
+    /**
+     * Share of non-key attributes which are multivalued
+     */
+    private double multivaluedAttributeRatio = 0.1;
+
+    /**
+     * Number of component attributes per composite attribute
+     */
+    private int componentsPerCompositeAttribute = 2;
+
+    /**
+     * Number of non-identifying relationships per entity
+     */
+    private double relationshipRatio = 1.0;
+
+    /**
+     * Share of non-identifying relationships which are ternary
+     */
+    private double ternaryRelationshipRatio = 0.2;
+
+    /**
+     * Share of non-identifying relationships which have attributes
+     */
+    private double relationshipWithAttributesRatio = 0.2;
+
+    /**
+     * Number of attributes per relationship with attributes
+     */
+    private int attributesPerRelationship = 1;
+
+    /**
+     * Share of participating entities with a min or max cardinality constraint
+     */
+    private double cardinalityConstraintRatio = 0.3;
+
+    /**
+     * @return
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return
+     */
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    /**
+     * @param entityCount
+     */
+    public void setEntityCount(int entityCount) {
+        this.entityCount = entityCount;
+    }
+
+    /**
+     * @return
+     */
+    public double getWeakEntityRatio() {
+        return weakEntityRatio;
+    }
+
+    /**
+     * @param weakEntityRatio
+     */
+    public void setWeakEntityRatio(double weakEntityRatio) {
+        this.weakEntityRatio = weakEntityRatio;
+    }
+
+    /**
+     * @return
+     */
+    public int getAttributesPerEntity() {
+        return attributesPerEntity;
+    }
+
+    /**
+     * @param attributesPerEntity
+     */
+    public void setAttributesPerEntity(int attributesPerEntity) {
+        this.attributesPerEntity = attributesPerEntity;
+    }
+
+    /**
+     * @return
+     */
+    public double getCompositeAttributeRatio() {
+        return compositeAttributeRatio;
+    }
+
+    /**
+     * @param compositeAttributeRatio
+     */
+    public void setCompositeAttributeRatio(double compositeAttributeRatio) {
+        this.compositeAttributeRatio = compositeAttributeRatio;
+    }
+
+    /**
+     * @return
+     */
+    public double getMultivaluedAttributeRatio() {
+        return multivaluedAttributeRatio;
+    }
+
+    /**
+     * @param multivaluedAttributeRatio
+     */
+    public void setMultivaluedAttributeRatio(double multivaluedAttributeRatio) {
+        this.multivaluedAttributeRatio = multivaluedAttributeRatio;
+    }
+
+    /**
+     * @return
+     */
+    public int getComponentsPerCompositeAttribute() {
+        return componentsPerCompositeAttribute;
+    }
+
+    /**
+     * @param componentsPerCompositeAttribute
+     */
+    public void setComponentsPerCompositeAttribute(int componentsPerCompositeAttribute) {
+        this.componentsPerCompositeAttribute = componentsPerCompositeAttribute;
+    }
+
+    /**
+     * @return
+     */
+    public double getRelationshipRatio() {
+        return relationshipRatio;
+    }
+
+    /**
+     * @param relationshipRatio
+     */
+    public void setRelationshipRatio(double relationshipRatio) {
+        this.relationshipRatio = relationshipRatio;
+    }
+
+    /**
+     * @return
+     */
+    public double getTernaryRelationshipRatio() {
+        return ternaryRelationshipRatio;
+    }
+
+    /**
+     * @param ternaryRelationshipRatio
+     */
+    public void setTernaryRelationshipRatio(double ternaryRelationshipRatio) {
+        this.ternaryRelationshipRatio = ternaryRelationshipRatio;
+    }
+
+    /**
+     * @return
+     */
+    public double getRelationshipWithAttributesRatio() {
+        return relationshipWithAttributesRatio;
+    }
+
+    /**
+     * @param relationshipWithAttributesRatio
+     */
+    public void setRelationshipWithAttributesRatio(double relationshipWithAttributesRatio) {
+        this.relationshipWithAttributesRatio = relationshipWithAttributesRatio;
+    }
+
+    /**
+     * @return
+     */
+    public int getAttributesPerRelationship() {
+        return attributesPerRelationship;
+    }
+
+    /**
+     * @param attributesPerRelationship
+     */
+    public void setAttributesPerRelationship(int attributesPerRelationship) {
+        this.attributesPerRelationship = attributesPerRelationship;
+    }
+
+    /**
+     * @return
+     */
+    public double getCardinalityConstraintRatio() {
+        return cardinalityConstraintRatio;
+    }
+
+    /**
+     * @param cardinalityConstraintRatio
+     */
+    public void setCardinalityConstraintRatio(double cardinalityConstraintRatio) {
+        this.cardinalityConstraintRatio = cardinalityConstraintRatio;
+    }
+
+    /**
+     * Generates a schema. Calls with the same settings always produce the same schema.
+     *
+     * Names follow fixed patterns (EntityN, eNaM, RelationshipN, role rNpM) so that the
+     * OWL names derived from them never collide.
+     *
+     * @return
+     */
+    public ERSchema generate() {
+        Random random = new Random(seed);
+        ERSchema schema = new ERSchema();
+
+        List<EREntity> strongEntities = new ArrayList<EREntity>();
+        List<EREntity> weakEntities = new ArrayList<EREntity>();
+
+        // At least one strong entity is needed to own the weak ones
+        int weakEntityCount = Math.min(
+            (int)Math.round(entityCount * weakEntityRatio),
+            Math.max(entityCount - 1, 0)
+        );
+
+        for (int i = 0; i < entityCount; i++) {
+            EREntity entity = new EREntity();
+            entity.setName("Entity" + i);
+            entity.setWeak(i >= entityCount - weakEntityCount);
+
+            for (int j = 0; j < attributesPerEntity; j++) {
+                entity.addAttribute(generateAttribute(random, "e" + i + "a" + j, j == 0));
+            }
+
+            schema.addEntity(entity);
+            (entity.isWeak() ? weakEntities : strongEntities).add(entity);
+        }
+
+        int relationshipIndex = 0;
+
+        for (EREntity weakEntity : weakEntities) {
+            EREntity ownerEntity = strongEntities.get(random.nextInt(strongEntities.size()));
+
+            ERRelationship relationship = new ERRelationship();
+            relationship.setName("Relationship" + relationshipIndex);
+            relationship.setIdentifying(true);
+            relationship.addParticipatingEntity(
+                generateParticipatingEntity(random, ownerEntity, relationshipIndex, 0));
+            relationship.addParticipatingEntity(
+                generateParticipatingEntity(random, weakEntity, relationshipIndex, 1));
+
+            schema.addRelationship(relationship);
+            relationshipIndex++;
+        }
+
+        int relationshipCount = entityCount < 2 ? 0 : (int)Math.round(entityCount * relationshipRatio);
+        List<EREntity> entities = schema.getEntities();
+
+        for (int i = 0; i < relationshipCount; i++) {
+            int degree = entityCount >= 3 && random.nextDouble() < ternaryRelationshipRatio ? 3 : 2;
+
+            ERRelationship relationship = new ERRelationship();
+            relationship.setName("Relationship" + relationshipIndex);
+
+            for (EREntity entity : pickDistinct(random, entities, degree)) {
+                relationship.addParticipatingEntity(
+                    generateParticipatingEntity(random, entity, relationshipIndex,
+                        relationship.getParticipatingEntities().size()));
+            }
+
+            if (random.nextDouble() < relationshipWithAttributesRatio) {
+                for (int j = 0; j < attributesPerRelationship; j++) {
+                    ERAttribute attribute = new ERAttribute();
+                    attribute.setName("r" + relationshipIndex + "a" + j);
+                    attribute.setMultivalued(random.nextDouble() < multivaluedAttributeRatio);
+
+                    relationship.addAttribute(attribute);
+                }
+            }
+
+            schema.addRelationship(relationship);
+            relationshipIndex++;
+        }
+
+        return schema;
+    }
+
+    private ERAttribute generateAttribute(Random random, String name, boolean key) {
+        ERAttribute attribute = new ERAttribute();
+        attribute.setName(name);
+        attribute.setKey(key);
+        attribute.setComposite(random.nextDouble() < compositeAttributeRatio);
+        attribute.setMultivalued(!key && random.nextDouble() < multivaluedAttributeRatio);
+
+        if (attribute.isComposite()) {
+            for (int i = 0; i < componentsPerCompositeAttribute; i++) {
+                ERAttribute componentAttribute = new ERAttribute();
+                componentAttribute.setName(name + "c" + i);
+
+                attribute.addAttribute(componentAttribute);
+            }
+        }
+
+        return attribute;
+    }
+
+    private ERParticipatingEntity generateParticipatingEntity(
+        Random random,
+        EREntity entity,
+        int relationshipIndex,
+        int position
+    ) {
+        ERParticipatingEntity participatingEntity = new ERParticipatingEntity();
+        participatingEntity.setName(entity.getName());
+        participatingEntity.setRole("r" + relationshipIndex + "p" + position);
+
+        if (random.nextDouble() < cardinalityConstraintRatio) {
+            if (random.nextBoolean()) {
+                participatingEntity.setMin(1);
+            } else {
+                participatingEntity.setMax(1);
+            }
+        }
+
+        return participatingEntity;
+    }
+
+    private List<EREntity> pickDistinct(Random random, List<EREntity> entities, int count) {
+        List<EREntity> picked = new ArrayList<EREntity>(count);
+
+        while (picked.size() < count) {
+            EREntity entity = entities.get(random.nextInt(entities.size()));
+
+            if (!picked.contains(entity)) {
+                picked.add(entity);
+            }
+        }
+
+        return picked;
+    }
+}
@@ -0,0 +1,141 @@
+package com.myrosh.erowlmapper.er.parser;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERParser;
+import com.myrosh.erowlmapper.er.ERRelationship;
+import com.myrosh.erowlmapper.er.ERSchema;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * @author igorm
+ *
+ * A streaming YAML ER parser implementation. The document is read token by token and only
+ * one entity or relationship is bound at a time, so memory use is bounded by the largest
+ * element rather than by the whole document. Like YAMLERParser, instances share prebuilt
+ * readers and are safe to use from several threads.
+ *
+ */
+public class StreamingYAMLERParser implements ERParser {
+
+    /**
+     * Receives ER elements in document order as they are parsed
+     */
+    public interface Handler {
+
+        /**
+         * @param entity
+         * @throws Exception
+         */
+        void handleEntity(EREntity entity) throws Exception;
+
+        /**
+         * @param relationship
+         * @throws Exception
+         */
+        void handleRelationship(ERRelationship relationship) throws Exception;
+    }
+
+    /**
+     * Shared YAML factory
+     */
+    private static final YAMLFactory FACTORY = new YAMLFactory();
+
+    /**
+     * Shared entity reader
+     */
+    private static final ObjectReader ENTITY_READER =
+        new ObjectMapper(FACTORY).readerFor(EREntity.class);
+
+    /**
+     * Shared relationship reader
+     */
+    private static final ObjectReader RELATIONSHIP_READER =
+        new ObjectMapper(FACTORY).readerFor(ERRelationship.class);
+
+    /* (non-Javadoc)
+     * @see com.myrosh.erowlmapper.er.ERParser#parse(java.io.Reader)
+     */
+    public ERSchema parse(Reader reader) throws Exception {
+        final ERSchema schema = new ERSchema();
+
+        parse(reader, new Handler() {
+            public void handleEntity(EREntity entity) {
+                schema.addEntity(entity);
+            }
+
+            public void handleRelationship(ERRelationship relationship) {
+                schema.addRelationship(relationship);
+            }
+        });
+
+        return schema;
+    }
+
+    /**
+     * Parses the document and hands every entity and relationship to the handler as soon
+     * as it is complete. Documents YAMLERParser rejects are rejected as well, although the
+     * handler may already have received the elements before the offending token.
+     *
+     * @param reader
+     * @param handler
+     * @throws JsonParseException if the document has an unknown field, a field that is not
+     * a sequence of mappings, or does not end with its mapping
+     * @throws Exception
+     */
+    public void parse(Reader reader, Handler handler) throws Exception {
+        JsonParser parser = FACTORY.createParser(reader);
+
+        try {
+            JsonToken token = parser.nextToken();
+
+            if (token == null) {
+                throw new IOException("No content to map due to end-of-input.");
+            }
+
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("An ER schema document must be a mapping.");
+            }
+
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+
+                if (!fieldName.equals("entities") && !fieldName.equals("relationships")) {
+                    throw new JsonParseException(parser, "Unknown field " + fieldName + ".");
+                }
+
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new JsonParseException(parser, "Field " + fieldName
+                        + " must be a sequence.");
+                }
+
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new JsonParseException(parser, "Every item of " + fieldName
+                            + " must be a mapping.");
+                    }
+
+                    if (fieldName.equals("entities")) {
+                        handler.handleEntity(ENTITY_READER.<EREntity>readValue(parser));
+                    } else {
+                        handler.handleRelationship(
+                            RELATIONSHIP_READER.<ERRelationship>readValue(parser));
+                    }
+                }
+            }
+
+            if (token != JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "An ER schema document must be a mapping.");
+            }
+        } finally {
+            parser.close();
+        }
+    }
+}
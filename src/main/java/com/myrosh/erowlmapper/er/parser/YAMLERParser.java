@@ -1,25 +1,84 @@
 package com.myrosh.erowlmapper.er.parser;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.myrosh.erowlmapper.er.ERException;
 import com.myrosh.erowlmapper.er.ERSchema;
 import com.myrosh.erowlmapper.er.ERParser;
+import com.myrosh.erowlmapper.metrics.CountingReader;
+import com.myrosh.erowlmapper.metrics.MappingMetrics;
+import com.myrosh.erowlmapper.metrics.MappingPhase;
+import com.myrosh.erowlmapper.metrics.PhaseRun;
 
 import java.io.Reader;
 
 /**
  * @author igorm
  *
- * A concrete YAML ER parser implementation
+ * A concrete YAML ER parser implementation. Parsers share one prebuilt, immutable
+ * ObjectReader, so instances are cheap and safe to use from several threads.
  *
  */
 public class YAMLERParser implements ERParser {
 
+    /**
+     * Shared reader using reflection-based deserializers
+     */
+    private static final ObjectReader READER = createReader(false);
+
+    /**
+     * Schema reader
+     */
+    private final ObjectReader reader;
+
+    public YAMLERParser() {
+        this(false);
+    }
+
+    /**
+     * @param bytecodeGeneration use deserializers generated at runtime by Afterburner
+     *                           instead of reflection
+     */
+    public YAMLERParser(boolean bytecodeGeneration) {
+        reader = bytecodeGeneration ? AfterburnerReaderHolder.READER : READER;
+    }
+
     /* (non-Javadoc)
      * @see com.myrosh.erowlmapper.er.ERParser#parse(java.io.Reader)
      */
     public ERSchema parse(Reader reader) throws Exception {
+        PhaseRun run = MappingMetrics.getInstance().start(MappingPhase.PARSE);
+        CountingReader countingReader = new CountingReader(reader);
+        ERSchema schema = this.reader.readValue(countingReader);
+
+        // An empty document, such as --- or ~, reads as null
+        if (schema == null) {
+            throw new ERException("The schema document is empty.");
+        }
+
+        run.end(schema.getEntities().size() + schema.getRelationships().size(), 0,
+            countingReader.getCount());
+
+        return schema;
+    }
+
+    private static ObjectReader createReader(boolean bytecodeGeneration) {
         ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        return mapper.readValue(reader, ERSchema.class);
+
+        if (bytecodeGeneration) {
+            mapper.registerModule(new AfterburnerModule());
+        }
+
+        return mapper.readerFor(ERSchema.class);
+    }
+
+    /**
+     * Creates the Afterburner reader on first use only
+     */
+    private static class AfterburnerReaderHolder {
+
+        private static final ObjectReader READER = createReader(true);
     }
 }
@@ -0,0 +1,393 @@
+package com.myrosh.erowlmapper.er.validator;
+
+import com.myrosh.erowlmapper.er.ERAttribute;
+import com.myrosh.erowlmapper.er.ERElement;
+import com.myrosh.erowlmapper.er.ERElementWithAttributes;
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERParticipatingEntity;
+import com.myrosh.erowlmapper.er.ERRelationship;
+import com.myrosh.erowlmapper.er.ERSchema;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * @author igorm
+ *
+ * Checks an ER schema for inconsistencies and reports all of them. Duplicates are found in
+ * one sequential pass over hash sets. Every other rule only looks at a single element and the
+ * schema indexes, so those checks can run in parallel on a ForkJoinPool. Violations are
+ * reported in the same order either way.
+ *
+ */
+public class ERSchemaValidator {
+
+    /**
+     * Smallest number of elements checked by one task
+     */
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    /**
+     * Pool for parallel checks, null to check sequentially
+     */
+    private final ForkJoinPool pool;
+
+    public ERSchemaValidator() {
+        this(null);
+    }
+
+    /**
+     * @param pool pool to check elements on, or null to check them sequentially
+     */
+    public ERSchemaValidator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param schema
+     * @return
+     */
+    public ERValidationReport validate(ERSchema schema) {
+        Validation validation = new Validation(schema);
+        List<ERViolation> violations = new ArrayList<ERViolation>();
+
+        violations.addAll(check(schema.getEntities(), new ElementCheck<EREntity>() {
+            void check(EREntity entity, Validation validation, List<ERViolation> violations) {
+                validation.checkEntity(entity, violations);
+            }
+        }, validation));
+
+        violations.addAll(check(schema.getRelationships(), new ElementCheck<ERRelationship>() {
+            void check(
+                ERRelationship relationship,
+                Validation validation,
+                List<ERViolation> violations
+            ) {
+                validation.checkRelationship(relationship, violations);
+            }
+        }, validation));
+
+        violations.addAll(check(schema.getWeakEntities(), new ElementCheck<EREntity>() {
+            void check(EREntity weakEntity, Validation validation, List<ERViolation> violations) {
+                validation.checkWeakEntity(weakEntity, violations);
+            }
+        }, validation));
+
+        violations.addAll(check(validation.elementsWithAttributes,
+            new ElementCheck<ERElementWithAttributes>() {
+                void check(
+                    ERElementWithAttributes element,
+                    Validation validation,
+                    List<ERViolation> violations
+                ) {
+                    validation.checkAttributes(element, violations);
+                }
+            }, validation));
+
+        return new ERValidationReport(violations);
+    }
+
+    private <T> List<ERViolation> check(
+        final List<T> elements,
+        final ElementCheck<T> check,
+        final Validation validation
+    ) {
+        List<ERViolation> violations = new ArrayList<ERViolation>();
+
+        if (pool == null || elements.size() < 2 * MIN_CHUNK_SIZE) {
+            for (T element : elements) {
+                check.check(element, validation, violations);
+            }
+
+            return violations;
+        }
+
+        int chunkSize = Math.max(MIN_CHUNK_SIZE,
+            (elements.size() + pool.getParallelism() * 4 - 1) / (pool.getParallelism() * 4));
+        List<Callable<List<ERViolation>>> tasks = new ArrayList<Callable<List<ERViolation>>>();
+
+        for (int start = 0; start < elements.size(); start += chunkSize) {
+            final List<T> chunk =
+                elements.subList(start, Math.min(elements.size(), start + chunkSize));
+
+            tasks.add(new Callable<List<ERViolation>>() {
+                public List<ERViolation> call() {
+                    List<ERViolation> chunkViolations = new ArrayList<ERViolation>();
+
+                    for (T element : chunk) {
+                        check.check(element, validation, chunkViolations);
+                    }
+
+                    return chunkViolations;
+                }
+            });
+        }
+
+        for (Future<List<ERViolation>> result : pool.invokeAll(tasks)) {
+            try {
+                violations.addAll(result.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while validating.", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        return violations;
+    }
+
+    /**
+     * A check of a single element
+     */
+    private abstract static class ElementCheck<T> {
+
+        abstract void check(T element, Validation validation, List<ERViolation> violations);
+    }
+
+    /**
+     * Read-only state of one validation: the duplicate elements and the entities by unique
+     * name, both built before any element is checked
+     */
+    private static class Validation {
+
+        private final ERSchema schema;
+
+        private final List<ERElementWithAttributes> elementsWithAttributes =
+            new ArrayList<ERElementWithAttributes>();
+
+        private final Set<ERElement> duplicates =
+            Collections.newSetFromMap(new IdentityHashMap<ERElement, Boolean>());
+
+        private final Map<String, EREntity> entitiesByName = new HashMap<String, EREntity>();
+
+        Validation(ERSchema schema) {
+            this.schema = schema;
+
+            Set<ERElement> uniqueEntities = new HashSet<ERElement>();
+            Set<ERElement> uniqueRelationships = new HashSet<ERElement>();
+            Set<ERElement> uniqueParticipatingEntities = new HashSet<ERElement>();
+            Set<ERElement> uniqueAttributes = new HashSet<ERElement>();
+
+            for (EREntity entity : schema.getEntities()) {
+                if (findDuplicate(entity, uniqueEntities)) {
+                    entitiesByName.put(entity.getUniqueName(), entity);
+                }
+            }
+
+            for (ERRelationship relationship : schema.getRelationships()) {
+                findDuplicate(relationship, uniqueRelationships);
+
+                for (ERParticipatingEntity participatingEntity
+                    : relationship.getParticipatingEntities()
+                ) {
+                    findDuplicate(participatingEntity, uniqueParticipatingEntities);
+                }
+            }
+
+            elementsWithAttributes.addAll(schema.getEntities());
+            elementsWithAttributes.addAll(schema.getRelationships());
+
+            for (ERElementWithAttributes element : elementsWithAttributes) {
+                for (ERAttribute attribute : element.getAttributes()) {
+                    findDuplicate(attribute, uniqueAttributes);
+
+                    for (ERAttribute componentAttribute : attribute.getAttributes()) {
+                        findDuplicate(componentAttribute, uniqueAttributes);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return true if the element is named and was seen for the first time
+         */
+        private boolean findDuplicate(ERElement element, Set<ERElement> uniqueElements) {
+            if (StringUtils.isBlank(element.getUniqueName())) {
+                return false;
+            }
+
+            if (!uniqueElements.add(element)) {
+                duplicates.add(element);
+
+                return false;
+            }
+
+            return true;
+        }
+
+        void checkEntity(EREntity entity, List<ERViolation> violations) {
+            if (StringUtils.isBlank(entity.getUniqueName())) {
+                violations.add(new ERViolation(ERViolation.Rule.ENTITY_NAME_MISSING, entity,
+                    "Every EREntity must have a name."));
+            } else if (duplicates.contains(entity)) {
+                violations.add(new ERViolation(ERViolation.Rule.DUPLICATE_ENTITY, entity,
+                    entity + " is a duplicate."));
+            }
+        }
+
+        void checkRelationship(ERRelationship relationship, List<ERViolation> violations) {
+            if (StringUtils.isBlank(relationship.getUniqueName())) {
+                violations.add(new ERViolation(ERViolation.Rule.RELATIONSHIP_NAME_MISSING,
+                    relationship, "Every ERRelationship must have a name."));
+            } else if (duplicates.contains(relationship)) {
+                violations.add(new ERViolation(ERViolation.Rule.DUPLICATE_RELATIONSHIP,
+                    relationship, relationship + " is a duplicate."));
+            }
+
+            List<ERParticipatingEntity> participatingEntities =
+                relationship.getParticipatingEntities();
+
+            if (participatingEntities.size() < 2) {
+                violations.add(new ERViolation(ERViolation.Rule.TOO_FEW_PARTICIPATING_ENTITIES,
+                    relationship, relationship + " must have at least 2 ERParticipatingEntities."));
+            }
+
+            if (participatingEntities.size() > 3) {
+                violations.add(new ERViolation(ERViolation.Rule.TOO_MANY_PARTICIPATING_ENTITIES,
+                    relationship, relationship
+                        + " cannot have more than 3 ERParticipatingEntities."));
+            }
+
+            boolean participatingEntitiesExist = true;
+
+            for (ERParticipatingEntity participatingEntity : participatingEntities) {
+                if (StringUtils.isBlank(participatingEntity.getUniqueName())) {
+                    violations.add(new ERViolation(
+                        ERViolation.Rule.PARTICIPATING_ENTITY_NAME_MISSING,
+                        participatingEntity,
+                        "Every ERParticipatingEntity must have a name."
+                    ));
+                    participatingEntitiesExist = false;
+                    continue;
+                }
+
+                if (duplicates.contains(participatingEntity)) {
+                    violations.add(new ERViolation(
+                        ERViolation.Rule.DUPLICATE_PARTICIPATING_ENTITY,
+                        participatingEntity,
+                        participatingEntity + " in " + relationship + " is a duplicate."
+                    ));
+                }
+
+                if (schema.getEntity(participatingEntity) == null) {
+                    violations.add(new ERViolation(
+                        ERViolation.Rule.UNKNOWN_PARTICIPATING_ENTITY,
+                        participatingEntity,
+                        participatingEntity + " in " + relationship + " refers to EREntity{"
+                            + participatingEntity.getUniqueName() + "} which does not exist."
+                    ));
+                    participatingEntitiesExist = false;
+                }
+            }
+
+            if (!relationship.isIdentifying()) {
+                return;
+            }
+
+            if (!relationship.isBinary()) {
+                violations.add(new ERViolation(
+                    ERViolation.Rule.IDENTIFYING_RELATIONSHIP_NOT_BINARY,
+                    relationship,
+                    "Identifying " + relationship + " must have exactly 2 ERParticipatingEntities."
+                ));
+            } else if (participatingEntitiesExist) {
+                EREntity aEntity = schema.getEntity(participatingEntities.get(0));
+                EREntity bEntity = schema.getEntity(participatingEntities.get(1));
+
+                if (!((aEntity.isStrong() && bEntity.isWeak())
+                    || (aEntity.isWeak() && bEntity.isStrong()))
+                ) {
+                    violations.add(new ERViolation(
+                        ERViolation.Rule.IDENTIFYING_RELATIONSHIP_WITHOUT_STRONG_AND_WEAK_ENTITY,
+                        relationship,
+                        "Identifying " + relationship + " must have 1 strong"
+                            + " ERParticipatingEntity and 1 weak ERParticipatingEntity."
+                    ));
+                }
+            }
+
+            if (!relationship.getAttributes().isEmpty()) {
+                violations.add(new ERViolation(
+                    ERViolation.Rule.IDENTIFYING_RELATIONSHIP_WITH_ATTRIBUTES,
+                    relationship,
+                    "Identifying " + relationship + " cannot have attributes."
+                ));
+            }
+        }
+
+        void checkWeakEntity(EREntity weakEntity, List<ERViolation> violations) {
+            if (schema.getIdentifyingBinaryRelationship(weakEntity) == null) {
+                violations.add(new ERViolation(
+                    ERViolation.Rule.WEAK_ENTITY_WITHOUT_IDENTIFYING_RELATIONSHIP,
+                    weakEntity,
+                    "Weak " + weakEntity + " must have exactly 1 identifying binary"
+                        + " ERRelationship with a strong EREntity."
+                ));
+            }
+        }
+
+        void checkAttributes(ERElementWithAttributes element, List<ERViolation> violations) {
+            for (ERAttribute attribute : element.getAttributes()) {
+                if (StringUtils.isBlank(attribute.getUniqueName())) {
+                    violations.add(new ERViolation(ERViolation.Rule.ATTRIBUTE_NAME_MISSING,
+                        attribute, "Every ERAttribute must have a name."));
+                } else if (duplicates.contains(attribute)) {
+                    violations.add(new ERViolation(ERViolation.Rule.DUPLICATE_ATTRIBUTE,
+                        attribute, attribute + " is a duplicate."));
+                }
+
+                if (attribute.isKey() && attribute.isMultivalued()) {
+                    violations.add(new ERViolation(ERViolation.Rule.MULTIVALUED_KEY,
+                        attribute, "Key " + attribute + " cannot be multivalued."));
+                }
+
+                if (attribute.isComposite()) {
+                    EREntity entity = entitiesByName.get(attribute.getUniqueName());
+
+                    if (entity != null) {
+                        violations.add(new ERViolation(
+                            ERViolation.Rule.COMPOSITE_ATTRIBUTE_NAMED_AFTER_ENTITY,
+                            attribute,
+                            "Composite " + attribute + " cannot have the same name as "
+                                + entity + "."
+                        ));
+                    }
+                }
+
+                for (ERAttribute componentAttribute : attribute.getAttributes()) {
+                    if (StringUtils.isBlank(componentAttribute.getUniqueName())) {
+                        violations.add(new ERViolation(ERViolation.Rule.ATTRIBUTE_NAME_MISSING,
+                            componentAttribute, "Every ERAttribute must have a name."));
+                    } else if (duplicates.contains(componentAttribute)) {
+                        violations.add(new ERViolation(ERViolation.Rule.DUPLICATE_ATTRIBUTE,
+                            componentAttribute, componentAttribute + " is a duplicate."));
+                    }
+
+                    if (componentAttribute.isKey()) {
+                        violations.add(new ERViolation(ERViolation.Rule.KEY_COMPONENT,
+                            componentAttribute, "Component " + componentAttribute
+                                + " cannot be a key."));
+                    }
+
+                    if (componentAttribute.isComposite()) {
+                        violations.add(new ERViolation(ERViolation.Rule.COMPOSITE_COMPONENT,
+                            componentAttribute, "Component " + componentAttribute
+                                + " cannot be composite."));
+                    }
+                }
+            }
+        }
+    }
+}
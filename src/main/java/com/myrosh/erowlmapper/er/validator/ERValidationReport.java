@@ -0,0 +1,67 @@
+package com.myrosh.erowlmapper.er.validator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author igorm
+ *
+ * All violations found in an ER schema, in the order ERSchema.validate() would report them
+ *
+ */
+public class ERValidationReport {
+
+    /**
+     * Violations
+     */
+    private final List<ERViolation> violations;
+
+    /**
+     * @param violations
+     */
+    public ERValidationReport(List<ERViolation> violations) {
+        this.violations = Collections.unmodifiableList(new ArrayList<ERViolation>(violations));
+    }
+
+    /**
+     * @return
+     */
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+
+    /**
+     * @return
+     */
+    public List<ERViolation> getViolations() {
+        return violations;
+    }
+
+    /**
+     * @param rule
+     * @return
+     */
+    public List<ERViolation> getViolations(ERViolation.Rule rule) {
+        List<ERViolation> ruleViolations = new ArrayList<ERViolation>();
+
+        for (ERViolation violation : violations) {
+            if (violation.getRule() == rule) {
+                ruleViolations.add(violation);
+            }
+        }
+
+        return ruleViolations;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+
+        for (ERViolation violation : violations) {
+            report.append(violation).append('\n');
+        }
+
+        return report.toString();
+    }
+}
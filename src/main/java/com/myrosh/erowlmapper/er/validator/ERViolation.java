@@ -0,0 +1,89 @@
+package com.myrosh.erowlmapper.er.validator;
+
+import com.myrosh.erowlmapper.er.ERElement;
+
+/**
+ * @author igorm
+ *
+ * A single inconsistency found in an ER schema
+ *
+ */
+public class ERViolation {
+
+    /**
+     * Consistency rules in the order they are checked
+     */
+    public enum Rule {
+        ENTITY_NAME_MISSING,
+        DUPLICATE_ENTITY,
+        RELATIONSHIP_NAME_MISSING,
+        DUPLICATE_RELATIONSHIP,
+        TOO_FEW_PARTICIPATING_ENTITIES,
+        TOO_MANY_PARTICIPATING_ENTITIES,
+        PARTICIPATING_ENTITY_NAME_MISSING,
+        DUPLICATE_PARTICIPATING_ENTITY,
+        UNKNOWN_PARTICIPATING_ENTITY,
+        IDENTIFYING_RELATIONSHIP_NOT_BINARY,
+        IDENTIFYING_RELATIONSHIP_WITHOUT_STRONG_AND_WEAK_ENTITY,
+        IDENTIFYING_RELATIONSHIP_WITH_ATTRIBUTES,
+        WEAK_ENTITY_WITHOUT_IDENTIFYING_RELATIONSHIP,
+        ATTRIBUTE_NAME_MISSING,
+        DUPLICATE_ATTRIBUTE,
+        MULTIVALUED_KEY,
+        COMPOSITE_ATTRIBUTE_NAMED_AFTER_ENTITY,
+        KEY_COMPONENT,
+        COMPOSITE_COMPONENT
+    }
+
+    /**
+     * Rule
+     */
+    private final Rule rule;
+
+    /**
+     * Offending element
+     */
+    private final ERElement element;
+
+    /**
+     * Message
+     */
+    private final String message;
+
+    /**
+     * @param rule
+     * @param element
+     * @param message
+     */
+    public ERViolation(Rule rule, ERElement element, String message) {
+        this.rule = rule;
+        this.element = element;
+        this.message = message;
+    }
+
+    /**
+     * @return
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * @return
+     */
+    public ERElement getElement() {
+        return element;
+    }
+
+    /**
+     * @return
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return rule + ": " + message;
+    }
+}
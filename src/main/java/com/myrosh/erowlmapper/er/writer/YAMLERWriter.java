@@ -0,0 +1,174 @@
+package com.myrosh.erowlmapper.er.writer;
+
+import com.myrosh.erowlmapper.er.*;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * @author igorm
+ *
+ * A concrete YAML ER writer implementation producing documents readable by YAMLERParser
+ *
+ */
+public class YAMLERWriter implements ERWriter {
+
+    /* (non-Javadoc)
+     * @see com.myrosh.erowlmapper.er.ERWriter#write(com.myrosh.erowlmapper.er.ERSchema, java.io.Writer)
+     */
+    public void write(ERSchema schema, Writer writer) throws IOException {
+        writer.write("---\n");
+
+        if (!schema.getEntities().isEmpty()) {
+            writer.write("entities:\n");
+
+            for (EREntity entity : schema.getEntities()) {
+                writeItem(writer, 1, "name", entity.getName());
+
+                if (entity.isWeak()) {
+                    writeField(writer, 2, "weak", "true");
+                }
+
+                writeAttributes(writer, 2, entity);
+            }
+        }
+
+        if (!schema.getRelationships().isEmpty()) {
+            writer.write("relationships:\n");
+
+            for (ERRelationship relationship : schema.getRelationships()) {
+                writeItem(writer, 1, "name", relationship.getName());
+
+                if (relationship.isIdentifying()) {
+                    writeField(writer, 2, "identifying", "true");
+                }
+
+                writeAttributes(writer, 2, relationship);
+                writeField(writer, 2, "participatingEntities", null);
+
+                for (ERParticipatingEntity participatingEntity
+                    : relationship.getParticipatingEntities()
+                ) {
+                    writeItem(writer, 3, "name", participatingEntity.getName());
+
+                    if (participatingEntity.getRole() != null) {
+                        writeField(writer, 4, "role", participatingEntity.getRole());
+                    }
+
+                    if (participatingEntity.getMin() != -1) {
+                        writeField(writer, 4, "min", String.valueOf(participatingEntity.getMin()));
+                    }
+
+                    if (participatingEntity.getMax() != -1) {
+                        writeField(writer, 4, "max", String.valueOf(participatingEntity.getMax()));
+                    }
+                }
+            }
+        }
+
+        writer.flush();
+    }
+
+    private void writeAttributes(Writer writer, int level, ERElementWithAttributes element)
+        throws IOException {
+        if (element.getAttributes().isEmpty()) {
+            return;
+        }
+
+        writeField(writer, level, "attributes", null);
+
+        for (ERAttribute attribute : element.getAttributes()) {
+            writeItem(writer, level + 1, "name", attribute.getName());
+
+            if (attribute.isKey()) {
+                writeField(writer, level + 2, "key", "true");
+            }
+
+            if (attribute.isComposite()) {
+                writeField(writer, level + 2, "composite", "true");
+            }
+
+            if (attribute.isMultivalued()) {
+                writeField(writer, level + 2, "multivalued", "true");
+            }
+
+            writeAttributes(writer, level + 2, attribute);
+        }
+    }
+
+    private void writeItem(Writer writer, int level, String name, String value)
+        throws IOException {
+        indent(writer, level);
+        writer.write("-\n");
+        writeField(writer, level + 1, name, value);
+    }
+
+    private void writeField(Writer writer, int level, String name, String value)
+        throws IOException {
+        indent(writer, level);
+        writer.write(name);
+        writer.write(':');
+
+        if (value != null) {
+            writer.write(' ');
+            writer.write(quote(value));
+        }
+
+        writer.write('\n');
+    }
+
+    private void indent(Writer writer, int level) throws IOException {
+        for (int i = 0; i < level; i++) {
+            writer.write("    ");
+        }
+    }
+
+    private String quote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isLetterOrDigit(value.charAt(i))) {
+                return doubleQuote(value);
+            }
+        }
+
+        return value.isEmpty() ? "\"\"" : value;
+    }
+
+    /**
+     * Control characters and line breaks are escaped, as they would be folded into spaces
+     * when read back.
+     */
+    private String doubleQuote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2);
+        quoted.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                default:
+                    if (Character.isISOControl(c) || c == '\u2028' || c == '\u2029') {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+
+        return quoted.append('"').toString();
+    }
+}
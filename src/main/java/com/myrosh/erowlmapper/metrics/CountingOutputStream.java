@@ -0,0 +1,45 @@
+package com.myrosh.erowlmapper.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * @author igorm
+ *
+ * An output stream counting the bytes written through it
+ *
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    /**
+     * Bytes written
+     */
+    private long count = 0;
+
+    /**
+     * @param output
+     */
+    public CountingOutputStream(OutputStream output) {
+        super(output);
+    }
+
+    /**
+     * @return
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        out.write(buffer, offset, length);
+        count += length;
+    }
+}
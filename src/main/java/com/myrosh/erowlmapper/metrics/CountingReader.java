@@ -0,0 +1,63 @@
+package com.myrosh.erowlmapper.metrics;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * @author igorm
+ *
+ * A reader counting the characters read through it
+ *
+ */
+public class CountingReader extends FilterReader {
+
+    /**
+     * Characters read
+     */
+    private long count = 0;
+
+    /**
+     * @param reader
+     */
+    public CountingReader(Reader reader) {
+        super(reader);
+    }
+
+    /**
+     * @return
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c = super.read();
+
+        if (c != -1) {
+            count++;
+        }
+
+        return c;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+
+        if (n > 0) {
+            count += n;
+        }
+
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+
+        return skipped;
+    }
+}
@@ -0,0 +1,51 @@
+package com.myrosh.erowlmapper.metrics;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * @author igorm
+ *
+ * A writer counting the characters written through it
+ *
+ */
+public class CountingWriter extends FilterWriter {
+
+    /**
+     * Characters written
+     */
+    private long count = 0;
+
+    /**
+     * @param writer
+     */
+    public CountingWriter(Writer writer) {
+        super(writer);
+    }
+
+    /**
+     * @return
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        super.write(c);
+        count++;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        super.write(buffer, offset, length);
+        count += length;
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException {
+        super.write(string, offset, length);
+        count += length;
+    }
+}
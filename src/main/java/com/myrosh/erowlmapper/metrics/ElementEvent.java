@@ -0,0 +1,39 @@
+package com.myrosh.erowlmapper.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Registered;
+import jdk.jfr.Threshold;
+
+/**
+ * @author igorm
+ *
+ * A Flight Recorder event spanning the mapping of one entity or relationship. Only elements
+ * taking longer than the threshold, 1 ms unless the recording overrides it, are recorded.
+ *
+ */
+@Name("com.myrosh.erowlmapper.Element")
+@Label("Mapped ER Element")
+@Category("EROWLMapper")
+@Description("The mapping of one entity or relationship")
+@Threshold("1 ms")
+@Registered(false)
+class ElementEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Element Type")
+    String elementType;
+
+    @Label("Name")
+    String name;
+
+    @Label("Attributes")
+    int attributeCount;
+
+    @Label("Triples")
+    long tripleCount;
+}
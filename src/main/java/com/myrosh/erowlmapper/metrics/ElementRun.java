@@ -0,0 +1,68 @@
+package com.myrosh.erowlmapper.metrics;
+
+/**
+ * @author igorm
+ *
+ * The mapping of one entity or relationship being timed as a Flight Recorder event. Create
+ * one with start(phase) before the element is mapped and call end(...) afterwards. Unlike
+ * PhaseRun it only exists while a recording has element events enabled, so callers can skip
+ * the work of measuring an element otherwise.
+ *
+ */
+public class ElementRun {
+
+    /**
+     * Flight Recorder event
+     */
+    private final ElementEvent event;
+
+    /**
+     * @param event
+     */
+    private ElementRun(ElementEvent event) {
+        this.event = event;
+    }
+
+    /**
+     * Starts timing a new element.
+     *
+     * @param phase
+     * @return the run, or null while no recording has element events enabled
+     */
+    public static ElementRun start(MappingPhase phase) {
+        if (!FlightRecorderEvents.isRegistered()) {
+            return null;
+        }
+
+        ElementEvent event = new ElementEvent();
+
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.phase = phase.getName();
+        event.begin();
+
+        return new ElementRun(event);
+    }
+
+    /**
+     * Commits the event if it took longer than the threshold.
+     *
+     * @param elementType entity or relationship
+     * @param name
+     * @param attributeCount
+     * @param tripleCount triples created for the element
+     */
+    public void end(String elementType, String name, int attributeCount, long tripleCount) {
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.elementType = elementType;
+            event.name = name;
+            event.attributeCount = attributeCount;
+            event.tripleCount = tripleCount;
+            event.commit();
+        }
+    }
+}
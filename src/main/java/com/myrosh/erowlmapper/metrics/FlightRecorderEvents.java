@@ -0,0 +1,67 @@
+package com.myrosh.erowlmapper.metrics;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * @author igorm
+ *
+ * Registers the EROWLMapper Flight Recorder events once the recorder has been started,
+ * whether at launch or later through jcmd. Loading a registered event class initializes
+ * the recorder infrastructure, which would add a few hundred milliseconds to every short
+ * command line run, so the events are declared @Registered(false) and only created once
+ * they are registered here. On a Java 8 runtime without Flight Recorder no events are
+ * created at all, and the jdk.jfr classes are never loaded.
+ *
+ */
+final class FlightRecorderEvents {
+
+    /**
+     * Whether the runtime has the Flight Recorder API
+     */
+    private static final boolean AVAILABLE = isAvailable();
+
+    /**
+     * Whether the events are registered
+     */
+    private static volatile boolean registered = false;
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * @return true if events should be created, false while the recorder is not initialized
+     * or if the runtime has no recorder
+     */
+    static boolean isRegistered() {
+        if (!AVAILABLE) {
+            return false;
+        }
+
+        if (!registered && FlightRecorder.isInitialized()) {
+            register();
+        }
+
+        return registered;
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder", false,
+                FlightRecorderEvents.class.getClassLoader());
+
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    private static synchronized void register() {
+        if (!registered) {
+            FlightRecorder.register(PhaseEvent.class);
+            FlightRecorder.register(ElementEvent.class);
+            registered = true;
+        }
+    }
+}
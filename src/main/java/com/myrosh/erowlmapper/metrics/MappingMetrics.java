@@ -0,0 +1,161 @@
+package com.myrosh.erowlmapper.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * @author igorm
+ *
+ * The process-wide registry of mapping pipeline metrics. The parser, the validator, the
+ * mapper and the ontology writer time a run of their phase here, which updates the
+ * cumulative counters and latency histogram of the phase, notifies the listeners and emits
+ * a com.myrosh.erowlmapper.Phase Flight Recorder event. The counters can be published as
+ * MXBeans named com.myrosh.erowlmapper:type=MappingPhase,name=...
+ *
+ */
+public class MappingMetrics {
+
+    /**
+     * JMX domain
+     */
+    public static final String JMX_DOMAIN = "com.myrosh.erowlmapper";
+
+    /**
+     * Shared instance
+     */
+    private static final MappingMetrics INSTANCE = new MappingMetrics();
+
+    /**
+     * Metrics per phase
+     */
+    private final Map<MappingPhase, PhaseMetrics> phases =
+        new EnumMap<MappingPhase, PhaseMetrics>(MappingPhase.class);
+
+    /**
+     * Listeners
+     */
+    private final List<MappingMetricsListener> listeners =
+        new CopyOnWriteArrayList<MappingMetricsListener>();
+
+    /**
+     * Whether the MXBeans are registered
+     */
+    private boolean registered = false;
+
+    private MappingMetrics() {
+        for (MappingPhase phase : MappingPhase.values()) {
+            phases.put(phase, new PhaseMetrics(phase));
+        }
+    }
+
+    /**
+     * @return
+     */
+    public static MappingMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param phase
+     * @return
+     */
+    public PhaseMetrics getPhaseMetrics(MappingPhase phase) {
+        return phases.get(phase);
+    }
+
+    /**
+     * @param listener
+     */
+    public void addListener(MappingMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener
+     */
+    public void removeListener(MappingMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts timing a run of a phase, to be recorded once the run is ended.
+     *
+     * @param phase
+     * @return
+     */
+    public PhaseRun start(MappingPhase phase) {
+        return new PhaseRun(this, phase);
+    }
+
+    /**
+     * @param phase
+     * @param nanos
+     * @param elementCount
+     * @param tripleCount
+     * @param characterCount
+     */
+    public void record(
+        MappingPhase phase,
+        long nanos,
+        long elementCount,
+        long tripleCount,
+        long characterCount
+    ) {
+        phases.get(phase).record(nanos, elementCount, tripleCount, characterCount);
+
+        for (MappingMetricsListener listener : listeners) {
+            listener.phaseCompleted(phase, nanos, elementCount, tripleCount, characterCount);
+        }
+    }
+
+    /**
+     * Publishes the metrics of every phase on the platform MBean server. Only long-running
+     * processes call this, as starting JMX slows down short command line runs.
+     *
+     * @throws JMException
+     */
+    public synchronized void registerMBeans() throws JMException {
+        if (registered) {
+            return;
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        for (PhaseMetrics metrics : phases.values()) {
+            ObjectName name = getObjectName(metrics.getPhase());
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        }
+
+        registered = true;
+    }
+
+    /**
+     * @param phase
+     * @return
+     * @throws JMException
+     */
+    public static ObjectName getObjectName(MappingPhase phase) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=MappingPhase,name=" + phase.getName());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+
+        for (PhaseMetrics metrics : phases.values()) {
+            summary.append(metrics).append('\n');
+        }
+
+        return summary.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package com.myrosh.erowlmapper.metrics;
+
+/**
+ * @author igorm
+ *
+ * Receives every phase run recorded by MappingMetrics. Listeners are called on the thread
+ * that ran the phase, so they have to be thread-safe and quick.
+ *
+ */
+public interface MappingMetricsListener {
+
+    /**
+     * @param phase
+     * @param nanos duration of the run
+     * @param elementCount ER elements or mapping operations handled
+     * @param tripleCount triples emitted, or written by the write phase
+     * @param characterCount characters read by the parse phase or written by the write phase,
+     *                       0 for other phases
+     */
+    void phaseCompleted(
+        MappingPhase phase,
+        long nanos,
+        long elementCount,
+        long tripleCount,
+        long characterCount
+    );
+}
@@ -0,0 +1,34 @@
+package com.myrosh.erowlmapper.metrics;
+
+/**
+ * @author igorm
+ *
+ * The stages of the mapping pipeline metrics are recorded for
+ *
+ */
+public enum MappingPhase {
+    PARSE("parse"),
+    VALIDATE("validate"),
+    MAP_STRONG_ENTITIES("mapStrongEntities"),
+    MAP_WEAK_ENTITIES_AND_IDENTIFYING_RELATIONSHIPS("mapWeakEntitiesAndIdentifyingRelationships"),
+    MAP_BINARY_RELATIONSHIPS_WITHOUT_ATTRIBUTES("mapBinaryRelationshipsWithoutAttributes"),
+    MAP_BINARY_RELATIONSHIPS_WITH_ATTRIBUTES("mapBinaryRelationshipsWithAttributes"),
+    MAP_TERNARY_RELATIONSHIPS("mapTernaryRelationships"),
+    WRITE("write");
+
+    /**
+     * Name used in summaries and JMX object names
+     */
+    private final String name;
+
+    MappingPhase(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+}
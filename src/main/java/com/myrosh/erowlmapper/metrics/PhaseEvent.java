@@ -0,0 +1,33 @@
+package com.myrosh.erowlmapper.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Registered;
+
+/**
+ * @author igorm
+ *
+ * A Flight Recorder event spanning one run of a mapping phase
+ *
+ */
+@Name("com.myrosh.erowlmapper.Phase")
+@Label("Mapping Phase")
+@Category("EROWLMapper")
+@Description("A run of a parse, validate, map or write phase")
+@Registered(false)
+class PhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Elements")
+    long elementCount;
+
+    @Label("Triples")
+    long tripleCount;
+
+    @Label("Characters")
+    long characterCount;
+}
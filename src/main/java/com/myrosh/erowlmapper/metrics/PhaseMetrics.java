@@ -0,0 +1,114 @@
+package com.myrosh.erowlmapper.metrics;
+
+import com.myrosh.erowlmapper.LatencyRecorder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author igorm
+ *
+ * Cumulative counters of one mapping phase and a latency histogram over its recent runs
+ *
+ */
+public class PhaseMetrics implements PhaseMetricsMXBean {
+
+    /**
+     * Number of recent runs percentiles are computed over
+     */
+    private static final int LATENCY_CAPACITY = 1024;
+
+    /**
+     * Phase
+     */
+    private final MappingPhase phase;
+
+    /**
+     * Total duration in nanoseconds
+     */
+    private final AtomicLong nanos = new AtomicLong();
+
+    /**
+     * Element count
+     */
+    private final AtomicLong elementCount = new AtomicLong();
+
+    /**
+     * Triple count
+     */
+    private final AtomicLong tripleCount = new AtomicLong();
+
+    /**
+     * Character count
+     */
+    private final AtomicLong characterCount = new AtomicLong();
+
+    /**
+     * Durations of recent runs
+     */
+    private final LatencyRecorder latencies = new LatencyRecorder(LATENCY_CAPACITY);
+
+    /**
+     * @param phase
+     */
+    PhaseMetrics(MappingPhase phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * @return
+     */
+    public MappingPhase getPhase() {
+        return phase;
+    }
+
+    public long getCount() {
+        return latencies.getCount();
+    }
+
+    public double getTotalMillis() {
+        return nanos.get() / 1e6;
+    }
+
+    public long getElementCount() {
+        return elementCount.get();
+    }
+
+    public long getTripleCount() {
+        return tripleCount.get();
+    }
+
+    public long getCharacterCount() {
+        return characterCount.get();
+    }
+
+    public double getP50Millis() {
+        return latencies.getPercentile(50) / 1e6;
+    }
+
+    public double getP90Millis() {
+        return latencies.getPercentile(90) / 1e6;
+    }
+
+    public double getP99Millis() {
+        return latencies.getPercentile(99) / 1e6;
+    }
+
+    public double getMaxMillis() {
+        return latencies.getPercentile(100) / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-44s total=%.3fms elements=%d triples=%d characters=%d %s",
+            phase.getName(), getTotalMillis(), getElementCount(), getTripleCount(),
+            getCharacterCount(), latencies);
+    }
+
+    void record(long nanos, long elementCount, long tripleCount, long characterCount) {
+        this.nanos.addAndGet(nanos);
+        this.elementCount.addAndGet(elementCount);
+        this.tripleCount.addAndGet(tripleCount);
+        this.characterCount.addAndGet(characterCount);
+        latencies.record(nanos);
+    }
+}
@@ -0,0 +1,55 @@
+package com.myrosh.erowlmapper.metrics;
+
+/**
+ * @author igorm
+ *
+ * The JMX view of the metrics of one mapping phase
+ *
+ */
+public interface PhaseMetricsMXBean {
+
+    /**
+     * @return number of runs
+     */
+    long getCount();
+
+    /**
+     * @return
+     */
+    double getTotalMillis();
+
+    /**
+     * @return
+     */
+    long getElementCount();
+
+    /**
+     * @return
+     */
+    long getTripleCount();
+
+    /**
+     * @return
+     */
+    long getCharacterCount();
+
+    /**
+     * @return median duration of recent runs
+     */
+    double getP50Millis();
+
+    /**
+     * @return
+     */
+    double getP90Millis();
+
+    /**
+     * @return
+     */
+    double getP99Millis();
+
+    /**
+     * @return longest duration of recent runs
+     */
+    double getMaxMillis();
+}
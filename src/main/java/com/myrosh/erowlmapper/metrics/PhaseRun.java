@@ -0,0 +1,74 @@
+package com.myrosh.erowlmapper.metrics;
+
+/**
+ * @author igorm
+ *
+ * A run of a mapping phase being timed. It is started by MappingMetrics.start(phase) and
+ * records itself, both in MappingMetrics and as a Flight Recorder event, once ended.
+ *
+ */
+public class PhaseRun {
+
+    /**
+     * Metrics the run is recorded in
+     */
+    private final MappingMetrics metrics;
+
+    /**
+     * Phase
+     */
+    private final MappingPhase phase;
+
+    /**
+     * Flight Recorder event, null while no recording has phase events enabled
+     */
+    private final PhaseEvent event;
+
+    /**
+     * Start time in nanoseconds
+     */
+    private final long start;
+
+    /**
+     * @param metrics
+     * @param phase
+     */
+    PhaseRun(MappingMetrics metrics, MappingPhase phase) {
+        this.metrics = metrics;
+        this.phase = phase;
+        PhaseEvent event = FlightRecorderEvents.isRegistered() ? new PhaseEvent() : null;
+
+        if (event != null && event.isEnabled()) {
+            event.begin();
+        } else {
+            event = null;
+        }
+
+        this.event = event;
+
+        start = System.nanoTime();
+    }
+
+    /**
+     * @param elementCount
+     * @param tripleCount
+     * @param characterCount
+     */
+    public void end(long elementCount, long tripleCount, long characterCount) {
+        long nanos = System.nanoTime() - start;
+
+        if (event != null) {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.phase = phase.getName();
+                event.elementCount = elementCount;
+                event.tripleCount = tripleCount;
+                event.characterCount = characterCount;
+                event.commit();
+            }
+        }
+
+        metrics.record(phase, nanos, elementCount, tripleCount, characterCount);
+    }
+}
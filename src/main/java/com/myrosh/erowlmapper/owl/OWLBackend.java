@@ -0,0 +1,86 @@
+package com.myrosh.erowlmapper.owl;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+
+/**
+ * @author igorm
+ *
+ * A generic contract for the store OWLLiteOntology emits its triples into
+ *
+ */
+public interface OWLBackend {
+
+    /**
+     * @param uri
+     * @return
+     */
+    Resource createOWLClass(String uri);
+
+    /**
+     * @param uri
+     * @param isFunctional
+     * @param isInverseFunctional
+     * @return
+     */
+    Resource createOWLObjectProperty(String uri, boolean isFunctional, boolean isInverseFunctional);
+
+    /**
+     * @param property
+     * @return
+     */
+    boolean isFunctionalProperty(Resource property);
+
+    /**
+     * @param property
+     */
+    void convertToInverseFunctionalProperty(Resource property);
+
+    /**
+     * @param uri
+     * @param isFunctional
+     * @return
+     */
+    Resource createOWLDatatypeProperty(String uri, boolean isFunctional);
+
+    /**
+     * @param property
+     * @param domainClass
+     */
+    void addDomain(Resource property, Resource domainClass);
+
+    /**
+     * @param property
+     * @param rangeClass
+     */
+    void addRange(Resource property, Resource rangeClass);
+
+    /**
+     * @param property
+     * @param inverseOfProperty
+     */
+    void addInverseOf(Resource property, Resource inverseOfProperty);
+
+    /**
+     * Makes the class a subclass of an owl:minCardinality 1 restriction on the property.
+     *
+     * @param domainClass
+     * @param property
+     */
+    void addMinCardinalityOneRestriction(Resource domainClass, Resource property);
+
+    /**
+     * @return number of emitted triples, without iterating over them
+     */
+    long size();
+
+    /**
+     * @return the model holding the emitted triples
+     */
+    Model getModel();
+
+    /**
+     * @return an empty backend of the same kind
+     */
+    OWLBackend newInstance();
+}
@@ -0,0 +1,100 @@
+package com.myrosh.erowlmapper.owl;
+
+/**
+ * @author igorm
+ *
+ * Output formats of OWLLiteOntology.write
+ *
+ */
+public enum OWLFormat {
+
+    /**
+     * Pretty-printed RDF/XML (the default)
+     */
+    RDF_XML_ABBREV("rdfxml-abbrev", "RDF/XML-ABBREV", "owl"),
+
+    /**
+     * Plain RDF/XML
+     */
+    RDF_XML("rdfxml", "RDF/XML", "owl"),
+
+    /**
+     * Turtle, streamed in blocks of triples sharing a subject
+     */
+    TURTLE("turtle", "TURTLE", "ttl"),
+
+    /**
+     * N-Triples, streamed triple by triple
+     */
+    N_TRIPLES("ntriples", "N-TRIPLE", "nt"),
+
+    /**
+     * RDF Thrift, a binary encoding streamed triple by triple. It can only be written to an
+     * OutputStream.
+     */
+    RDF_THRIFT("thrift", "RDF-THRIFT", "trdf");
+
+    /**
+     * Name used on the command line
+     */
+    private final String name;
+
+    /**
+     * Jena language name
+     */
+    private final String lang;
+
+    /**
+     * File extension
+     */
+    private final String extension;
+
+    OWLFormat(String name, String lang, String extension) {
+        this.name = name;
+        this.lang = lang;
+        this.extension = extension;
+    }
+
+    /**
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return
+     */
+    public String getLang() {
+        return lang;
+    }
+
+    /**
+     * @return
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return whether the format is binary rather than text
+     */
+    public boolean isBinary() {
+        return this == RDF_THRIFT;
+    }
+
+    /**
+     * @param name
+     * @return
+     * @throws OWLException
+     */
+    public static OWLFormat fromName(String name) throws OWLException {
+        for (OWLFormat format : values()) {
+            if (format.name.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+
+        throw new OWLException("Unknown output format " + name + ".");
+    }
+}
@@ -1,13 +1,41 @@
 package com.myrosh.erowlmapper.owl;
 
-import com.myrosh.erowlmapper.Utils;
-import org.apache.jena.ontology.*;
-import org.apache.jena.rdf.model.ModelFactory;
+import com.myrosh.erowlmapper.CanonicalName;
+import com.myrosh.erowlmapper.metrics.CountingOutputStream;
+import com.myrosh.erowlmapper.metrics.CountingWriter;
+import com.myrosh.erowlmapper.metrics.MappingMetrics;
+import com.myrosh.erowlmapper.metrics.MappingPhase;
+import com.myrosh.erowlmapper.metrics.PhaseRun;
+import com.myrosh.erowlmapper.owl.backend.GraphOWLBackend;
+import com.myrosh.erowlmapper.owl.backend.OntModelOWLBackend;
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.PrefixMapFactory;
+import org.apache.jena.riot.system.StreamOps;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.thrift.BinRDF;
+import org.apache.jena.riot.writer.WriterStreamRDFBlocks;
+import org.apache.jena.riot.writer.WriterStreamRDFPlain;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
 import org.apache.jena.vocabulary.XSD;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author igorm
@@ -18,7 +46,7 @@ import java.util.List;
 public class OWLLiteOntology {
 
     /**
-     * Namespace constant
+     * Default namespace
      */
     public static final String NS = "http://www.semanticweb.org/ontologies/erowlmapper#";
 
@@ -28,9 +56,76 @@ public class OWLLiteOntology {
     public static final String SYNTAX = "RDF/XML-ABBREV";
 
     /**
-     * OWL model
+     * Triple store backend
      */
-    private OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_LITE_MEM);
+    private OWLBackend backend;
+
+    /**
+     * Namespace of the classes and properties this ontology creates
+     */
+    private String namespace;
+
+    /**
+     * Classes by local name, null until loaded from the backend
+     */
+    private Map<String, Resource> classes;
+
+    /**
+     * Object properties by local name, null until loaded from the backend
+     */
+    private Map<String, Resource> objectProperties;
+
+    /**
+     * Datatype properties by local name, null until loaded from the backend
+     */
+    private Map<String, Resource> datatypeProperties;
+
+    public OWLLiteOntology() {
+        this(new OntModelOWLBackend());
+    }
+
+    /**
+     * @param backend
+     */
+    public OWLLiteOntology(OWLBackend backend) {
+        this(backend, NS);
+    }
+
+    /**
+     * @param backend
+     * @param namespace ends with '#' or '/', so that local names can be told apart
+     * @throws IllegalArgumentException if the namespace does not
+     */
+    public OWLLiteOntology(OWLBackend backend, String namespace) {
+        if (!namespace.endsWith("#") && !namespace.endsWith("/")) {
+            throw new IllegalArgumentException(
+                "Namespace " + namespace + " does not end with '#' or '/'.");
+        }
+
+        this.backend = backend;
+        this.namespace = namespace;
+    }
+
+    /**
+     * @return
+     */
+    public OWLBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return
+     */
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * @return an empty ontology with a backend of the same kind and the same namespace
+     */
+    public OWLLiteOntology newInstance() {
+        return new OWLLiteOntology(backend.newInstance(), namespace);
+    }
 
     /**
      *
@@ -38,7 +133,7 @@ public class OWLLiteOntology {
      * @return
      * @throws OWLException
      */
-    public OntClass addOWLKeyClass(OntClass aClass) throws OWLException {
+    public Resource addOWLKeyClass(Resource aClass) throws OWLException {
         return addOWLBClass(
             aClass,
             aClass.getLocalName() + "Key",
@@ -60,15 +155,15 @@ public class OWLLiteOntology {
      * @return
      * @throws OWLException
      */
-    public OntClass addOWLBClass(
-        OntClass aClass,
+    public Resource addOWLBClass(
+        Resource aClass,
         String name,
         boolean aIsFunctional,
         boolean aIsMinCardinalityOne,
         boolean bIsFunctional,
         boolean bIsMinCardinalityOne
     ) throws OWLException {
-        OntClass bClass = addOWLClass(name);
+        Resource bClass = addOWLClass(name);
 
         addOWLHasIsOfObjectProperties(
             bClass.getLocalName(),
@@ -95,10 +190,10 @@ public class OWLLiteOntology {
      * @return
      * @throws OWLException
      */
-    public List<ObjectProperty> addOWLHasIsOfObjectProperties(
+    public List<Resource> addOWLHasIsOfObjectProperties(
         String basename,
-        OntClass aClass,
-        OntClass bClass,
+        Resource aClass,
+        Resource bClass,
         boolean aIsFunctional,
         boolean aIsMinCardinalityOne,
         boolean bIsFunctional,
@@ -137,21 +232,21 @@ public class OWLLiteOntology {
      * @return
      * @throws OWLException
      */
-    public List<ObjectProperty> addOWLInverseObjectProperties(
+    public List<Resource> addOWLInverseObjectProperties(
         String aPrefix,
         String aBasename,
         String aSuffix,
         String bPrefix,
         String bBasename,
         String bSuffix,
-        OntClass aClass,
-        OntClass bClass,
+        Resource aClass,
+        Resource bClass,
         boolean aIsFunctional,
         boolean aIsMinCardinalityOne,
         boolean bIsFunctional,
         boolean bIsMinCardinalityOne
     ) throws OWLException {
-        ObjectProperty aProperty = addOWLObjectProperty(
+        Resource aProperty = addOWLObjectProperty(
             aPrefix,
             aBasename,
             aSuffix,
@@ -162,7 +257,7 @@ public class OWLLiteOntology {
             aIsMinCardinalityOne
         );
 
-        ObjectProperty bProperty = addOWLObjectProperty(
+        Resource bProperty = addOWLObjectProperty(
             bPrefix,
             bBasename,
             bSuffix,
@@ -173,7 +268,7 @@ public class OWLLiteOntology {
             bIsMinCardinalityOne
         );
 
-        List<ObjectProperty> properties = new ArrayList<ObjectProperty>();
+        List<Resource> properties = new ArrayList<Resource>();
         properties.add(aProperty);
         properties.add(bProperty);
 
@@ -193,40 +288,41 @@ public class OWLLiteOntology {
      * @return
      * @throws OWLException
      */
-    public ObjectProperty addOWLObjectProperty(
+    public Resource addOWLObjectProperty(
         String prefix,
         String basename,
         String suffix,
-        OntClass domainClass,
-        OntClass rangeClass,
-        ObjectProperty inverseOfProperty,
+        Resource domainClass,
+        Resource rangeClass,
+        Resource inverseOfProperty,
         boolean isFunctional,
         boolean isMinCardinalityOne
     ) throws OWLException {
-        String name = prefix + Utils.capitalizeCleanName(basename) + suffix;
-        String uri = NS + name;
+        String name = getOWLObjectPropertyName(prefix, basename, suffix);
 
-        if (model.getObjectProperty(uri) != null) {
+        if (getObjectProperties().containsKey(name)) {
             throw new OWLException("Object property " + name + " already exists.");
         }
 
-        ObjectProperty property =
-            inverseOfProperty != null && inverseOfProperty.isFunctionalProperty()
-                ? model.createInverseFunctionalProperty(uri, isFunctional)
-                : model.createObjectProperty(uri, isFunctional);
-        property.addDomain(domainClass);
-        property.addRange(rangeClass);
+        Resource property = backend.createOWLObjectProperty(
+            namespace + name,
+            isFunctional,
+            inverseOfProperty != null && backend.isFunctionalProperty(inverseOfProperty)
+        );
+        objectProperties.put(name, property);
+        backend.addDomain(property, domainClass);
+        backend.addRange(property, rangeClass);
 
         if (inverseOfProperty != null) {
-            property.addInverseOf(inverseOfProperty);
+            backend.addInverseOf(property, inverseOfProperty);
 
-            if (property.isFunctionalProperty()) {
-                inverseOfProperty.convertToInverseFunctionalProperty();
+            if (backend.isFunctionalProperty(property)) {
+                backend.convertToInverseFunctionalProperty(inverseOfProperty);
             }
         }
 
         if (isMinCardinalityOne) {
-            domainClass.addSuperClass(model.createMinCardinalityRestriction(null, property, 1));
+            backend.addMinCardinalityOneRestriction(domainClass, property);
         }
 
         return property;
@@ -241,25 +337,25 @@ public class OWLLiteOntology {
      * @return
      * @throws OWLException
      */
-    public DatatypeProperty addOWLDatatypeProperty(
+    public Resource addOWLDatatypeProperty(
         String basename,
-        OntClass domainClass,
+        Resource domainClass,
         boolean isFunctional,
         boolean isMinCardinalityOne
     ) throws OWLException {
-        String name = "has" + Utils.capitalizeCleanName(basename);
-        String uri = NS + name;
+        String name = getOWLDatatypePropertyName(basename);
 
-        if (model.getDatatypeProperty(uri) != null) {
+        if (getDatatypeProperties().containsKey(name)) {
             throw new OWLException("Datatype property " + name + " already exists.");
         }
 
-        DatatypeProperty property = model.createDatatypeProperty(uri, isFunctional);
-        property.addDomain(domainClass);
-        property.addRange(XSD.xstring);
+        Resource property = backend.createOWLDatatypeProperty(namespace + name, isFunctional);
+        datatypeProperties.put(name, property);
+        backend.addDomain(property, domainClass);
+        backend.addRange(property, XSD.xstring);
 
         if (isMinCardinalityOne) {
-            domainClass.addSuperClass(model.createMinCardinalityRestriction(null, property, 1));
+            backend.addMinCardinalityOneRestriction(domainClass, property);
         }
 
         return property;
@@ -271,11 +367,9 @@ public class OWLLiteOntology {
      * @return
      * @throws OWLException
      */
-    public OntClass getOWLClass(String name) throws OWLException {
-        name = Utils.capitalizeCleanName(name);
-        String uri = NS + name;
-
-        OntClass clazz = model.getOntClass(uri);
+    public Resource getOWLClass(String name) throws OWLException {
+        name = getOWLClassName(name);
+        Resource clazz = getClasses().get(name);
 
         if (clazz == null) {
             throw new OWLException("Class " + name + " does not exists.");
@@ -290,15 +384,195 @@ public class OWLLiteOntology {
      * @return
      * @throws OWLException
      */
-    public OntClass addOWLClass(String name) throws OWLException {
-        name = Utils.capitalizeCleanName(name);
-        String uri = NS + name;
+    public Resource addOWLClass(String name) throws OWLException {
+        name = getOWLClassName(name);
 
-        if (model.getOntClass(uri) != null) {
+        if (getClasses().containsKey(name)) {
             throw new OWLException("Class " + name + " already exists.");
         }
 
-        return model.createClass(uri);
+        Resource clazz = backend.createOWLClass(namespace + name);
+        classes.put(name, clazz);
+
+        return clazz;
+    }
+
+    /**
+     * Declares the ontology itself, e.g. one module of a larger ontology, together with the
+     * ontologies it imports.
+     *
+     * @param uri
+     * @param importedUris
+     * @return
+     */
+    public Resource addOWLOntology(String uri, List<String> importedUris) {
+        Model model = backend.getModel();
+        Resource ontology = model.createResource(uri);
+        model.add(ontology, RDF.type, OWL.Ontology);
+
+        for (String importedUri : importedUris) {
+            model.add(ontology, OWL.imports, model.createResource(importedUri));
+        }
+
+        return ontology;
+    }
+
+    /**
+     * Declares two classes equivalent, e.g. classes of the same entity in the namespaces
+     * of different schemas.
+     *
+     * @param aClass
+     * @param bClass
+     */
+    public void addOWLEquivalentClass(Resource aClass, Resource bClass) {
+        backend.getModel().add(aClass, OWL.equivalentClass, bClass);
+    }
+
+    /**
+     * Removes the class declaration created by addOWLClass. Statements other additions made
+     * about the class, such as cardinality restrictions on its properties, are kept.
+     *
+     * @param className local name of the class
+     */
+    public void removeOWLClass(String className) {
+        Model model = backend.getModel();
+        model.remove(model.createResource(namespace + className), RDF.type, OWL.Class);
+        getClasses().remove(className);
+    }
+
+    /**
+     * Removes an object or datatype property together with the cardinality restrictions
+     * on it.
+     *
+     * @param propertyName local name of the property
+     */
+    public void removeOWLProperty(String propertyName) {
+        Model model = backend.getModel();
+        Resource property = model.createResource(namespace + propertyName);
+
+        for (Resource restriction
+            : model.listSubjectsWithProperty(OWL.onProperty, property).toList()
+        ) {
+            model.removeAll(null, RDFS.subClassOf, restriction);
+            model.removeAll(restriction, null, null);
+        }
+
+        model.removeAll(property, null, null);
+        getObjectProperties().remove(propertyName);
+        getDatatypeProperties().remove(propertyName);
+    }
+
+    /**
+     * @param name
+     * @return local name of the class addOWLClass creates for the name
+     */
+    public static String getOWLClassName(String name) {
+        return CanonicalName.of(name).getCapitalizedName();
+    }
+
+    /**
+     * @param className
+     * @return local name of the class addOWLKeyClass creates for the class
+     */
+    public static String getOWLKeyClassName(String className) {
+        return getOWLClassName(className + "Key");
+    }
+
+    /**
+     * @param prefix
+     * @param basename
+     * @param suffix
+     * @return local name of the property addOWLObjectProperty creates for the arguments
+     */
+    public static String getOWLObjectPropertyName(String prefix, String basename, String suffix) {
+        return prefix + CanonicalName.of(basename).getCapitalizedName() + suffix;
+    }
+
+    /**
+     * @param basename
+     * @return local name of the property addOWLDatatypeProperty creates for the basename
+     */
+    public static String getOWLDatatypePropertyName(String basename) {
+        return "has" + CanonicalName.of(basename).getCapitalizedName();
+    }
+
+    private Map<String, Resource> getClasses() {
+        loadSymbols();
+
+        return classes;
+    }
+
+    private Map<String, Resource> getObjectProperties() {
+        loadSymbols();
+
+        return objectProperties;
+    }
+
+    private Map<String, Resource> getDatatypeProperties() {
+        loadSymbols();
+
+        return datatypeProperties;
+    }
+
+    /**
+     * Builds the symbol tables from the statements already in the backend. Afterwards every
+     * addition and removal keeps them up to date, so duplicate detection and class lookups
+     * are hash lookups instead of graph queries.
+     */
+    private void loadSymbols() {
+        if (classes != null) {
+            return;
+        }
+
+        // Creating the model initializes Jena, which has to happen before OWL is used
+        Model model = backend.getModel();
+
+        classes = new HashMap<String, Resource>();
+        objectProperties = new HashMap<String, Resource>();
+        datatypeProperties = new HashMap<String, Resource>();
+
+        loadSymbols(model, classes, OWL.Class);
+        loadSymbols(model, objectProperties, OWL.ObjectProperty);
+        loadSymbols(model, objectProperties, OWL.InverseFunctionalProperty);
+        loadSymbols(model, datatypeProperties, OWL.DatatypeProperty);
+    }
+
+    private void loadSymbols(Model model, Map<String, Resource> symbols, Resource type) {
+        for (Resource resource : model.listSubjectsWithProperty(RDF.type, type).toList()) {
+            if (resource.isURIResource() && resource.getURI().startsWith(namespace)) {
+                symbols.put(resource.getURI().substring(namespace.length()), resource);
+            }
+        }
+    }
+
+    /**
+     * Adds all statements of another ontology to this one. Only the classes and properties
+     * of this ontology's namespace can be looked up afterwards.
+     *
+     * @param ontology
+     */
+    public void addOntology(OWLLiteOntology ontology) {
+        backend.getModel().add(ontology.backend.getModel());
+
+        // Reloaded on next use, so that every handle belongs to this ontology's model
+        classes = null;
+        objectProperties = null;
+        datatypeProperties = null;
+    }
+
+    /**
+     * @return number of statements
+     */
+    public long size() {
+        return backend.size();
+    }
+
+    /**
+     * @param ontology
+     * @return true if both ontologies contain the same statements up to blank node labels
+     */
+    public boolean isIsomorphicWith(OWLLiteOntology ontology) {
+        return backend.getModel().isIsomorphicWith(ontology.backend.getModel());
     }
 
     /**
@@ -306,6 +580,119 @@ public class OWLLiteOntology {
      * @param writer
      */
     public void write(Writer writer) {
-        model.write(writer, SYNTAX);
+        write(writer, OWLFormat.RDF_XML_ABBREV);
+    }
+
+    /**
+     * Writes the ontology in the given text format. Turtle and N-Triples are streamed triple
+     * by triple instead of being analysed as a whole like RDF/XML-ABBREV.
+     *
+     * @param writer
+     * @param format
+     * @throws IllegalArgumentException if the format is binary
+     */
+    public void write(Writer writer, OWLFormat format) {
+        if (format.isBinary()) {
+            throw new IllegalArgumentException(
+                "Format " + format.getName() + " is binary, write it to an OutputStream.");
+        }
+
+        PhaseRun run = MappingMetrics.getInstance().start(MappingPhase.WRITE);
+        CountingWriter countingWriter = new CountingWriter(writer);
+        writeTo(countingWriter, format);
+
+        try {
+            countingWriter.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        run.end(0, size(), countingWriter.getCount());
+    }
+
+    /**
+     * Writes the ontology in any format, text formats as UTF-8. The WRITE phase metrics
+     * count bytes for binary formats and characters for text formats.
+     *
+     * @param output
+     * @param format
+     */
+    public void write(OutputStream output, OWLFormat format) {
+        if (!format.isBinary()) {
+            write(new OutputStreamWriter(output, StandardCharsets.UTF_8), format);
+            return;
+        }
+
+        PhaseRun run = MappingMetrics.getInstance().start(MappingPhase.WRITE);
+        CountingOutputStream countingOutput = new CountingOutputStream(output);
+        BufferedOutputStream bufferedOutput = new BufferedOutputStream(countingOutput, 1 << 16);
+
+        // Literals are written as lexical forms, encoding their values would turn e.g. an
+        // xsd:int cardinality into an xsd:integer
+        StreamRDF stream = BinRDF.streamToOutputStream(bufferedOutput, false);
+        stream.start();
+        StreamOps.sendGraphToStream(backend.getModel().getGraph(), stream,
+            PrefixMapFactory.create(backend.getModel()));
+        stream.finish();
+
+        try {
+            bufferedOutput.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        run.end(0, size(), countingOutput.getCount());
+    }
+
+    /**
+     * Reads an ontology written by write(), e.g. to consume RDF Thrift output. The ontology
+     * is backed by a GraphOWLBackend.
+     *
+     * @param input
+     * @param format
+     * @return
+     */
+    public static OWLLiteOntology read(InputStream input, OWLFormat format) {
+        OWLLiteOntology ontology = new OWLLiteOntology(new GraphOWLBackend());
+        Lang lang;
+
+        switch (format) {
+            case TURTLE:
+                lang = Lang.TURTLE;
+                break;
+            case N_TRIPLES:
+                lang = Lang.NTRIPLES;
+                break;
+            case RDF_THRIFT:
+                lang = Lang.RDFTHRIFT;
+                break;
+            default:
+                lang = Lang.RDFXML;
+        }
+
+        RDFDataMgr.read(ontology.backend.getModel(), input, lang);
+
+        return ontology;
+    }
+
+    private void writeTo(Writer writer, OWLFormat format) {
+        StreamRDF stream;
+
+        switch (format) {
+            case TURTLE:
+                stream = new WriterStreamRDFBlocks(writer);
+                break;
+            case N_TRIPLES:
+                stream = new WriterStreamRDFPlain(IO.wrap(writer));
+                break;
+            default:
+                backend.getModel().write(writer, format.getLang());
+                return;
+        }
+
+        stream.start();
+        StreamOps.sendGraphToStream(backend.getModel().getGraph(), stream,
+            PrefixMapFactory.create(backend.getModel()));
+        stream.finish();
     }
 }
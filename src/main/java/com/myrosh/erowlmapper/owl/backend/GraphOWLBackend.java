@@ -0,0 +1,147 @@
+package com.myrosh.erowlmapper.owl.backend;
+
+import com.myrosh.erowlmapper.owl.OWLBackend;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.apache.jena.vocabulary.XSD;
+
+/**
+ * @author igorm
+ *
+ * An OWLBackend implementation emitting triples straight into a plain Jena graph, without
+ * OntResource views or profile checks. It produces the same triples as OntModelOWLBackend.
+ *
+ */
+public class GraphOWLBackend implements OWLBackend {
+
+    private static final Node TYPE = RDF.type.asNode();
+
+    private static final Node CLASS = OWL.Class.asNode();
+
+    private static final Node OBJECT_PROPERTY = OWL.ObjectProperty.asNode();
+
+    private static final Node DATATYPE_PROPERTY = OWL.DatatypeProperty.asNode();
+
+    private static final Node FUNCTIONAL_PROPERTY = OWL.FunctionalProperty.asNode();
+
+    private static final Node INVERSE_FUNCTIONAL_PROPERTY = OWL.InverseFunctionalProperty.asNode();
+
+    private static final Node RESTRICTION = OWL.Restriction.asNode();
+
+    private static final Node ON_PROPERTY = OWL.onProperty.asNode();
+
+    private static final Node MIN_CARDINALITY = OWL.minCardinality.asNode();
+
+    private static final Node ONE = NodeFactory.createLiteral("1", XSDDatatype.XSDint);
+
+    private static final Node DOMAIN = RDFS.domain.asNode();
+
+    private static final Node RANGE = RDFS.range.asNode();
+
+    private static final Node SUB_CLASS_OF = RDFS.subClassOf.asNode();
+
+    private static final Node INVERSE_OF = OWL.inverseOf.asNode();
+
+    /**
+     * Model
+     */
+    private Model model = ModelFactory.createDefaultModel();
+
+    /**
+     * Graph behind the model
+     */
+    private Graph graph = model.getGraph();
+
+    public GraphOWLBackend() {
+        model.setNsPrefix("rdf", RDF.getURI());
+        model.setNsPrefix("rdfs", RDFS.getURI());
+        model.setNsPrefix("owl", OWL.getURI());
+        model.setNsPrefix("xsd", XSD.getURI());
+    }
+
+    public Resource createOWLClass(String uri) {
+        Node node = NodeFactory.createURI(uri);
+        graph.add(Triple.create(node, TYPE, CLASS));
+
+        return model.wrapAsResource(node);
+    }
+
+    public Resource createOWLObjectProperty(
+        String uri,
+        boolean isFunctional,
+        boolean isInverseFunctional
+    ) {
+        Node node = NodeFactory.createURI(uri);
+
+        // Like OntModel.createInverseFunctionalProperty, no owl:ObjectProperty type is added
+        graph.add(Triple.create(
+            node, TYPE, isInverseFunctional ? INVERSE_FUNCTIONAL_PROPERTY : OBJECT_PROPERTY));
+
+        if (isFunctional) {
+            graph.add(Triple.create(node, TYPE, FUNCTIONAL_PROPERTY));
+        }
+
+        return model.wrapAsResource(node);
+    }
+
+    public boolean isFunctionalProperty(Resource property) {
+        return graph.contains(property.asNode(), TYPE, FUNCTIONAL_PROPERTY);
+    }
+
+    public void convertToInverseFunctionalProperty(Resource property) {
+        graph.add(Triple.create(property.asNode(), TYPE, INVERSE_FUNCTIONAL_PROPERTY));
+    }
+
+    public Resource createOWLDatatypeProperty(String uri, boolean isFunctional) {
+        Node node = NodeFactory.createURI(uri);
+        graph.add(Triple.create(node, TYPE, DATATYPE_PROPERTY));
+
+        if (isFunctional) {
+            graph.add(Triple.create(node, TYPE, FUNCTIONAL_PROPERTY));
+        }
+
+        return model.wrapAsResource(node);
+    }
+
+    public void addDomain(Resource property, Resource domainClass) {
+        graph.add(Triple.create(property.asNode(), DOMAIN, domainClass.asNode()));
+    }
+
+    public void addRange(Resource property, Resource rangeClass) {
+        graph.add(Triple.create(property.asNode(), RANGE, rangeClass.asNode()));
+    }
+
+    public void addInverseOf(Resource property, Resource inverseOfProperty) {
+        graph.add(Triple.create(property.asNode(), INVERSE_OF, inverseOfProperty.asNode()));
+    }
+
+    public void addMinCardinalityOneRestriction(Resource domainClass, Resource property) {
+        Node restriction = NodeFactory.createBlankNode();
+
+        graph.add(Triple.create(restriction, TYPE, RESTRICTION));
+        graph.add(Triple.create(restriction, ON_PROPERTY, property.asNode()));
+        graph.add(Triple.create(restriction, MIN_CARDINALITY, ONE));
+        graph.add(Triple.create(domainClass.asNode(), SUB_CLASS_OF, restriction));
+    }
+
+    public long size() {
+        return model.size();
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    public OWLBackend newInstance() {
+        return new GraphOWLBackend();
+    }
+}
@@ -0,0 +1,88 @@
+package com.myrosh.erowlmapper.owl.backend;
+
+import com.myrosh.erowlmapper.owl.OWLBackend;
+import org.apache.jena.ontology.*;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * @author igorm
+ *
+ * An OWLBackend implementation building an OWL Lite OntModel
+ *
+ */
+public class OntModelOWLBackend implements OWLBackend {
+
+    /**
+     * OWL model, created on first use so that Jena is not initialized before it is needed
+     */
+    private OntModel model;
+
+    public Resource createOWLClass(String uri) {
+        return getOntModel().createClass(uri);
+    }
+
+    public Resource createOWLObjectProperty(
+        String uri,
+        boolean isFunctional,
+        boolean isInverseFunctional
+    ) {
+        return isInverseFunctional
+            ? getOntModel().createInverseFunctionalProperty(uri, isFunctional)
+            : getOntModel().createObjectProperty(uri, isFunctional);
+    }
+
+    public boolean isFunctionalProperty(Resource property) {
+        return property.as(OntProperty.class).isFunctionalProperty();
+    }
+
+    public void convertToInverseFunctionalProperty(Resource property) {
+        getOntModel().add(property, RDF.type, OWL.InverseFunctionalProperty);
+    }
+
+    public Resource createOWLDatatypeProperty(String uri, boolean isFunctional) {
+        return getOntModel().createDatatypeProperty(uri, isFunctional);
+    }
+
+    public void addDomain(Resource property, Resource domainClass) {
+        property.as(OntProperty.class).addDomain(domainClass);
+    }
+
+    public void addRange(Resource property, Resource rangeClass) {
+        property.as(OntProperty.class).addRange(rangeClass);
+    }
+
+    public void addInverseOf(Resource property, Resource inverseOfProperty) {
+        property.as(OntProperty.class).addInverseOf(inverseOfProperty.as(Property.class));
+    }
+
+    public void addMinCardinalityOneRestriction(Resource domainClass, Resource property) {
+        domainClass.as(OntClass.class).addSuperClass(
+            getOntModel().createMinCardinalityRestriction(null, property.as(Property.class), 1));
+    }
+
+    public long size() {
+        // The OntModel graph is a union, whose size would be counted triple by triple
+        return getOntModel().getBaseModel().size();
+    }
+
+    public Model getModel() {
+        return getOntModel();
+    }
+
+    public OWLBackend newInstance() {
+        return new OntModelOWLBackend();
+    }
+
+    private OntModel getOntModel() {
+        if (model == null) {
+            model = ModelFactory.createOntologyModel(OntModelSpec.OWL_LITE_MEM);
+        }
+
+        return model;
+    }
+}
@@ -0,0 +1,130 @@
+package com.myrosh.erowlmapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.myrosh.erowlmapper.owl.OWLFormat;
+
+/**
+ * BatchMapper unit tests.
+ */
+public class BatchMapperTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBatchMatchesSingleFileMapping() throws Exception {
+        File inputDirectory = folder.newFolder("input");
+        File outputDirectory = folder.newFolder("output");
+        File singleDirectory = folder.newFolder("single");
+        copyFixtures(inputDirectory.toPath());
+
+        BatchMapper batchMapper = new BatchMapper(OWLFormat.RDF_XML_ABBREV, 2);
+        List<BatchMapper.Job> jobs = batchMapper.findJobs(
+            inputDirectory.getPath(), outputDirectory.toPath());
+        BatchMapper.Result result = batchMapper.map(jobs);
+
+        Assert.assertEquals(Fixtures.SAMPLE.length, result.getJobCount());
+        Assert.assertEquals(Fixtures.SAMPLE.length, result.getSuccessCount());
+
+        for (String baseFilename : Fixtures.SAMPLE) {
+            Path single = singleDirectory.toPath().resolve(baseFilename + ".owl");
+            App.map(inputDirectory.toPath().resolve(baseFilename + ".yml"), single,
+                OWLFormat.RDF_XML_ABBREV);
+
+            Assert.assertArrayEquals(
+                Files.readAllBytes(single),
+                Files.readAllBytes(outputDirectory.toPath().resolve(baseFilename + ".owl"))
+            );
+        }
+    }
+
+    @Test
+    public void testBatchContinuesPastFailures() throws Exception {
+        File inputDirectory = folder.newFolder("input");
+        copyFixtures(inputDirectory.toPath());
+        Files.write(inputDirectory.toPath().resolve("invalid.yml"),
+            "entities: [\n".getBytes(StandardCharsets.UTF_8));
+
+        BatchMapper batchMapper = new BatchMapper(OWLFormat.N_TRIPLES, 2);
+        BatchMapper.Result result = batchMapper.map(batchMapper.findJobs(
+            inputDirectory.getPath() + "/*.yml", folder.newFolder("output").toPath()));
+
+        Assert.assertEquals(Fixtures.SAMPLE.length + 1, result.getJobCount());
+        Assert.assertEquals(Fixtures.SAMPLE.length, result.getSuccessCount());
+        Assert.assertEquals(1, result.getFailures().size());
+        Assert.assertTrue(result.getFailures().get(0).contains("invalid.yml"));
+    }
+
+    @Test
+    public void testManifest() throws Exception {
+        Path inputDirectory = folder.newFolder("input").toPath();
+        Path outputDirectory = folder.getRoot().toPath().resolve("nested/output");
+        copyFixtures(inputDirectory);
+
+        StringBuilder manifest = new StringBuilder("# input output\n\n");
+
+        for (String baseFilename : Fixtures.SAMPLE) {
+            manifest.append(inputDirectory.resolve(baseFilename + ".yml")).append(' ')
+                .append(outputDirectory.resolve(baseFilename + ".owl")).append('\n');
+        }
+
+        Path manifestPath = folder.newFile("manifest.txt").toPath();
+        Files.write(manifestPath, manifest.toString().getBytes(StandardCharsets.UTF_8));
+
+        BatchMapper batchMapper = new BatchMapper(OWLFormat.RDF_XML_ABBREV, 1);
+        BatchMapper.Result result = batchMapper.map(batchMapper.readManifest(manifestPath));
+
+        Assert.assertEquals(Fixtures.SAMPLE.length, result.getSuccessCount());
+
+        for (String baseFilename : Fixtures.SAMPLE) {
+            Assert.assertTrue(Files.exists(outputDirectory.resolve(baseFilename + ".owl")));
+        }
+    }
+
+    @Test
+    public void testRejectsJobsWithTheSameOutput() throws Exception {
+        Path inputDirectory = folder.newFolder("input").toPath();
+        Path outputDirectory = folder.newFolder("output").toPath();
+        copyFixtures(inputDirectory);
+        Files.copy(inputDirectory.resolve("weak_entity.yml"),
+            inputDirectory.resolve("weak_entity.yaml"));
+
+        BatchMapper batchMapper = new BatchMapper(OWLFormat.N_TRIPLES, 2);
+
+        try {
+            batchMapper.findJobs(inputDirectory.toString(), outputDirectory);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("weak_entity.nt"));
+        }
+
+        Path nestedDirectory = Files.createDirectory(inputDirectory.resolve("nested"));
+        Files.move(inputDirectory.resolve("weak_entity.yaml"),
+            nestedDirectory.resolve("weak_entity.yml"));
+
+        try {
+            batchMapper.findJobs(inputDirectory + "/**.yml", outputDirectory);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("weak_entity.nt"));
+        }
+    }
+
+    private void copyFixtures(Path directory) throws Exception {
+        for (String baseFilename : Fixtures.SAMPLE) {
+            Files.copy(Fixtures.getPath(baseFilename + ".yml"),
+                directory.resolve(baseFilename + ".yml"));
+        }
+    }
+}
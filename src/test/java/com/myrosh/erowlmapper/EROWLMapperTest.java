@@ -2,19 +2,38 @@ package com.myrosh.erowlmapper;
 
 import java.lang.ClassLoader;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileReader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 import org.junit.Assert;
 
+import com.myrosh.erowlmapper.er.ERAttribute;
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERParticipatingEntity;
+import com.myrosh.erowlmapper.er.ERRelationship;
 import com.myrosh.erowlmapper.er.ERSchema;
 import com.myrosh.erowlmapper.er.ERParser;
+import com.myrosh.erowlmapper.er.generator.ERSchemaGenerator;
 import com.myrosh.erowlmapper.er.parser.YAMLERParser;
+import com.myrosh.erowlmapper.er.writer.YAMLERWriter;
+import com.myrosh.erowlmapper.owl.OWLException;
+import com.myrosh.erowlmapper.owl.OWLFormat;
 import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+import com.myrosh.erowlmapper.owl.backend.GraphOWLBackend;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
 
 /**
  * EROWLMapper unit tests.
@@ -66,6 +85,291 @@ public class EROWLMapperTest
         Assert.assertTrue(isMappedERMatchingOWL("ternary_relationship"));
     }
 
+    @Test
+    public void testGraphBackendMatchesFixtures() throws Exception {
+        for (String baseFilename : Fixtures.ALL) {
+            OWLLiteOntology ontology = new EROWLMapper(new OWLLiteOntology(new GraphOWLBackend()))
+                .map(Fixtures.parse(baseFilename));
+
+            Model correctModel = ModelFactory.createDefaultModel();
+            correctModel.read(getClass().getClassLoader().getResourceAsStream(
+                baseFilename + ".owl"), null, "RDF/XML");
+
+            Assert.assertTrue(baseFilename,
+                ontology.getBackend().getModel().isIsomorphicWith(correctModel));
+        }
+    }
+
+    @Test
+    public void testGraphBackendMatchesOntModelBackend() throws Exception {
+        for (long seed = 0; seed < 5; seed++) {
+            ERSchemaGenerator generator = new ERSchemaGenerator();
+            generator.setSeed(seed);
+            generator.setEntityCount(200);
+            generator.setWeakEntityRatio(0.3);
+            generator.setCompositeAttributeRatio(0.3);
+            generator.setRelationshipWithAttributesRatio(0.5);
+            generator.setCardinalityConstraintRatio(0.8);
+
+            ERSchema schema = generator.generate();
+            OWLLiteOntology ontModelOntology = new EROWLMapper().map(schema);
+            OWLLiteOntology graphOntology =
+                new EROWLMapper(new OWLLiteOntology(new GraphOWLBackend())).map(schema);
+
+            Assert.assertTrue(ontModelOntology.isIsomorphicWith(graphOntology));
+        }
+    }
+
+    @Test
+    public void testWriteFormatsRoundTrip() throws Exception {
+        OWLLiteOntology ontology = new EROWLMapper().map(Fixtures.parse("ternary_relationship"));
+
+        for (OWLFormat format : OWLFormat.values()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ontology.write(output, format);
+
+            Assert.assertTrue(format.getName(), ontology.isIsomorphicWith(OWLLiteOntology.read(
+                new ByteArrayInputStream(output.toByteArray()), format)));
+
+            if (format.isBinary()) {
+                continue;
+            }
+
+            StringWriter writer = new StringWriter();
+            ontology.write(writer, format);
+
+            Model model = ModelFactory.createDefaultModel();
+            model.read(new StringReader(writer.toString()), null, format.getLang());
+
+            Assert.assertTrue(format.getName(),
+                ontology.getBackend().getModel().isIsomorphicWith(model));
+            Assert.assertEquals(format.getName(), writer.toString(), output.toString("UTF-8"));
+        }
+
+        try {
+            ontology.write(new StringWriter(), OWLFormat.RDF_THRIFT);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testPlanCountsOperationsAndNames() throws Exception {
+        MappingPlan plan =
+            new EROWLMapper().plan(Fixtures.parse("binary_relationship_with_attributes"));
+
+        Assert.assertEquals(3, plan.getOperationCount());
+        Assert.assertEquals(2, plan.getOperations(MappingOperation.Type.STRONG_ENTITY).size());
+        Assert.assertEquals(1, plan.getOperations(
+            MappingOperation.Type.BINARY_RELATIONSHIP_WITH_ATTRIBUTES).size());
+        Assert.assertEquals(3, plan.getClassCount());
+        Assert.assertEquals(4, plan.getObjectPropertyCount());
+        Assert.assertEquals(1, plan.getDatatypePropertyCount());
+    }
+
+    @Test
+    public void testPlanDetectsNameCollisions() throws Exception {
+        ERSchema schema = new ERSchema();
+        schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "RelationshipA", Arrays.asList("EntityA", "EntityB"), null);
+        schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "RelationshipB", Arrays.asList("EntityC", "EntityB"), null);
+        schema.getEntities().remove(3);
+
+        EROWLMapper mapper = new EROWLMapper();
+
+        try {
+            mapper.plan(schema);
+            Assert.fail();
+        } catch (OWLException e) {
+            Assert.assertEquals("OWL Ontology Error: Object property hasEntityB already exists.",
+                e.getMessage());
+        }
+    }
+
+    @Test
+    public void testParallelMappingMatchesSequentialMapping() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            for (long seed = 0; seed < 5; seed++) {
+                ERSchemaGenerator generator = new ERSchemaGenerator();
+                generator.setSeed(seed);
+                generator.setEntityCount(300);
+                generator.setRelationshipRatio(0.5);
+
+                ERSchema schema = generator.generate();
+                OWLLiteOntology sequentialOntology = new EROWLMapper().map(schema);
+                OWLLiteOntology parallelOntology =
+                    new EROWLMapper().map(new EROWLMapper().plan(schema), pool);
+
+                Assert.assertTrue(sequentialOntology.isIsomorphicWith(parallelOntology));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelMappingDetectsNameCollisionsAcrossComponents() throws Exception {
+        ERSchema schema = new ERSchema();
+        schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "RelationshipA", Arrays.asList("EntityA", "EntityB"), null)
+            .getParticipatingEntities().get(1).setRole("Shared");
+        schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "RelationshipB", Arrays.asList("EntityC", "EntityD"), null)
+            .getParticipatingEntities().get(1).setRole("Shared");
+
+        try {
+            new EROWLMapper().mapParallel(schema);
+            Assert.fail();
+        } catch (OWLException e) {
+            Assert.assertEquals("OWL Ontology Error: Object property hasShared already exists.",
+                e.getMessage());
+        }
+    }
+
+    @Test
+    public void testOntologyOverExistingBackendKnowsItsNames() throws Exception {
+        OWLLiteOntology ontology = new OWLLiteOntology(
+            new EROWLMapper().map(Fixtures.parse("weak_entity")).getBackend());
+
+        Assert.assertNotNull(ontology.getOWLClass("EntityB"));
+
+        try {
+            ontology.addOWLClass("entityB");
+            Assert.fail();
+        } catch (OWLException e) {
+            Assert.assertEquals("OWL Ontology Error: Class EntityB already exists.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRemapMatchesFullMappingAfterRandomEdits() throws Exception {
+        for (long seed = 0; seed < 10; seed++) {
+            ERSchemaGenerator generator = new ERSchemaGenerator();
+            generator.setSeed(seed);
+            generator.setEntityCount(30);
+            generator.setWeakEntityRatio(0.3);
+            generator.setRelationshipWithAttributesRatio(0.5);
+            generator.setCardinalityConstraintRatio(0.5);
+
+            ERSchema oldSchema = generator.generate();
+            OWLLiteOntology ontology = new EROWLMapper().map(oldSchema);
+            Random random = new Random(seed);
+
+            for (int step = 0; step < 5; step++) {
+                ERSchema newSchema = copy(oldSchema);
+
+                for (int i = 0; i < 1 + random.nextInt(4); i++) {
+                    edit(newSchema, random, "x" + step + "e" + i);
+                }
+
+                newSchema.validate();
+                new EROWLMapper(ontology).remap(oldSchema, newSchema);
+
+                Assert.assertTrue("seed " + seed + ", step " + step,
+                    ontology.isIsomorphicWith(new EROWLMapper().map(copy(newSchema))));
+
+                oldSchema = newSchema;
+            }
+        }
+    }
+
+    @Test
+    public void testMapElementsRenamedAfterAdding() throws Exception {
+        ERSchema schema = Fixtures.parse("binary_relationship_with_attributes");
+        schema.getEntities().get(0).setName("Car");
+        schema.getRelationships().get(0).getParticipatingEntities().get(0).setName("Car");
+
+        Assert.assertTrue(new EROWLMapper().map(schema).isIsomorphicWith(
+            new EROWLMapper().map(copy(schema))));
+    }
+
+    @Test
+    public void testMappingDiff() throws Exception {
+        ERSchema oldSchema = Fixtures.parse("binary_relationship_with_attributes");
+        ERSchema newSchema = copy(oldSchema);
+        EROWLMapper mapper = new EROWLMapper();
+
+        Assert.assertTrue(new MappingDiff(mapper.plan(oldSchema), mapper.plan(newSchema)).isEmpty());
+
+        ERAttribute attribute = new ERAttribute();
+        attribute.setName("Nickname");
+        newSchema.getEntities().get(0).addAttribute(attribute);
+        newSchema.addEntityWithAttributes("Garage", Arrays.asList("Address"));
+        newSchema.getEntities().get(2).getAttributes().get(0).setKey(true);
+
+        MappingDiff diff = new MappingDiff(mapper.plan(oldSchema), mapper.plan(newSchema));
+
+        Assert.assertEquals(1, diff.getAddedEntities().size());
+        Assert.assertEquals("Garage", diff.getAddedEntities().get(0).getName());
+        Assert.assertEquals(1, diff.getChangedEntities().size());
+        Assert.assertTrue(diff.getRemovedEntities().isEmpty());
+        Assert.assertTrue(diff.getChangedRelationships().isEmpty());
+    }
+
+    private void edit(ERSchema schema, Random random, String name) {
+        List<EREntity> entities = schema.getEntities();
+        List<ERRelationship> relationships = new ArrayList<ERRelationship>();
+
+        for (ERRelationship relationship : schema.getRelationships()) {
+            if (!relationship.isIdentifying()) {
+                relationships.add(relationship);
+            }
+        }
+
+        EREntity entity = entities.get(random.nextInt(entities.size()));
+
+        switch (relationships.isEmpty() ? random.nextInt(2) * 3 : random.nextInt(5)) {
+            case 0:
+                ERAttribute attribute = new ERAttribute();
+                attribute.setName(name);
+                attribute.setMultivalued(random.nextBoolean());
+                entity.addAttribute(attribute);
+                break;
+            case 1:
+                for (ERAttribute nonKeyAttribute : entity.getNonKeyAttributes()) {
+                    nonKeyAttribute.setMultivalued(!nonKeyAttribute.isMultivalued());
+                    break;
+                }
+                break;
+            case 2:
+                ERRelationship relationship = relationships.get(random.nextInt(relationships.size()));
+                ERParticipatingEntity participatingEntity = relationship.getParticipatingEntities()
+                    .get(random.nextInt(relationship.getParticipatingEntities().size()));
+                participatingEntity.setMax(participatingEntity.getMax() == 1 ? -1 : 1);
+                break;
+            case 3:
+                schema.addEntityWithAttributes(name, Arrays.asList(name + "Id"))
+                    .getAttributes().get(0).setKey(true);
+
+                ERRelationship newRelationship = new ERRelationship();
+                newRelationship.setName(name + "Relationship");
+
+                for (String participatingEntityName : Arrays.asList(entity.getName(), name)) {
+                    ERParticipatingEntity newParticipatingEntity = new ERParticipatingEntity();
+                    newParticipatingEntity.setName(participatingEntityName);
+                    newParticipatingEntity.setRole(name + "p"
+                        + newRelationship.getParticipatingEntities().size());
+                    newRelationship.addParticipatingEntity(newParticipatingEntity);
+                }
+
+                schema.addRelationship(newRelationship);
+                break;
+            default:
+                schema.getRelationships().remove(
+                    relationships.get(random.nextInt(relationships.size())));
+        }
+    }
+
+    private static ERSchema copy(ERSchema schema) throws Exception {
+        StringWriter writer = new StringWriter();
+        new YAMLERWriter().write(schema, writer);
+
+        return new YAMLERParser().parse(new StringReader(writer.toString()));
+    }
+
     private boolean isMappedERMatchingOWL(String baseFilename) throws Exception {
         ClassLoader classLoader = getClass().getClassLoader();
 
@@ -0,0 +1,92 @@
+package com.myrosh.erowlmapper;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.parser.YAMLERParser;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+
+/**
+ * Fixtures shared by the unit tests. A fixture is a schema in src/test/resources, named
+ * fixture.yml, and the ontology it is mapped to, named fixture.owl.
+ */
+public final class Fixtures
+{
+    /**
+     * Every fixture
+     */
+    public static final String[] ALL = {
+        "entity_with_single_composite_key_attribute",
+        "entity_with_single_simple_key_attribute",
+        "entity_with_multiple_simple_key_attributes",
+        "entity_with_simple_attribute",
+        "entity_with_composite_attribute",
+        "weak_entity",
+        "binary_relationship_without_attributes",
+        "binary_relationship_with_attributes",
+        "ternary_relationship"
+    };
+
+    /**
+     * Fixtures of different sizes that together use every kind of element
+     */
+    public static final String[] SAMPLE = {
+        "entity_with_composite_attribute",
+        "weak_entity",
+        "binary_relationship_with_attributes",
+        "ternary_relationship"
+    };
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param filename e.g. weak_entity.yml
+     * @return
+     * @throws Exception
+     */
+    public static Path getPath(String filename) throws Exception {
+        return Paths.get(Fixtures.class.getClassLoader().getResource(filename).toURI());
+    }
+
+    /**
+     * @param fixture
+     * @return a reader of the schema
+     */
+    public static Reader open(String fixture) {
+        return new InputStreamReader(
+            Fixtures.class.getClassLoader().getResourceAsStream(fixture + ".yml"),
+            StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param fixture
+     * @return the parsed and validated schema
+     * @throws Exception
+     */
+    public static ERSchema parse(String fixture) throws Exception {
+        try (Reader reader = open(fixture)) {
+            ERSchema schema = new YAMLERParser().parse(reader);
+            schema.validate();
+
+            return schema;
+        }
+    }
+
+    /**
+     * @param schema
+     * @return the ontology of the schema in RDF/XML-ABBREV
+     * @throws Exception
+     */
+    public static String map(ERSchema schema) throws Exception {
+        StringWriter writer = new StringWriter();
+        new EROWLMapper().map(schema).write(writer, OWLFormat.RDF_XML_ABBREV);
+
+        return writer.toString();
+    }
+}
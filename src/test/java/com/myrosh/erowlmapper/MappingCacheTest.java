@@ -0,0 +1,130 @@
+package com.myrosh.erowlmapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERRelationship;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+
+/**
+ * MappingCache unit tests.
+ */
+public class MappingCacheTest
+{
+    /**
+     * EROWLMapper.VERSION and the digest of the expected ontologies of the fixtures
+     */
+    private static final String VERSIONED_FIXTURE_DIGEST =
+        "1:41caee3cea647cc0b41ef18603d5634fb812c1e35f6bc627980b70d63fc650f4";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testKeyIgnoresElementOrder() throws Exception {
+        ERSchema schema = Fixtures.parse("ternary_relationship");
+        String key = MappingCache.getKey(schema, OWLFormat.TURTLE);
+
+        Collections.reverse(schema.getEntities());
+        Collections.reverse(schema.getRelationships());
+
+        for (EREntity entity : schema.getEntities()) {
+            Collections.reverse(entity.getAttributes());
+        }
+
+        Assert.assertEquals(key, MappingCache.getKey(schema, OWLFormat.TURTLE));
+        Assert.assertNotEquals(key, MappingCache.getKey(schema, OWLFormat.N_TRIPLES));
+
+        ERRelationship relationship = schema.getRelationships().get(0);
+        Collections.swap(relationship.getParticipatingEntities(), 0, 1);
+
+        Assert.assertNotEquals(key, MappingCache.getKey(schema, OWLFormat.TURTLE));
+    }
+
+    @Test
+    public void testHitReturnsMappedOntology() throws Exception {
+        Path input = Fixtures.getPath("weak_entity.yml");
+        Path uncachedOutput = folder.getRoot().toPath().resolve("uncached.owl");
+        Path missOutput = folder.getRoot().toPath().resolve("miss.owl");
+        Path hitOutput = folder.getRoot().toPath().resolve("hit.owl");
+        MappingCache cache = new MappingCache(folder.newFolder("cache").toPath(), 1024 * 1024);
+
+        App.map(input, uncachedOutput, OWLFormat.RDF_XML_ABBREV);
+        App.map(input, missOutput, OWLFormat.RDF_XML_ABBREV, cache);
+        App.map(input, hitOutput, OWLFormat.RDF_XML_ABBREV, cache);
+
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertArrayEquals(Files.readAllBytes(uncachedOutput), Files.readAllBytes(missOutput));
+        Assert.assertArrayEquals(Files.readAllBytes(missOutput), Files.readAllBytes(hitOutput));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        Path directory = folder.newFolder("cache").toPath();
+        MappingCache cache = new MappingCache(directory, 250);
+
+        cache.put("first", new byte[100]);
+        cache.put("second", new byte[100]);
+        Files.setLastModifiedTime(directory.resolve("first.cache"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(directory.resolve("second.cache"), FileTime.fromMillis(2000));
+        Assert.assertNotNull(cache.get("first"));
+
+        cache.put("third", new byte[100]);
+
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertNull(cache.get("second"));
+        Assert.assertNotNull(cache.get("first"));
+        Assert.assertNotNull(cache.get("third"));
+        Assert.assertEquals(3, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testVersionChangesWithExpectedOntologies() throws Exception {
+        Path directory = Fixtures.getPath("weak_entity.owl").getParent();
+        List<Path> paths = new ArrayList<Path>();
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*.owl")) {
+            for (Path path : entries) {
+                paths.add(path);
+            }
+        }
+
+        Collections.sort(paths);
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+        for (Path path : paths) {
+            digest.update((path.getFileName() + "\n").getBytes(StandardCharsets.UTF_8));
+            // Line endings depend on the checkout
+            digest.update(new String(Files.readAllBytes(path), StandardCharsets.UTF_8)
+                .replace("\r", "").getBytes(StandardCharsets.UTF_8));
+        }
+
+        StringBuilder versionedDigest = new StringBuilder(EROWLMapper.VERSION).append(':');
+
+        for (byte b : digest.digest()) {
+            versionedDigest.append(String.format("%02x", b));
+        }
+
+        // Cached ontologies of an earlier version would be served for the changed mapping
+        Assert.assertEquals("The expected ontologies changed, increase EROWLMapper.VERSION"
+            + " and update VERSIONED_FIXTURE_DIGEST.",
+            VERSIONED_FIXTURE_DIGEST, versionedDigest.toString());
+    }
+}
@@ -0,0 +1,229 @@
+package com.myrosh.erowlmapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.myrosh.erowlmapper.er.ERException;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+
+/**
+ * MappingPipeline unit tests.
+ */
+public class MappingPipelineTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMapsLikeTheBlockingApi() throws Exception {
+        MappingPipeline pipeline = new MappingPipeline(OWLFormat.RDF_XML_ABBREV);
+        pipeline.setConcurrency(MappingPipeline.Stage.MAP, 2);
+        pipeline.start();
+
+        List<ByteArrayOutputStream> outputs = new ArrayList<ByteArrayOutputStream>();
+        List<CompletableFuture<OWLLiteOntology>> results =
+            new ArrayList<CompletableFuture<OWLLiteOntology>>();
+
+        for (String baseFilename : Fixtures.SAMPLE) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            outputs.add(output);
+            results.add(pipeline.submit(Fixtures.open(baseFilename), output));
+        }
+
+        Path input = folder.getRoot().toPath().resolve("weak_entity.yml");
+        Path output = folder.getRoot().toPath().resolve("weak_entity.owl");
+        Files.copy(Fixtures.getPath("weak_entity.yml"), input);
+        CompletableFuture<OWLLiteOntology> fileResult = pipeline.submit(input, output);
+
+        pipeline.close();
+
+        for (int i = 0; i < Fixtures.SAMPLE.length; i++) {
+            StringWriter expected = new StringWriter();
+            App.map(Fixtures.open(Fixtures.SAMPLE[i])).write(expected, OWLFormat.RDF_XML_ABBREV);
+
+            Assert.assertEquals(expected.toString(),
+                new String(outputs.get(i).toByteArray(), StandardCharsets.UTF_8));
+            Assert.assertTrue(results.get(i).isDone());
+        }
+
+        Assert.assertArrayEquals(outputs.get(1).toByteArray(), Files.readAllBytes(output));
+        Assert.assertTrue(fileResult.get().size() > 0);
+
+        for (MappingPipeline.Stage stage : MappingPipeline.Stage.values()) {
+            MappingPipeline.StageMetrics metrics = pipeline.getStageMetrics(stage);
+
+            Assert.assertEquals(Fixtures.SAMPLE.length + 1, metrics.getCompletedCount());
+            Assert.assertEquals(0, metrics.getQueueDepth());
+        }
+    }
+
+    @Test
+    public void testContinuesPastFailures() throws Exception {
+        MappingPipeline pipeline = new MappingPipeline(OWLFormat.N_TRIPLES);
+        pipeline.start();
+
+        CompletableFuture<OWLLiteOntology> invalidYAML = pipeline.submit(
+            new StringReader("entities: [\n"), new ByteArrayOutputStream());
+        CompletableFuture<OWLLiteOntology> invalidSchema = pipeline.submit(
+            new StringReader("entities:\n    -\n        name: A\n    -\n        name: a\n"),
+            new ByteArrayOutputStream());
+        CompletableFuture<OWLLiteOntology> valid =
+            pipeline.submit(Fixtures.open("ternary_relationship"), new ByteArrayOutputStream());
+
+        pipeline.close();
+
+        assertFailed(invalidYAML, null);
+        assertFailed(invalidSchema, ERException.class);
+        Assert.assertTrue(valid.get().size() > 0);
+        Assert.assertEquals(1,
+            pipeline.getStageMetrics(MappingPipeline.Stage.PARSE).getFailedCount());
+        Assert.assertEquals(1,
+            pipeline.getStageMetrics(MappingPipeline.Stage.VALIDATE).getFailedCount());
+        Assert.assertEquals(1,
+            pipeline.getStageMetrics(MappingPipeline.Stage.WRITE).getCompletedCount());
+
+        try {
+            pipeline.submit(Fixtures.open("weak_entity"), new ByteArrayOutputStream());
+            Assert.fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testContinuesPastErrors() throws Exception {
+        MappingPipeline pipeline = new MappingPipeline(OWLFormat.N_TRIPLES);
+        pipeline.start();
+
+        CompletableFuture<OWLLiteOntology> failing = pipeline.submit(Fixtures.open("weak_entity"),
+            new OutputStream() {
+                @Override
+                public void write(int b) {
+                    throw new StackOverflowError();
+                }
+            });
+        CompletableFuture<OWLLiteOntology> valid =
+            pipeline.submit(Fixtures.open("ternary_relationship"), new ByteArrayOutputStream());
+
+        pipeline.close();
+
+        assertFailed(failing, StackOverflowError.class);
+        Assert.assertTrue(valid.get().size() > 0);
+        Assert.assertEquals(1,
+            pipeline.getStageMetrics(MappingPipeline.Stage.WRITE).getFailedCount());
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        final MappingPipeline pipeline = new MappingPipeline(OWLFormat.N_TRIPLES);
+        pipeline.setQueueCapacity(1);
+        pipeline.setConcurrency(MappingPipeline.Stage.MAP, 1);
+        pipeline.start();
+
+        // Writes block until released, so the queues fill up behind the write stage
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger submittedCount = new AtomicInteger();
+        final int count = 20;
+
+        Thread submitter = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        pipeline.submit(Fixtures.open("weak_entity"),
+                            new BlockingOutputStream(release));
+                        submittedCount.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        submitter.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (pipeline.getStageMetrics(MappingPipeline.Stage.PARSE).getQueueDepth() < 1
+            && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        submitter.join(200);
+
+        // One schema being written and at most two per earlier stage, one queued and one
+        // being processed or handed on, plus the one blocked in submit()
+        Assert.assertTrue(submitter.isAlive());
+        Assert.assertTrue(submittedCount.get() <= 8);
+        Assert.assertEquals(1,
+            pipeline.getStageMetrics(MappingPipeline.Stage.WRITE).getQueueDepth());
+
+        release.countDown();
+        submitter.join();
+        pipeline.close();
+
+        Assert.assertEquals(count,
+            pipeline.getStageMetrics(MappingPipeline.Stage.WRITE).getCompletedCount());
+        Assert.assertTrue(
+            pipeline.getStageMetrics(MappingPipeline.Stage.PARSE).getBlockedMillis() > 0);
+    }
+
+    private static void assertFailed(CompletableFuture<OWLLiteOntology> result,
+        Class<? extends Throwable> exceptionClass) throws InterruptedException {
+        try {
+            result.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            if (exceptionClass != null) {
+                Assert.assertTrue(exceptionClass.isInstance(e.getCause()));
+            }
+        }
+    }
+
+    private static class BlockingOutputStream extends FilterOutputStream {
+
+        private final CountDownLatch release;
+
+        BlockingOutputStream(CountDownLatch release) {
+            super(new ByteArrayOutputStream());
+            this.release = release;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            await();
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            await();
+            out.write(b, off, len);
+        }
+
+        private void await() throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.myrosh.erowlmapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.myrosh.erowlmapper.owl.OWLFormat;
+
+/**
+ * MappingServer unit tests.
+ */
+public class MappingServerTest
+{
+    private MappingServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MappingServer();
+        server.setThreadCount(4);
+        server.setMaxRequestSize(64 * 1024);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testMapMatchesSingleFileMapping() throws Exception {
+        String schema = readFixture("weak_entity.yml");
+        StringWriter expected = new StringWriter();
+        App.map(new StringReader(schema)).write(expected, OWLFormat.RDF_XML_ABBREV);
+
+        Response response = post("/map", schema.getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertEquals(200, response.status);
+        Assert.assertEquals(expected.toString(), response.body);
+        Assert.assertEquals(1, server.getLatencies().getCount());
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final byte[] schema = readFixture("ternary_relationship.yml").getBytes(StandardCharsets.UTF_8);
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Callable<Response>> requests = new ArrayList<Callable<Response>>();
+
+        for (int i = 0; i < 32; i++) {
+            requests.add(new Callable<Response>() {
+                public Response call() throws Exception {
+                    return post("/map?format=ntriples", schema);
+                }
+            });
+        }
+
+        try {
+            for (Future<Response> response : clients.invokeAll(requests)) {
+                Assert.assertEquals(200, response.get().status);
+                Assert.assertTrue(response.get().body.contains("<http://www.w3.org/2002/07/owl#Class>"));
+            }
+        } finally {
+            clients.shutdown();
+        }
+
+        Assert.assertEquals(32, server.getLatencies().getCount());
+        Assert.assertTrue(server.getLatencies().getPercentile(99) >= server.getLatencies().getPercentile(50));
+        Assert.assertTrue(get("/stats").body.contains("count=32"));
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        Assert.assertEquals(413, post("/map", new byte[128 * 1024]).status);
+        Assert.assertEquals(400, post("/map?format=unknown", new byte[0]).status);
+        Assert.assertEquals(405, get("/map").status);
+
+        Response response = post("/map", "entities: [\n".getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertEquals(400, response.status);
+        Assert.assertEquals(4, server.getErrorCount());
+        Assert.assertTrue(get("/stats").body.contains("errors: 4"));
+    }
+
+    private static class Response {
+        int status;
+        String body;
+    }
+
+    private Response post(String path, byte[] body) throws Exception {
+        HttpURLConnection connection = open(path);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(body);
+        } catch (IOException e) {
+            // The server may reject an oversized body before reading it
+        }
+
+        return read(connection);
+    }
+
+    private Response get(String path) throws Exception {
+        return read(open(path));
+    }
+
+    private HttpURLConnection open(String path) throws Exception {
+        return (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path)
+            .openConnection();
+    }
+
+    private static Response read(HttpURLConnection connection) throws Exception {
+        Response response = new Response();
+        response.status = connection.getResponseCode();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        try (InputStream input = response.status < 400
+            ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[8192];
+            int length;
+
+            while (input != null && (length = input.read(buffer)) != -1) {
+                body.write(buffer, 0, length);
+            }
+        }
+
+        response.body = new String(body.toByteArray(), StandardCharsets.UTF_8);
+
+        return response;
+    }
+
+    private String readFixture(String filename) throws Exception {
+        return new String(Files.readAllBytes(Fixtures.getPath(filename)), StandardCharsets.UTF_8);
+    }
+}
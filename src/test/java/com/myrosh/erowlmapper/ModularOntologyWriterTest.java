@@ -0,0 +1,201 @@
+package com.myrosh.erowlmapper;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.generator.ERSchemaGenerator;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+
+/**
+ * ModularOntologyWriter unit tests.
+ */
+public class ModularOntologyWriterTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWritesConnectedComponents() throws Exception {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(300);
+        ERSchema schema = generator.generate();
+        Path directory = folder.getRoot().toPath().resolve("modules");
+
+        List<Path> paths =
+            new ModularOntologyWriter(OWLFormat.RDF_XML_ABBREV).write(schema, directory);
+
+        Assert.assertTrue(paths.size() > 2);
+        Assert.assertEquals(directory.resolve("ontology.owl"), paths.get(0));
+        assertModulesMatchOntology(schema, paths);
+
+        // The root ontology imports every module
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_LITE_MEM);
+        model.read(paths.get(0).toUri().toString());
+
+        Assert.assertEquals(paths.size() - 1, model.listImportedOntologyURIs().size());
+        Assert.assertTrue(model.isIsomorphicWith(mapAndRead(schema, paths)));
+    }
+
+    @Test
+    public void testWritesGroups() throws Exception {
+        ERSchema schema = Fixtures.parse("ternary_relationship");
+        Map<String, List<String>> groups = new LinkedHashMap<String, List<String>>();
+        groups.put("People", Arrays.asList("EntityB", "EntityC"));
+        groups.put("Assets", Arrays.asList("EntityA"));
+
+        ModularOntologyWriter writer = new ModularOntologyWriter(OWLFormat.TURTLE);
+        writer.setGroups(groups);
+        writer.setOntologyBase("http://example.com/ontologies/");
+        List<Path> paths = writer.write(schema, folder.getRoot().toPath());
+
+        Assert.assertEquals(3, paths.size());
+        Assert.assertEquals("People.ttl", paths.get(1).getFileName().toString());
+        assertModulesMatchOntology(schema, paths);
+
+        // The relationship belongs to EntityA, so Assets imports People and declares EntityA
+        // without redeclaring EntityB and EntityC
+        OWLLiteOntology assets = read(paths.get(2), OWLFormat.TURTLE);
+        Model model = assets.getBackend().getModel();
+        Resource ontology = model.createResource("http://example.com/ontologies/Assets.ttl");
+
+        Assert.assertTrue(model.contains(ontology, OWL.imports,
+            model.createResource("http://example.com/ontologies/People.ttl")));
+        Assert.assertTrue(model.contains(
+            model.createResource(OWLLiteOntology.NS + "EntityA"), RDF.type, OWL.Class));
+        Assert.assertFalse(model.contains(
+            model.createResource(OWLLiteOntology.NS + "EntityB"), RDF.type, OWL.Class));
+    }
+
+    @Test(expected = EROWLException.class)
+    public void testRejectsUnknownEntities() throws Exception {
+        Map<String, List<String>> groups = new LinkedHashMap<String, List<String>>();
+        groups.put("People", Arrays.asList("EntityB", "Missing"));
+
+        ModularOntologyWriter writer = new ModularOntologyWriter(OWLFormat.TURTLE);
+        writer.setGroups(groups);
+        writer.write(Fixtures.parse("ternary_relationship"), folder.getRoot().toPath());
+    }
+
+    @Test
+    public void testRejectsGroupNamesThatAreNotSeparateFiles() throws Exception {
+        ERSchema schema = Fixtures.parse("ternary_relationship");
+        Path directory = folder.newFolder("modules").toPath();
+        List<List<String>> names = Arrays.asList(
+            Arrays.asList("../People"),
+            Arrays.asList("People\\Assets"),
+            Arrays.asList("Ontology"),
+            Arrays.asList("People", "people"),
+            Arrays.asList("other"));
+
+        for (List<String> moduleNames : names) {
+            Map<String, List<String>> groups = new LinkedHashMap<String, List<String>>();
+            groups.put(moduleNames.get(0), Arrays.asList("EntityA"));
+
+            if (moduleNames.size() > 1) {
+                groups.put(moduleNames.get(1), Arrays.asList("EntityB"));
+            }
+
+            ModularOntologyWriter writer = new ModularOntologyWriter(OWLFormat.TURTLE);
+            writer.setGroups(groups);
+
+            try {
+                writer.write(schema, directory);
+                Assert.fail(moduleNames.toString());
+            } catch (EROWLException e) {
+            }
+        }
+
+        // Nothing is written before the names are checked
+        Assert.assertFalse(Files.exists(folder.getRoot().toPath().resolve("People.ttl")));
+        Assert.assertEquals(0, directory.toFile().list().length);
+    }
+
+    @Test
+    public void testRenamesComponentsNamedLikeTheRoot() throws Exception {
+        ERSchema schema = new ERSchema();
+        schema.addEntityWithAttributes("Ontology", Arrays.asList("Name"));
+        schema.getEntities().get(0).getAttributes().get(0).setKey(true);
+        schema.validate();
+
+        List<Path> paths = new ModularOntologyWriter(OWLFormat.RDF_XML_ABBREV)
+            .write(schema, folder.getRoot().toPath());
+
+        Assert.assertEquals(Arrays.asList("ontology.owl", "Ontology2.owl"),
+            Arrays.asList(paths.get(0).getFileName().toString(),
+                paths.get(1).getFileName().toString()));
+        assertModulesMatchOntology(schema, paths);
+    }
+
+    /**
+     * Asserts that every class is declared once and that the modules hold the statements of
+     * the ontology of the whole schema
+     */
+    private static void assertModulesMatchOntology(ERSchema schema, List<Path> paths)
+        throws Exception {
+        OWLLiteOntology modules = new OWLLiteOntology();
+        long classCount = 0;
+
+        for (Path path : paths.subList(1, paths.size())) {
+            OWLLiteOntology module = read(path, path.toString().endsWith(".ttl")
+                ? OWLFormat.TURTLE : OWLFormat.RDF_XML_ABBREV);
+            Model model = module.getBackend().getModel();
+
+            removeHeader(model);
+            classCount += model.listSubjectsWithProperty(RDF.type, OWL.Class).toList().size();
+            modules.addOntology(module);
+        }
+
+        OWLLiteOntology ontology = new EROWLMapper().map(schema);
+
+        Assert.assertEquals(ontology.getBackend().getModel()
+            .listSubjectsWithProperty(RDF.type, OWL.Class).toList().size(), classCount);
+        Assert.assertTrue(modules.isIsomorphicWith(ontology));
+    }
+
+    private static Model mapAndRead(ERSchema schema, List<Path> paths) throws Exception {
+        Model model = ModelFactory.createDefaultModel();
+        model.add(new EROWLMapper().map(schema).getBackend().getModel());
+
+        for (Path path : paths) {
+            Model header = read(path, OWLFormat.RDF_XML_ABBREV).getBackend().getModel();
+
+            for (Resource ontology : header.listSubjectsWithProperty(RDF.type, OWL.Ontology)
+                .toList()) {
+                model.add(header.listStatements(ontology, null, (Resource)null));
+            }
+        }
+
+        return model;
+    }
+
+    private static void removeHeader(Model model) {
+        for (Resource ontology : model.listSubjectsWithProperty(RDF.type, OWL.Ontology).toList()) {
+            model.removeAll(ontology, null, null);
+        }
+    }
+
+    private static OWLLiteOntology read(Path path, OWLFormat format) throws Exception {
+        try (InputStream input = Files.newInputStream(path)) {
+            return OWLLiteOntology.read(input, format);
+        }
+    }
+}
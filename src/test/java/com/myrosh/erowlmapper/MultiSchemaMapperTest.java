@@ -0,0 +1,171 @@
+package com.myrosh.erowlmapper;
+
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.generator.ERSchemaGenerator;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+import com.myrosh.erowlmapper.owl.backend.GraphOWLBackend;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * MultiSchemaMapper unit tests.
+ */
+public class MultiSchemaMapperTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String SALES = "http://example.com/sales#";
+
+    private static final String HR = "http://example.com/hr#";
+
+    @Test
+    public void testMapsEverySchemaUnderItsNamespace() throws Exception {
+        OWLLiteOntology ontology = newMapper(MultiSchemaMapper.MergePolicy.SEPARATE).map();
+
+        OWLLiteOntology expected = new EROWLMapper(new OWLLiteOntology(new GraphOWLBackend(),
+            SALES)).map(Fixtures.parse("binary_relationship_with_attributes"));
+        expected.addOntology(new EROWLMapper(new OWLLiteOntology(new GraphOWLBackend(), HR))
+            .map(Fixtures.parse("weak_entity")));
+
+        Assert.assertTrue(ontology.isIsomorphicWith(expected));
+
+        Model model = ontology.getBackend().getModel();
+        Assert.assertTrue(model.contains(
+            model.createResource(SALES + "EntityB"), RDF.type, OWL.Class));
+        Assert.assertTrue(model.contains(
+            model.createResource(HR + "EntityB"), RDF.type, OWL.Class));
+    }
+
+    @Test
+    public void testAlignsIdenticallyNamedEntities() throws Exception {
+        OWLLiteOntology ontology =
+            newMapper(MultiSchemaMapper.MergePolicy.EQUIVALENT_CLASSES).map();
+        Model model = ontology.getBackend().getModel();
+
+        Assert.assertEquals(2, model.listStatements(null, OWL.equivalentClass,
+            (RDFNode)null).toList().size());
+        Assert.assertTrue(model.contains(model.createResource(HR + "EntityA"),
+            OWL.equivalentClass, model.createResource(SALES + "EntityA")));
+        Assert.assertTrue(model.contains(model.createResource(HR + "EntityB"),
+            OWL.equivalentClass, model.createResource(SALES + "EntityB")));
+    }
+
+    @Test(expected = EROWLException.class)
+    public void testRejectsIdenticallyNamedEntities() throws Exception {
+        newMapper(MultiSchemaMapper.MergePolicy.REJECT).map();
+    }
+
+    @Test
+    public void testRejectsInvalidNamespaces() throws Exception {
+        MultiSchemaMapper mapper = new MultiSchemaMapper();
+        mapper.addSchema(SALES, Fixtures.parse("weak_entity"));
+
+        try {
+            mapper.addSchema(SALES, Fixtures.parse("ternary_relationship"));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+
+        try {
+            mapper.addSchema("http://example.com/hr", Fixtures.parse("ternary_relationship"));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testMapsConcurrently() throws Exception {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(200);
+
+        MultiSchemaMapper mapper =
+            new MultiSchemaMapper(new OWLLiteOntology(new GraphOWLBackend()));
+        mapper.setMergePolicy(MultiSchemaMapper.MergePolicy.EQUIVALENT_CLASSES);
+        OWLLiteOntology expected = new OWLLiteOntology(new GraphOWLBackend());
+
+        for (int i = 0; i < 8; i++) {
+            String namespace = "http://example.com/domain" + i + "/";
+            ERSchema schema = generator.generate();
+            mapper.addSchema(namespace, schema);
+            expected.addOntology(new EROWLMapper(
+                new OWLLiteOntology(new GraphOWLBackend(), namespace)).map(schema));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            OWLLiteOntology ontology = mapper.map(pool);
+            Model model = ontology.getBackend().getModel();
+            long equivalences = model.listStatements(null, OWL.equivalentClass,
+                (RDFNode)null).toList().size();
+
+            // Generated schemas share their entity names, which are aligned to the first
+            Assert.assertTrue(equivalences > 0);
+            Assert.assertEquals(expected.size() + equivalences, ontology.size());
+            model.removeAll(null, OWL.equivalentClass, null);
+            Assert.assertTrue(ontology.isIsomorphicWith(expected));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testMergeNamesNamespacesAfterCleanFileNames() throws Exception {
+        Path input = folder.newFolder("sales").toPath().resolve("Sales Data (2024).yml");
+        Path output = folder.getRoot().toPath().resolve("merged.nt");
+        Files.copy(Fixtures.getPath("weak_entity.yml"), input);
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        try {
+            App.merge(Arrays.asList(input), output, OWLFormat.N_TRIPLES,
+                MultiSchemaMapper.MergePolicy.SEPARATE, pool);
+
+            try {
+                App.merge(Arrays.asList(input, folder.newFolder("hr").toPath()
+                    .resolve("SalesData2024.yml")), output, OWLFormat.N_TRIPLES,
+                    MultiSchemaMapper.MergePolicy.SEPARATE, pool);
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                // Rejected before the missing second file is read
+                Assert.assertTrue(e.getMessage().contains("SalesData2024#"));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Model model = ModelFactory.createDefaultModel();
+
+        try (InputStream stream = Files.newInputStream(output)) {
+            model.read(stream, null, "N-TRIPLE");
+        }
+
+        Assert.assertTrue(model.contains(model.createResource(
+            OWLLiteOntology.NS.replace("#", "/SalesData2024#EntityB")), RDF.type, OWL.Class));
+    }
+
+    private MultiSchemaMapper newMapper(MultiSchemaMapper.MergePolicy mergePolicy)
+        throws Exception {
+        MultiSchemaMapper mapper =
+            new MultiSchemaMapper(new OWLLiteOntology(new GraphOWLBackend()));
+        mapper.setMergePolicy(mergePolicy);
+        mapper.addSchema(SALES, Fixtures.parse("binary_relationship_with_attributes"));
+        mapper.addSchema(HR, Fixtures.parse("weak_entity"));
+
+        return mapper;
+    }
+}
@@ -0,0 +1,45 @@
+package com.myrosh.erowlmapper;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Utils and CanonicalName unit tests.
+ */
+public class UtilsTest
+{
+    private static final String[] NAMES = {
+        "", " ", "EntityA", "entity a", "Entity_A-1", "  has  spaces ", "\u00c4rzteKammer",
+        "na\u00efve caf\u00e9", "\u65e5\u672c\u8a9e \u540d\u524d", "tab\tand\nnewline", "123", "a.b.c", "\u00dcn\u00efcode_Mix 42"
+    };
+
+    @Test
+    public void testCleanNameMatchesRegex() {
+        for (String name : NAMES) {
+            Assert.assertEquals(name, name.replaceAll("[^\\p{L}\\p{Nd}]+", ""),
+                Utils.cleanName(name));
+        }
+
+        Assert.assertEquals("", Utils.cleanName(null));
+    }
+
+    @Test
+    public void testCleanNameReturnsCleanNameAsIs() {
+        String name = "EntityA";
+
+        Assert.assertSame(name, Utils.cleanName(name));
+    }
+
+    @Test
+    public void testCanonicalNameForms() {
+        for (String name : NAMES) {
+            CanonicalName canonicalName = CanonicalName.of(name);
+
+            Assert.assertEquals(Utils.lowerCaseCleanName(name), canonicalName.getLowerCaseName());
+            Assert.assertEquals(Utils.capitalizeCleanName(name), canonicalName.getCapitalizedName());
+            Assert.assertSame(canonicalName, CanonicalName.of(new String(name)));
+        }
+
+        Assert.assertEquals("", CanonicalName.of(null).getLowerCaseName());
+    }
+}
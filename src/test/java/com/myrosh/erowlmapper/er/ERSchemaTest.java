@@ -1,5 +1,6 @@
 package com.myrosh.erowlmapper.er;
 
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -302,4 +303,80 @@ public class ERSchemaTest
         exception.expectMessage("Component " + componentAttribute + " cannot be composite.");
         schema.validate();
     }
+
+    @Test
+    public void testEntityLookupByParticipatingEntity() throws ERException {
+        ERSchema schema = new ERSchema();
+        ERRelationship relationship = schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "RelationshipA", Arrays.asList("EntityA", "Entity B"), null);
+
+        for (ERParticipatingEntity participatingEntity : relationship.getParticipatingEntities()) {
+            EREntity entity = schema.getEntity(participatingEntity);
+
+            Assert.assertNotNull(entity);
+            Assert.assertEquals(participatingEntity.getUniqueName(), entity.getUniqueName());
+            Assert.assertEquals(Arrays.asList(relationship), schema.getRelationships(entity));
+
+            try {
+                schema.getRelationships(entity).clear();
+                Assert.fail();
+            } catch (UnsupportedOperationException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testIdentifyingBinaryRelationshipLookup() throws ERException {
+        ERSchema schema = new ERSchema();
+        ERRelationship relationshipA = schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "RelationshipA", Arrays.asList("EntityA", "EntityB"), null);
+        relationshipA.setIdentifying(true);
+        ERRelationship relationshipB = schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "RelationshipB", Arrays.asList("EntityB", "EntityC"), null);
+        EREntity weakEntity = schema.getEntities().get(1);
+        weakEntity.setWeak(true);
+
+        Assert.assertEquals(relationshipA, schema.getIdentifyingBinaryRelationship(weakEntity));
+        Assert.assertEquals(Arrays.asList(relationshipA),
+            schema.getIdentifyingRelationships(weakEntity));
+        Assert.assertEquals(Arrays.asList(relationshipB),
+            schema.getNonIdentifyingRelationships(weakEntity));
+
+        relationshipB.setIdentifying(true);
+
+        Assert.assertNull(schema.getIdentifyingBinaryRelationship(weakEntity));
+    }
+
+    @Test
+    public void testLookupsFollowChangesAfterAdding() throws ERException {
+        ERSchema schema = new ERSchema();
+        ERRelationship relationship = schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "RelationshipA", Arrays.asList("EntityA", "EntityB"), null);
+        EREntity entity = schema.getEntities().get(0);
+        ERParticipatingEntity participatingEntity = relationship.getParticipatingEntities().get(0);
+
+        Assert.assertEquals(entity, schema.getEntity(participatingEntity));
+
+        entity.setName("EntityC");
+        participatingEntity.setName("EntityC");
+
+        Assert.assertSame(entity, schema.getEntity(participatingEntity));
+        Assert.assertEquals(Arrays.asList(relationship), schema.getRelationships(entity));
+
+        EREntity entityD = schema.addEntityWithAttributes("EntityD", null);
+        ERParticipatingEntity participatingEntityD = new ERParticipatingEntity();
+        participatingEntityD.setName("EntityD");
+        relationship.addParticipatingEntity(participatingEntityD);
+
+        Assert.assertSame(entityD, schema.getEntity(participatingEntityD));
+        Assert.assertEquals(Arrays.asList(relationship), schema.getRelationships(entityD));
+
+        schema.getRelationships().remove(relationship);
+
+        Assert.assertTrue(schema.getRelationships(entityD).isEmpty());
+
+        schema.getEntities().set(0, entityD);
+
+        Assert.assertNull(schema.getEntity(participatingEntity));
+    }
 }
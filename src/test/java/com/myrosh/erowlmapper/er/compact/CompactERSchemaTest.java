@@ -0,0 +1,177 @@
+package com.myrosh.erowlmapper.er.compact;
+
+import com.myrosh.erowlmapper.Fixtures;
+import com.myrosh.erowlmapper.er.ERAttribute;
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERParticipatingEntity;
+import com.myrosh.erowlmapper.er.ERRelationship;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.generator.ERSchemaGenerator;
+import com.myrosh.erowlmapper.er.validator.ERSchemaValidator;
+import com.myrosh.erowlmapper.er.validator.ERViolation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CompactERSchema unit tests.
+ */
+public class CompactERSchemaTest
+{
+    @Test
+    public void testMapsLikeTheOriginalSchema() throws Exception {
+        for (String fixture : Fixtures.ALL) {
+            ERSchema schema = Fixtures.parse(fixture);
+            CompactERSchema compactSchema = new CompactERSchema(schema);
+            compactSchema.validate();
+
+            Assert.assertEquals(fixture, Fixtures.map(schema), Fixtures.map(compactSchema));
+        }
+
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(500);
+        ERSchema schema = generator.generate();
+
+        Assert.assertEquals(Fixtures.map(schema), Fixtures.map(new CompactERSchema(schema)));
+    }
+
+    @Test
+    public void testViews() {
+        ERSchema schema = new ERSchema();
+        EREntity entity = schema.addEntityWithAttributes("Entity A", Arrays.asList("Name"));
+        ERAttribute compositeAttribute = new ERAttribute();
+        compositeAttribute.setName("Address");
+        compositeAttribute.setComposite(true);
+        compositeAttribute.setKey(true);
+        entity.addAttribute(compositeAttribute);
+
+        for (String componentName : Arrays.asList("Street", "City")) {
+            ERAttribute componentAttribute = new ERAttribute();
+            componentAttribute.setName(componentName);
+            compositeAttribute.addAttribute(componentAttribute);
+        }
+
+        ERRelationship relationship = schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "Has", Arrays.asList("entity_a", "EntityB", "EntityA"), Arrays.asList("Since"));
+        relationship.getParticipatingEntities().get(1).setRole("Owner");
+        relationship.getParticipatingEntities().get(1).setMax(3);
+
+        CompactERSchema compactSchema = new CompactERSchema(schema);
+        EREntity compactEntity = compactSchema.getEntities().get(0);
+
+        Assert.assertEquals(4, compactSchema.getEntities().size());
+        Assert.assertSame(compactEntity, compactSchema.getEntities().get(0));
+        Assert.assertEquals("Entity A", compactEntity.getName());
+        Assert.assertEquals("entitya", compactEntity.getUniqueName());
+        Assert.assertEquals("EntityA", compactEntity.getCapitalizedName());
+        Assert.assertEquals(Arrays.asList("Address"), getNames(compactEntity.getKeyAttributes()));
+
+        ERAttribute compactAttribute = compactEntity.getAttributes().get(1);
+        Assert.assertTrue(compactAttribute.isComposite());
+        Assert.assertEquals(Arrays.asList("Street", "City"),
+            getNames(compactAttribute.getAttributes()));
+        Assert.assertTrue(compactAttribute.getAttributes().get(0).getAttributes().isEmpty());
+
+        ERRelationship compactRelationship = compactSchema.getRelationships().get(0);
+        Assert.assertTrue(compactRelationship.isTernary());
+        Assert.assertEquals(Arrays.asList("Since"), getNames(compactRelationship.getAttributes()));
+        Assert.assertEquals("owner",
+            compactRelationship.getParticipatingEntities().get(1).getUniqueRole());
+        Assert.assertEquals(3, compactRelationship.getParticipatingEntities().get(1).getMax());
+        Assert.assertSame(compactEntity,
+            compactSchema.getEntity(compactRelationship.getParticipatingEntities().get(0)));
+        Assert.assertSame(compactEntity,
+            compactSchema.getEntity(relationship.getParticipatingEntities().get(2)));
+        Assert.assertEquals(Arrays.asList(compactRelationship),
+            compactSchema.getRelationships(compactEntity));
+        Assert.assertEquals(1, compactSchema.getRelationships(entity).size());
+
+        try {
+            compactEntity.setName("EntityC");
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+        }
+
+        try {
+            compactSchema.getEntities().add(entity);
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void testValidatesLikeTheOriginalSchema() {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(500);
+        ERSchema schema = generator.generate();
+        schema.addEntityWithAttributes(schema.getEntities().get(3).getName(), null);
+        schema.getEntities().get(7).getAttributes().get(0).setMultivalued(true);
+        schema.getEntities().get(7).getAttributes().get(0).setKey(true);
+        schema.getRelationships().get(5).getParticipatingEntities().get(0).setName("Missing");
+
+        List<ERViolation> violations = new ERSchemaValidator().validate(schema).getViolations();
+        List<ERViolation> compactViolations =
+            new ERSchemaValidator().validate(new CompactERSchema(schema)).getViolations();
+
+        Assert.assertEquals(3, violations.size());
+        Assert.assertEquals(violations.size(), compactViolations.size());
+
+        for (int i = 0; i < violations.size(); i++) {
+            Assert.assertEquals(violations.get(i).getMessage(),
+                compactViolations.get(i).getMessage());
+        }
+    }
+
+    @Test
+    public void testStoresEveryNameOnce() {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(2000);
+        ERSchema schema = generator.generate();
+        Set<String> names = new HashSet<String>();
+
+        for (EREntity entity : schema.getEntities()) {
+            names.add(entity.getName());
+            addNames(entity.getAttributes(), names);
+        }
+
+        for (ERRelationship relationship : schema.getRelationships()) {
+            names.add(relationship.getName());
+            addNames(relationship.getAttributes(), names);
+
+            for (ERParticipatingEntity participatingEntity
+                : relationship.getParticipatingEntities()
+            ) {
+                names.add(participatingEntity.getName());
+                names.add(participatingEntity.getRole());
+            }
+        }
+
+        CompactERSchema compactSchema = new CompactERSchema(schema);
+
+        // Every distinct name, and the missing role, is kept once however often it is used
+        Assert.assertEquals(names.size(), compactSchema.getStringCount());
+        Assert.assertEquals(schema.getEntities().size(), compactSchema.getEntities().size());
+    }
+
+    private static void addNames(List<ERAttribute> attributes, Set<String> names) {
+        for (ERAttribute attribute : attributes) {
+            names.add(attribute.getName());
+            addNames(attribute.getAttributes(), names);
+        }
+    }
+
+    private static List<String> getNames(List<ERAttribute> attributes) {
+        List<String> names = new ArrayList<String>();
+
+        for (ERAttribute attribute : attributes) {
+            names.add(attribute.getName());
+        }
+
+        return names;
+    }
+}
@@ -0,0 +1,110 @@
+package com.myrosh.erowlmapper.er.compact;
+
+import com.myrosh.erowlmapper.Fixtures;
+import com.myrosh.erowlmapper.er.ERException;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.generator.ERSchemaGenerator;
+import com.myrosh.erowlmapper.er.parser.YAMLERParser;
+import com.myrosh.erowlmapper.er.writer.YAMLERWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * ERSchemaSnapshot unit tests.
+ */
+public class ERSchemaSnapshotTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTripsFixtures() throws Exception {
+        for (String fixture : Fixtures.ALL) {
+            ERSchema schema = Fixtures.parse(fixture);
+            Path path = folder.getRoot().toPath().resolve(fixture + ".snapshot");
+            ERSchemaSnapshot.write(schema, path);
+
+            Assert.assertTrue(ERSchemaSnapshot.isSnapshot(path));
+
+            ERSchema loadedSchema = ERSchemaSnapshot.load(path);
+
+            Assert.assertEquals(fixture, toYAML(schema), toYAML(loadedSchema));
+            Assert.assertEquals(fixture, Fixtures.map(schema), Fixtures.map(loadedSchema));
+        }
+    }
+
+    @Test
+    public void testRoundTripsGeneratedSchema() throws Exception {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(1000);
+        String yaml = toYAML(generator.generate());
+        Path path = folder.getRoot().toPath().resolve("generated.snapshot");
+
+        ERSchema schema = new YAMLERParser().parse(new StringReader(yaml));
+        schema.validate();
+        ERSchemaSnapshot.write(schema, path);
+
+        Assert.assertEquals(yaml, toYAML(ERSchemaSnapshot.load(path)));
+    }
+
+    @Test
+    public void testRejectsInvalidFiles() throws Exception {
+        ERSchema schema = new ERSchema();
+        schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "RelationshipA", Arrays.asList("EntityA", "EntityB"), Arrays.asList("Since"));
+        Path path = folder.getRoot().toPath().resolve("schema.snapshot");
+        ERSchemaSnapshot.write(schema, path);
+        byte[] content = Files.readAllBytes(path);
+
+        Assert.assertEquals(2, ERSchemaSnapshot.load(path, false).getEntities().size());
+
+        byte[] otherVersion = content.clone();
+        otherVersion[11] = 2;
+        assertLoadFails(otherVersion, "is a version 2 schema snapshot, version 1 is supported.");
+
+        byte[] corrupted = content.clone();
+        corrupted[content.length - 9] ^= 1;
+        assertLoadFails(corrupted, "is corrupted.");
+
+        assertLoadFails(Arrays.copyOf(content, content.length - 8), "is truncated.");
+        assertLoadFails("entities: []".getBytes(StandardCharsets.UTF_8),
+            "is not a schema snapshot.");
+
+        schema.addEntityWithAttributes("entity_a", null);
+
+        try {
+            ERSchemaSnapshot.write(schema, path);
+            Assert.fail();
+        } catch (ERException e) {
+            Assert.assertArrayEquals(content, Files.readAllBytes(path));
+        }
+    }
+
+    private void assertLoadFails(byte[] content, String message) throws Exception {
+        Path path = folder.newFile().toPath();
+        Files.write(path, content);
+
+        try {
+            ERSchemaSnapshot.load(path);
+            Assert.fail();
+        } catch (ERException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().endsWith(message));
+        }
+    }
+
+    private static String toYAML(ERSchema schema) throws Exception {
+        StringWriter writer = new StringWriter();
+        new YAMLERWriter().write(schema, writer);
+
+        return writer.toString();
+    }
+}
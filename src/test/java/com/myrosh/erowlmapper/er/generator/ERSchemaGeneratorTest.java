@@ -0,0 +1,102 @@
+package com.myrosh.erowlmapper.er.generator;
+
+import com.myrosh.erowlmapper.EROWLMapper;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.parser.YAMLERParser;
+import com.myrosh.erowlmapper.er.writer.YAMLERWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+/**
+ * ERSchemaGenerator unit tests.
+ */
+public class ERSchemaGeneratorTest
+{
+    @Test
+    public void testDefaultSchemaIsValidAndMappable() throws Exception {
+        ERSchema schema = new ERSchemaGenerator().generate();
+
+        schema.validate();
+        new EROWLMapper().map(schema);
+    }
+
+    @Test
+    public void testSkewedSchemasAreValidAndMappable() throws Exception {
+        for (long seed = 0; seed < 20; seed++) {
+            ERSchemaGenerator generator = new ERSchemaGenerator();
+            generator.setSeed(seed);
+            generator.setEntityCount(50);
+            generator.setWeakEntityRatio(0.5);
+            generator.setAttributesPerEntity(4);
+            generator.setCompositeAttributeRatio(0.5);
+            generator.setMultivaluedAttributeRatio(0.5);
+            generator.setRelationshipRatio(2.0);
+            generator.setTernaryRelationshipRatio(0.5);
+            generator.setRelationshipWithAttributesRatio(0.5);
+            generator.setCardinalityConstraintRatio(0.8);
+
+            ERSchema schema = generator.generate();
+
+            schema.validate();
+            new EROWLMapper().map(schema);
+        }
+    }
+
+    @Test
+    public void testDegenerateSchemasAreValid() throws Exception {
+        for (int entityCount = 0; entityCount < 4; entityCount++) {
+            ERSchemaGenerator generator = new ERSchemaGenerator();
+            generator.setEntityCount(entityCount);
+            generator.setWeakEntityRatio(1.0);
+            generator.setTernaryRelationshipRatio(1.0);
+
+            generator.generate().validate();
+        }
+    }
+
+    @Test
+    public void testGenerationIsDeterministic() throws Exception {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setSeed(42);
+        generator.setEntityCount(200);
+
+        Assert.assertEquals(toYAML(generator.generate()), toYAML(generator.generate()));
+    }
+
+    @Test
+    public void testYAMLRoundTrip() throws Exception {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setSeed(7);
+        generator.setEntityCount(100);
+
+        String yaml = toYAML(generator.generate());
+        ERSchema schema = new YAMLERParser().parse(new StringReader(yaml));
+
+        schema.validate();
+        Assert.assertEquals(yaml, toYAML(schema));
+    }
+
+    @Test
+    public void testYAMLRoundTripOfControlCharacters() throws Exception {
+        String name = "Entity\nA\t\"B\" \\ C\u0001\u2028";
+        ERSchema schema = new ERSchema();
+        schema.addEntityWithAttributes(name, Arrays.asList("Line\r\nBreak"));
+
+        ERSchema parsedSchema = new YAMLERParser().parse(new StringReader(toYAML(schema)));
+
+        Assert.assertEquals(name, parsedSchema.getEntities().get(0).getName());
+        Assert.assertEquals("Line\r\nBreak",
+            parsedSchema.getEntities().get(0).getAttributes().get(0).getName());
+    }
+
+    private String toYAML(ERSchema schema) throws Exception {
+        StringWriter writer = new StringWriter();
+        new YAMLERWriter().write(schema, writer);
+
+        return writer.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package com.myrosh.erowlmapper.er.parser;
+
+import com.myrosh.erowlmapper.Fixtures;
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERRelationship;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.generator.ERSchemaGenerator;
+import com.myrosh.erowlmapper.er.writer.YAMLERWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StreamingYAMLERParser unit tests.
+ */
+public class StreamingYAMLERParserTest
+{
+    @Test
+    public void testFixturesMatchYAMLERParser() throws Exception {
+        for (String baseFilename : Fixtures.ALL) {
+            ERSchema schema = new YAMLERParser().parse(Fixtures.open(baseFilename));
+            ERSchema streamedSchema =
+                new StreamingYAMLERParser().parse(Fixtures.open(baseFilename));
+
+            streamedSchema.validate();
+            Assert.assertEquals(baseFilename, toYAML(schema), toYAML(streamedSchema));
+        }
+    }
+
+    @Test
+    public void testGeneratedSchemaMatchesYAMLERParser() throws Exception {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(500);
+
+        String yaml = toYAML(generator.generate());
+
+        Assert.assertEquals(yaml, toYAML(new YAMLERParser().parse(new StringReader(yaml))));
+        Assert.assertEquals(yaml, toYAML(new StreamingYAMLERParser().parse(new StringReader(yaml))));
+    }
+
+    @Test
+    public void testHandlerReceivesElementsInDocumentOrder() throws Exception {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(20);
+
+        ERSchema schema = generator.generate();
+        final List<String> names = new ArrayList<String>();
+
+        new StreamingYAMLERParser().parse(new StringReader(toYAML(schema)),
+            new StreamingYAMLERParser.Handler() {
+                public void handleEntity(EREntity entity) {
+                    names.add(entity.getName());
+                }
+
+                public void handleRelationship(ERRelationship relationship) {
+                    names.add(relationship.getName());
+                }
+            });
+
+        List<String> expectedNames = new ArrayList<String>();
+
+        for (EREntity entity : schema.getEntities()) {
+            expectedNames.add(entity.getName());
+        }
+
+        for (ERRelationship relationship : schema.getRelationships()) {
+            expectedNames.add(relationship.getName());
+        }
+
+        Assert.assertEquals(expectedNames, names);
+    }
+
+    @Test
+    public void testRejectsNonMappingItems() throws Exception {
+        assertRejected("entities:\n  - name: A\n  - null\n  - name: B\n");
+        assertRejected("relationships:\n  - 3\n");
+    }
+
+    @Test
+    public void testRejectsUnknownFields() throws Exception {
+        assertRejected("entities: []\nviews: []\n");
+    }
+
+    @Test
+    public void testRejectsFieldsThatAreNotSequences() throws Exception {
+        assertRejected("entities:\n  A:\n    name: A\n");
+        assertRejected("relationships: 3\n");
+    }
+
+    @Test
+    public void testRejectsDocumentsThatAreNotMappings() throws Exception {
+        assertRejected("- name: A\n");
+        assertRejected("{entities: []");
+    }
+
+    @Test
+    public void testRejectsEmptyDocuments() throws Exception {
+        assertRejected("");
+        assertRejected("# no schema\n");
+    }
+
+    private void assertRejected(String yaml) throws Exception {
+        try {
+            new YAMLERParser().parse(new StringReader(yaml));
+            Assert.fail(yaml);
+        } catch (IOException e) {
+        }
+
+        try {
+            new StreamingYAMLERParser().parse(new StringReader(yaml));
+            Assert.fail(yaml);
+        } catch (IOException e) {
+        }
+    }
+
+    private String toYAML(ERSchema schema) throws Exception {
+        StringWriter writer = new StringWriter();
+        new YAMLERWriter().write(schema, writer);
+
+        return writer.toString();
+    }
+}
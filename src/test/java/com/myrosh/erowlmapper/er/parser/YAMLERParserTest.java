@@ -0,0 +1,91 @@
+package com.myrosh.erowlmapper.er.parser;
+
+import com.myrosh.erowlmapper.er.ERException;
+import com.myrosh.erowlmapper.er.ERParser;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.generator.ERSchemaGenerator;
+import com.myrosh.erowlmapper.er.writer.YAMLERWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * YAMLERParser unit tests.
+ */
+public class YAMLERParserTest
+{
+    @Test
+    public void testBytecodeGenerationMatchesReflection() throws Exception {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(300);
+        generator.setCompositeAttributeRatio(0.3);
+
+        String yaml = toYAML(generator.generate());
+        ERSchema schema = new YAMLERParser(true).parse(new StringReader(yaml));
+
+        schema.validate();
+        Assert.assertEquals(yaml, toYAML(schema));
+    }
+
+    @Test
+    public void testSharedParserIsThreadSafe() throws Exception {
+        final ERParser parser = new YAMLERParser();
+        final List<String> yamls = new ArrayList<String>();
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+
+        for (int i = 0; i < 16; i++) {
+            ERSchemaGenerator generator = new ERSchemaGenerator();
+            generator.setSeed(i);
+            generator.setEntityCount(50);
+
+            final String yaml = toYAML(generator.generate());
+            yamls.add(yaml);
+
+            tasks.add(new Callable<String>() {
+                public String call() throws Exception {
+                    return toYAML(parser.parse(new StringReader(yaml)));
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<String>> results = executor.invokeAll(tasks);
+
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(yamls.get(i), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectsEmptyDocuments() throws Exception {
+        for (String yaml : new String[] {"---\n", "~\n"}) {
+            try {
+                new YAMLERParser().parse(new StringReader(yaml));
+                Assert.fail(yaml);
+            } catch (ERException e) {
+                Assert.assertEquals("ER Schema Error: The schema document is empty.",
+                    e.getMessage());
+            }
+        }
+    }
+
+    private static String toYAML(ERSchema schema) throws Exception {
+        StringWriter writer = new StringWriter();
+        new YAMLERWriter().write(schema, writer);
+
+        return writer.toString();
+    }
+}
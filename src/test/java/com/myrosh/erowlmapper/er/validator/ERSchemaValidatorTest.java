@@ -0,0 +1,99 @@
+package com.myrosh.erowlmapper.er.validator;
+
+import com.myrosh.erowlmapper.er.ERAttribute;
+import com.myrosh.erowlmapper.er.EREntity;
+import com.myrosh.erowlmapper.er.ERSchema;
+import com.myrosh.erowlmapper.er.generator.ERSchemaGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ERSchemaValidator unit tests.
+ */
+public class ERSchemaValidatorTest
+{
+    @Test
+    public void testReportsAllViolations() {
+        ERSchema schema = new ERSchema();
+        schema.addEntityWithAttributes("EntityA", Arrays.asList("Name"));
+        schema.addEntityWithAttributes("entity a", null);
+        schema.addEntityWithAttributes("", null);
+        schema.addRelationshipWithParticipatingEntitiesAndAttributes(
+            "RelationshipA", Arrays.asList("EntityB"), null);
+
+        EREntity weakEntity = schema.addEntityWithAttributes("EntityC", Arrays.asList("Name"));
+        weakEntity.setWeak(true);
+
+        ERAttribute compositeAttribute = new ERAttribute();
+        compositeAttribute.setName("EntityB");
+        compositeAttribute.setComposite(true);
+        weakEntity.addAttribute(compositeAttribute);
+
+        ERValidationReport report = new ERSchemaValidator().validate(schema);
+
+        Assert.assertEquals(Arrays.asList(
+            ERViolation.Rule.DUPLICATE_ENTITY,
+            ERViolation.Rule.ENTITY_NAME_MISSING,
+            ERViolation.Rule.TOO_FEW_PARTICIPATING_ENTITIES,
+            ERViolation.Rule.WEAK_ENTITY_WITHOUT_IDENTIFYING_RELATIONSHIP,
+            ERViolation.Rule.DUPLICATE_ATTRIBUTE,
+            ERViolation.Rule.COMPOSITE_ATTRIBUTE_NAMED_AFTER_ENTITY
+        ), getRules(report));
+        Assert.assertSame(weakEntity, report.getViolations().get(3).getElement());
+        Assert.assertEquals(1, report.getViolations(ERViolation.Rule.DUPLICATE_ENTITY).size());
+
+        try {
+            schema.validate();
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("ER Schema Error: " + report.getViolations().get(0).getMessage(),
+                e.getMessage());
+        }
+    }
+
+    @Test
+    public void testParallelValidationMatchesSequentialValidation() {
+        ERSchemaGenerator generator = new ERSchemaGenerator();
+        generator.setEntityCount(5000);
+        ERSchema schema = generator.generate();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            Assert.assertTrue(new ERSchemaValidator(pool).validate(schema).isValid());
+
+            for (int i = 0; i < schema.getEntities().size(); i += 7) {
+                EREntity entity = schema.getEntities().get(i);
+                entity.getAttributes().get(0).setMultivalued(true);
+                entity.getAttributes().get(0).setKey(true);
+            }
+
+            for (int i = 0; i < schema.getRelationships().size(); i += 11) {
+                schema.getRelationships().get(i).getParticipatingEntities().get(0)
+                    .setName("Missing" + i);
+            }
+
+            ERValidationReport sequentialReport = new ERSchemaValidator().validate(schema);
+            ERValidationReport parallelReport = new ERSchemaValidator(pool).validate(schema);
+
+            Assert.assertFalse(sequentialReport.isValid());
+            Assert.assertEquals(sequentialReport.toString(), parallelReport.toString());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<ERViolation.Rule> getRules(ERValidationReport report) {
+        List<ERViolation.Rule> rules = new ArrayList<ERViolation.Rule>();
+
+        for (ERViolation violation : report.getViolations()) {
+            rules.add(violation.getRule());
+        }
+
+        return rules;
+    }
+}
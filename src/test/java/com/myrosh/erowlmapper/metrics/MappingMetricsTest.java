@@ -0,0 +1,153 @@
+package com.myrosh.erowlmapper.metrics;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.myrosh.erowlmapper.App;
+import com.myrosh.erowlmapper.owl.OWLFormat;
+import com.myrosh.erowlmapper.owl.OWLLiteOntology;
+
+/**
+ * MappingMetrics unit tests.
+ */
+public class MappingMetricsTest
+{
+
+    private static final String SCHEMA = "entities:\n"
+        + "    - name: EntityA\n"
+        + "      attributes:\n"
+        + "          - name: AttributeA\n"
+        + "            key: true\n"
+        + "    - name: EntityB\n"
+        + "relationships:\n"
+        + "    - name: RelationshipA\n"
+        + "      participatingEntities:\n"
+        + "          - name: EntityA\n"
+        + "          - name: EntityB\n";
+
+    @Test
+    public void testListenerReceivesEveryPhase() throws Exception {
+        final Map<MappingPhase, long[]> runs =
+            new EnumMap<MappingPhase, long[]>(MappingPhase.class);
+        // The metrics are shared with whatever else runs in this JVM
+        final Thread thread = Thread.currentThread();
+        MappingMetricsListener listener = new MappingMetricsListener() {
+            public void phaseCompleted(
+                MappingPhase phase,
+                long nanos,
+                long elementCount,
+                long tripleCount,
+                long characterCount
+            ) {
+                if (Thread.currentThread() == thread) {
+                    runs.put(phase, new long[] {elementCount, tripleCount, characterCount});
+                }
+            }
+        };
+
+        MappingMetrics.getInstance().addListener(listener);
+
+        try {
+            OWLLiteOntology ontology = App.map(new StringReader(SCHEMA));
+            StringWriter writer = new StringWriter();
+            ontology.write(writer, OWLFormat.N_TRIPLES);
+
+            Assert.assertEquals(MappingPhase.values().length, runs.size());
+            Assert.assertArrayEquals(new long[] {3, 0, SCHEMA.length()},
+                runs.get(MappingPhase.PARSE));
+            Assert.assertEquals(2, runs.get(MappingPhase.MAP_STRONG_ENTITIES)[0]);
+            Assert.assertEquals(1,
+                runs.get(MappingPhase.MAP_BINARY_RELATIONSHIPS_WITHOUT_ATTRIBUTES)[0]);
+            Assert.assertArrayEquals(new long[] {0, ontology.size(), writer.toString().length()},
+                runs.get(MappingPhase.WRITE));
+
+            long tripleCount = 0;
+
+            for (MappingPhase phase : MappingPhase.values()) {
+                if (phase.getName().startsWith("map")) {
+                    tripleCount += runs.get(phase)[1];
+                }
+            }
+
+            Assert.assertEquals(ontology.size(), tripleCount);
+        } finally {
+            MappingMetrics.getInstance().removeListener(listener);
+        }
+    }
+
+    @Test
+    public void testMBeans() throws Exception {
+        MappingMetrics.getInstance().registerMBeans();
+        MappingMetrics.getInstance().registerMBeans();
+        App.map(new StringReader(SCHEMA));
+
+        long count = (Long) ManagementFactory.getPlatformMBeanServer().getAttribute(
+            MappingMetrics.getObjectName(MappingPhase.VALIDATE), "Count");
+
+        Assert.assertTrue(count > 0);
+        Assert.assertEquals(count,
+            MappingMetrics.getInstance().getPhaseMetrics(MappingPhase.VALIDATE).getCount());
+    }
+
+    @Test
+    public void testFlightRecorderEvents() throws Exception {
+        Path file = Files.createTempFile("erowlmapper", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("com.myrosh.erowlmapper.Phase");
+            recording.enable("com.myrosh.erowlmapper.Element").withThreshold(Duration.ZERO);
+            recording.start();
+            App.map(new StringReader(SCHEMA));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // Events stay registered after the recording, but are no longer enabled
+        Assert.assertNull(ElementRun.start(MappingPhase.PARSE));
+
+        List<String> phases = new ArrayList<String>();
+        List<String> elements = new ArrayList<String>();
+
+        try {
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getThread().getJavaThreadId() != Thread.currentThread().getId()) {
+                    continue;
+                }
+
+                if (event.getEventType().getName().equals("com.myrosh.erowlmapper.Phase")) {
+                    phases.add(event.getString("phase"));
+                } else {
+                    elements.add(event.getString("phase") + " " + event.getString("elementType")
+                        + " " + event.getString("name") + " " + event.getInt("attributeCount"));
+                    Assert.assertTrue(event.getLong("tripleCount") > 0);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        Assert.assertEquals(7, phases.size());
+        Assert.assertTrue(phases.contains("parse"));
+        Assert.assertTrue(phases.contains("mapTernaryRelationships"));
+        Assert.assertEquals(3, elements.size());
+        Assert.assertTrue(elements.contains("mapStrongEntities entity EntityA 1"));
+        Assert.assertTrue(elements.contains("mapStrongEntities entity EntityB 0"));
+        Assert.assertTrue(elements.contains(
+            "mapBinaryRelationshipsWithoutAttributes relationship RelationshipA 0"));
+    }
+}